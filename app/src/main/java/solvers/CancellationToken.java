@@ -0,0 +1,45 @@
+package solvers;
+
+/**
+ * A flag shared between a caller and one or more solvers to stop a search
+ * cooperatively. Solvers check it in their search loops and return as soon as
+ * it is set.
+ */
+public class CancellationToken {
+    private final CancellationToken parent;
+    private volatile boolean cancelled = false;
+
+    /**
+     * Creates a token that is only cancelled through {@link #cancel()}.
+     */
+    public CancellationToken() {
+        this(null);
+    }
+
+    /**
+     * Creates a token that is also cancelled when its parent is, so a search
+     * can stop its own workers without stopping the caller.
+     *
+     * @param parent the token to follow, or null
+     */
+    public CancellationToken(CancellationToken parent) {
+        this.parent = parent;
+    }
+
+    /**
+     * Requests every solver using this token to stop.
+     */
+    public void cancel() {
+        this.cancelled = true;
+    }
+
+    /**
+     * Checks if a stop was requested.
+     *
+     * @return true if {@link #cancel()} was called on this token or its parent,
+     *         false otherwise
+     */
+    public boolean isCancelled() {
+        return this.cancelled || (this.parent != null && this.parent.isCancelled());
+    }
+}
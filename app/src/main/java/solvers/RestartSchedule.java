@@ -0,0 +1,80 @@
+package solvers;
+
+/**
+ * The number of failures a randomized search may meet before it restarts from the root.
+ * <p>
+ * The runtime of a randomized search is heavy tailed: an unlucky early choice can cost orders of
+ * magnitude more failures than the median run. Restarting with fresh random choices after a
+ * growing number of failures cuts that tail while keeping the search complete, since the limits
+ * grow without bound.
+ */
+@FunctionalInterface
+public interface RestartSchedule {
+
+    /**
+     * A schedule that never restarts.
+     */
+    RestartSchedule NEVER = restart -> Long.MAX_VALUE;
+
+    /**
+     * Gets the number of failures allowed in a run.
+     *
+     * @param restart the number of restarts made before the run, starting at 0
+     * @return the number of failures after which the run restarts
+     */
+    long getLimit(int restart);
+
+    /**
+     * Creates the Luby schedule, {@code unit} times 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, ... It is within a
+     * constant factor of the optimal schedule when nothing is known about the runtime distribution.
+     *
+     * @param unit the number of failures of the shortest runs
+     * @return the schedule
+     */
+    static RestartSchedule luby(long unit) {
+        if (unit <= 0) {
+            throw new IllegalArgumentException("[RestartSchedule] Unit must be positive");
+        }
+        return restart -> unit * lubyTerm(restart);
+    }
+
+    /**
+     * Creates a geometric schedule, {@code first} times 1, factor, factor², ...
+     *
+     * @param first  the number of failures of the first run
+     * @param factor the growth of the limit between two runs, greater than 1
+     * @return the schedule
+     */
+    static RestartSchedule geometric(long first, double factor) {
+        if (first <= 0 || factor <= 1.0) {
+            throw new IllegalArgumentException("[RestartSchedule] First limit must be positive and factor greater than 1");
+        }
+        return restart -> {
+            double limit = first * Math.pow(factor, restart);
+            return limit >= Long.MAX_VALUE ? Long.MAX_VALUE : (long) limit;
+        };
+    }
+
+    /**
+     * Gets a term of the Luby sequence 1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, ...
+     *
+     * @param index the index of the term, starting at 0
+     * @return the term
+     */
+    static long lubyTerm(int index) {
+        // Find the complete subsequence of size 2^k - 1 containing the index
+        long size = 1;
+        int power = 0;
+        while (size < index + 1L) {
+            power++;
+            size = 2 * size + 1;
+        }
+        long position = index;
+        while (size - 1 != position) {
+            size = (size - 1) >> 1;
+            power--;
+            position = position % size;
+        }
+        return 1L << power;
+    }
+}
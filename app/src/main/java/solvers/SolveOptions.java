@@ -0,0 +1,127 @@
+package solvers;
+
+import java.time.Duration;
+
+/**
+ * The limits of a search: a wall-clock deadline, a budget of search nodes and a
+ * cancellation token. Solvers check them in their search loops through
+ * {@link Solver#shouldStop()}.
+ * <p>
+ * Instances are immutable and built with {@link SolveOptions.Builder}.
+ */
+public class SolveOptions {
+    /**
+     * Options without any limit.
+     */
+    public static final SolveOptions NONE = new Builder().build();
+
+    private final long deadlineNanos;
+    private final long maxNodes;
+    private final CancellationToken cancellation;
+
+    private SolveOptions(long deadlineNanos, long maxNodes, CancellationToken cancellation) {
+        this.deadlineNanos = deadlineNanos;
+        this.maxNodes = maxNodes;
+        this.cancellation = cancellation;
+    }
+
+    /**
+     * Gets the deadline of the search.
+     *
+     * @return the deadline in the {@link System#nanoTime()} time base, or
+     *         {@link Long#MAX_VALUE} if there is none
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * Checks if the deadline of the search has passed.
+     *
+     * @return true if there is a deadline and it has passed, false otherwise
+     */
+    public boolean isExpired() {
+        return deadlineNanos != Long.MAX_VALUE && System.nanoTime() - deadlineNanos >= 0;
+    }
+
+    /**
+     * Gets the number of search nodes a solver may explore.
+     *
+     * @return the budget of nodes, or {@link Long#MAX_VALUE} if there is none
+     */
+    public long getMaxNodes() {
+        return maxNodes;
+    }
+
+    public CancellationToken getCancellation() {
+        return cancellation;
+    }
+
+    /**
+     * Creates a copy of these options with another cancellation token, used by
+     * solvers running several searches at once to stop them on their own.
+     *
+     * @param cancellation the token of the copy
+     * @return the new options
+     */
+    public SolveOptions withCancellation(CancellationToken cancellation) {
+        return new SolveOptions(deadlineNanos, maxNodes, cancellation);
+    }
+
+    /**
+     * Builder class for constructing SolveOptions instances.
+     */
+    public static class Builder {
+        private long deadlineNanos = Long.MAX_VALUE;
+        private long maxNodes = Long.MAX_VALUE;
+        private CancellationToken cancellation;
+
+        /**
+         * Sets the time the search may take, counted from now.
+         *
+         * @param timeout the time allowed to the search
+         * @return the Builder instance
+         */
+        public Builder timeout(Duration timeout) {
+            this.deadlineNanos = System.nanoTime() + timeout.toNanos();
+            return this;
+        }
+
+        /**
+         * Sets the number of search nodes a solver may explore.
+         *
+         * @param maxNodes the budget of nodes
+         * @return the Builder instance
+         */
+        public Builder maxNodes(long maxNodes) {
+            if (maxNodes < 0) {
+                throw new IllegalArgumentException("[SolveOptions] The node budget must not be negative");
+            }
+            this.maxNodes = maxNodes;
+            return this;
+        }
+
+        /**
+         * Sets the token used to stop the search.
+         *
+         * @param cancellation the cancellation token
+         * @return the Builder instance
+         */
+        public Builder cancellation(CancellationToken cancellation) {
+            this.cancellation = cancellation;
+            return this;
+        }
+
+        /**
+         * Builds and returns a SolveOptions instance.
+         *
+         * @return the constructed SolveOptions
+         */
+        public SolveOptions build() {
+            return new SolveOptions(
+                    deadlineNanos,
+                    maxNodes,
+                    cancellation != null ? cancellation : new CancellationToken());
+        }
+    }
+}
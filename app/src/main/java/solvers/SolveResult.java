@@ -0,0 +1,60 @@
+package solvers;
+
+/**
+ * The outcome of {@link Solver#solve(SolveOptions)}.
+ */
+public class SolveResult {
+
+    /**
+     * Enum representing how a search ended.
+     */
+    public enum Status {
+        /** The grid was filled with a solution. */
+        SOLVED,
+        /** The search was exhausted, the grid has no solution. */
+        UNSAT,
+        /** The deadline or the node budget was reached before the end of the search. */
+        TIMED_OUT,
+        /** The cancellation token was set before the end of the search. */
+        CANCELLED,
+    }
+
+    private final Status status;
+    private final long nodes;
+    private final long elapsedMillis;
+
+    /**
+     * Constructs a SolveResult.
+     *
+     * @param status        how the search ended
+     * @param nodes         the number of search nodes explored, summed over the concurrent searches
+     *                      of parallel solvers
+     * @param elapsedMillis the wall-clock duration of the search
+     */
+    public SolveResult(Status status, long nodes, long elapsedMillis) {
+        this.status = status;
+        this.nodes = nodes;
+        this.elapsedMillis = elapsedMillis;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSolved() {
+        return status == Status.SOLVED;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    @Override
+    public String toString() {
+        return status + " (" + nodes + " nodes, " + elapsedMillis + "ms)";
+    }
+}
@@ -1,10 +1,7 @@
 package solvers;
 
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 import java.util.Set;
 
@@ -12,61 +9,109 @@ import sudoku.Grid;
 import sudoku.Position;
 
 public abstract class Solver {
+    /**
+     * Number of nodes between two reads of the clock.
+     */
+    private static final int DEADLINE_CHECK_INTERVAL = 1024;
+
     protected Grid grid;
-    protected ArrayList<Position> lastInserts;
-    protected Map<Grid, Map<Position, Set<String>>> historyInserts;
+    protected SolveOptions options = SolveOptions.NONE;
+    private long nodes;
+    private volatile SolveResult.Status stopStatus;
 
     protected Solver(Grid grid) {
         this.grid = grid;
-        this.lastInserts = new ArrayList<>();
-        this.historyInserts = new HashMap<>();
     }
 
     public abstract void solve();
 
-    public abstract int getNumberOfSolutions();
-
-    protected void rollBack() {
-        if (this.lastInserts.isEmpty()) {
-            return;
-        }
-
-        Position lastMovePosition = this.lastInserts.removeLast();
-        String lastSymbolInserted = this.grid.getSymbol(lastMovePosition);
-        this.grid.resetSymbol(lastMovePosition);
-
-        if (!this.historyInserts.containsKey(this.grid)) {
-            this.historyInserts.put(this.grid, new HashMap<>());
+    /**
+     * Solves the grid within the limits of the given options. The options stay
+     * set for the next searches of this solver.
+     *
+     * @param options the deadline, node budget and cancellation token of the search
+     * @return how the search ended, with its statistics
+     */
+    public SolveResult solve(SolveOptions options) {
+        setOptions(options);
+        long start = System.nanoTime();
+        solve();
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        SolveResult.Status status;
+        if (grid.isComplete()) {
+            status = SolveResult.Status.SOLVED;
+        } else if (stopStatus != null) {
+            status = stopStatus;
+        } else if (options.getCancellation().isCancelled()) {
+            status = SolveResult.Status.CANCELLED;
+        } else if (options.isExpired()) {
+            status = SolveResult.Status.TIMED_OUT;
+        } else {
+            status = SolveResult.Status.UNSAT;
         }
-        if (!this.historyInserts.get(this.grid).containsKey(lastMovePosition)) {
-            this.historyInserts.get(this.grid).put(lastMovePosition, new HashSet<>());
-        }
-        this.historyInserts.get(this.grid).get(lastMovePosition).add(lastSymbolInserted);
+        return new SolveResult(status, nodes, elapsedMillis);
     }
 
-    protected void insertSymbol(String symbol, Position position) {
-        this.grid.insertSymbol(symbol, position);
-        this.lastInserts.add(position);
+    /**
+     * Loads new givens into the grid of the solver, which keeps its layout, so that this solver
+     * solves another puzzle of the same layout. Solvers keep their work areas from one search to
+     * the next of the same grid, so reloading and solving again does not allocate anything once
+     * the first puzzle is solved.
+     *
+     * @param givens the index of the symbol of every cell, {@link Grid#EMPTY} for an empty cell
+     * @return true if the givens were loaded, false if two of them break a rule
+     * @see Grid#loadValues(int[])
+     */
+    public boolean load(int[] givens) {
+        return grid.loadValues(givens);
     }
 
-    protected Set<String> getHistoryInsert(Position position) {
-        if (!this.historyInserts.containsKey(this.grid)) {
-            return new HashSet<>();
-        }
-
-        for (Map.Entry<Position, Set<String>> entry : this.historyInserts.get(this.grid).entrySet()) {
-            if (entry.getKey().equals(position)) {
-                return entry.getValue();
+    /**
+     * Counts the solutions of the grid with an exhaustive search, stopping as soon as
+     * {@code limit} solutions are found. The grid is left in its original state.
+     *
+     * @param limit the number of solutions after which the search stops, 2 is enough to check
+     *              uniqueness
+     * @return the number of solutions found, at most {@code limit}
+     */
+    public abstract int countSolutions(int limit);
+
+    /**
+     * Checks if the grid has a solution in which an empty cell takes another value than the given
+     * one. When a clue is removed from a puzzle with a unique solution, every solution keeping the
+     * old value of the cell is the known one, so this check is enough to know if the puzzle is still
+     * unique, and it is usually much faster than counting two solutions.
+     * <p>
+     * This implementation checks every other candidate of the cell with {@link #countSolutions(int)}.
+     * Solvers able to forbid a value override it to search once. The grid is left unchanged.
+     *
+     * @param cellId the id of the empty cell
+     * @param value  the index of the symbol the cell must not take
+     * @return true if such a solution exists or the search stopped before knowing
+     */
+    public boolean hasOtherSolution(int cellId, int value) {
+        for (long rest = grid.getCandidates(cellId) & ~(1L << value); rest != 0L; rest &= rest - 1) {
+            grid.insertValue(cellId, Long.numberOfTrailingZeros(rest));
+            int found = countSolutions(1);
+            grid.resetValue(cellId);
+            if (found > 0 || isStopped()) {
+                return true;
             }
         }
+        return false;
+    }
 
-        return new HashSet<>();
+    public int getNumberOfSolutions() {
+        return countSolutions(Integer.MAX_VALUE);
     }
 
-    protected Set<String> getPossiblePlays(Position position) {
-        Set<String> possiblePlays = this.grid.getPossiblePlays(position);
-        possiblePlays.removeAll(getHistoryInsert(position));
-        return possiblePlays;
+    /**
+     * Gets the domain of a cell: its candidates minus the symbols already tried
+     * and eliminated on the trail of the grid.
+     */
+    protected long getCandidates(int cellId) {
+        return this.grid.getDomain(cellId);
     }
 
     protected String chooseRandomSymbol(Set<String> possiblePlays) {
@@ -76,6 +121,23 @@ public abstract class Solver {
         return possiblePlaysArray[randomIndex];
     }
 
+    /**
+     * Chooses a random symbol among a candidate mask with the given generator, so
+     * that seeded searches can be replayed.
+     *
+     * @return the index of the symbol in the alphabet of the grid
+     */
+    protected int chooseRandomSymbol(long candidates, Random random) {
+        if (candidates == 0L) {
+            throw new IllegalArgumentException("[Solver] Candidates must not be empty");
+        }
+        int randomRank = random.nextInt(Long.bitCount(candidates));
+        for (int i = 0; i < randomRank; i++) {
+            candidates &= candidates - 1;
+        }
+        return Long.numberOfTrailingZeros(candidates);
+    }
+
     protected Position chooseRandomPosition(Set<Position> positions) {
         if (positions.isEmpty()) {
             throw new IllegalArgumentException("[Solver] Positions must not be empty");
@@ -86,6 +148,91 @@ public abstract class Solver {
         return positionList.get(randomIndex);
     }
 
+    /**
+     * Resets the node counter and the stop status. Solvers call it at the start
+     * of every search.
+     */
+    protected void startSearch() {
+        this.nodes = 0;
+        this.stopStatus = null;
+    }
+
+    /**
+     * Counts a new search node and checks the limits of the options. The clock
+     * is only read every {@value #DEADLINE_CHECK_INTERVAL} nodes.
+     *
+     * @return true if the search must stop, false otherwise
+     */
+    protected boolean shouldStop() {
+        if (stopStatus != null) {
+            return true;
+        }
+        nodes++;
+        if (options.getCancellation().isCancelled()) {
+            stop(SolveResult.Status.CANCELLED);
+        } else if (nodes > options.getMaxNodes()
+                || (nodes % DEADLINE_CHECK_INTERVAL == 1 && options.isExpired())) {
+            stop(SolveResult.Status.TIMED_OUT);
+        }
+        return stopStatus != null;
+    }
+
+    /**
+     * Adds nodes explored on behalf of this solver to the counter of the current search. Solvers
+     * delegating their search to other solvers, which count their own nodes, call it once those are
+     * done so that {@link #getNodes()} reports the whole work.
+     *
+     * @param count the number of nodes explored by the delegates
+     */
+    protected void addNodes(long count) {
+        this.nodes += count;
+    }
+
+    /**
+     * Stops the current search, keeping the first reason given.
+     *
+     * @param status the reason of the stop, {@code TIMED_OUT} or {@code CANCELLED}
+     */
+    protected void stop(SolveResult.Status status) {
+        if (stopStatus == null) {
+            stopStatus = status;
+        }
+    }
+
+    /**
+     * Checks if the last search stopped before its end.
+     *
+     * @return true if a limit of the options was reached, false otherwise
+     */
+    public boolean isStopped() {
+        return stopStatus != null;
+    }
+
+    /**
+     * Gets the reason the last search stopped before its end.
+     *
+     * @return {@code TIMED_OUT}, {@code CANCELLED}, or null if the search was not stopped
+     */
+    public SolveResult.Status getStopStatus() {
+        return stopStatus;
+    }
+
+    /**
+     * Gets the number of nodes explored by the last search. For solvers running several searches at
+     * once, it is the sum of the nodes of all of them.
+     */
+    public long getNodes() {
+        return nodes;
+    }
+
+    public SolveOptions getOptions() {
+        return options;
+    }
+
+    public void setOptions(SolveOptions options) {
+        this.options = options;
+    }
+
     public Grid getGrid() {
         return grid;
     }
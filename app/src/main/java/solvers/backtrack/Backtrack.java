@@ -1,11 +1,8 @@
 package solvers.backtrack;
 
-import java.util.HashSet;
-import java.util.Set;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import solvers.Solver;
-import sudoku.Cell;
 import sudoku.Grid;
 import sudoku.Position;
 import utils.Colors;
@@ -13,16 +10,20 @@ import utils.Colors;
 /**
  * Implements a Backtracking solver for Sudoku puzzles.
  * <p>
- * This class extends the {@link Solver} class and utilizes a recursive backtracking algorithm
- * to find a solution for a given Sudoku grid. It attempts to fill empty cells with valid
- * symbols, backtracking when a dead end is reached.
+ * This class extends the {@link Solver} class and utilizes a backtracking algorithm to find a
+ * solution for a given Sudoku grid. It attempts to fill empty cells with valid symbols,
+ * backtracking when a dead end is reached. The decisions are kept on an explicit stack rather than
+ * the call stack.
  */
 public class Backtrack extends Solver {
 
     private static final Logger logger = LoggerFactory.getLogger(
         Backtrack.class
     );
-    private int attempts = 0;
+    private int attempts;
+    private int[] decisionCells;
+    private long[] remainingValues;
+    private int[] checkpoints;
 
     /**
      * Constructs a {@code Backtrack} solver for the given Sudoku grid.
@@ -40,11 +41,11 @@ public class Backtrack extends Solver {
     /**
      * Solves the Sudoku grid using the backtracking algorithm.
      * <p>
-     * This method initiates the backtracking process by calling the recursive {@link #backtrack(int, int)}
-     * method starting from the top-left cell (row 0, column 0).
+     * This method initiates the backtracking process by calling {@link #backtrack(int)}, which starts
+     * from the top-left cell (row 0, column 0).
      * It logs the start and end of the backtracking process using SLF4j logger.
      *
-     * @see #backtrack(int, int)
+     * @see #backtrack(int)
      */
     @Override
     public void solve() {
@@ -53,91 +54,141 @@ public class Backtrack extends Solver {
             "Starting backtracking process..." +
             Colors.RESET
         );
-        backtrack(0, 0);
+        grid.resetTrail();
+        attempts = 0;
+        startSearch();
+        backtrack(1);
+        grid.resetTrail();
     }
 
+    /**
+     * Counts the solutions with the same backtracking as {@link #solve()}, without stopping at the
+     * first one. The grid is restored through its trail afterwards.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
     @Override
-    public int getNumberOfSolutions() {
-        return -1;
+    public int countSolutions(int limit) {
+        grid.resetTrail();
+        attempts = 0;
+        startSearch();
+        int solutions = backtrack(limit);
+        grid.undoTo(0);
+        grid.resetTrail();
+        return solutions;
     }
 
     /**
-     * Recursively attempts to solve the Sudoku grid using backtracking.
+     * Attempts to solve the Sudoku grid using backtracking driven by an explicit decision stack.
      * <p>
-     * This is the core method of the backtracking algorithm. It tries to fill the cell at the given
-     * {@code row} and {@code col} with a valid symbol. If successful, it recursively calls itself
-     * for the next cell. If it reaches a dead end or finds a conflict, it backtracks by resetting
-     * the current cell and trying the next possible symbol.
+     * This is the core method of the backtracking algorithm. The cells are visited row by row: each
+     * empty cell becomes a decision on the stack, holding the candidates it has not tried yet and
+     * the checkpoint of the trail before its current value. When a cell has no candidate left, its
+     * decision is popped and the value of the previous one is undone, then its next candidate is
+     * tried. The depth of the search does not depend on the call stack, so large grids can be solved
+     * on threads with small stacks.
      *
-     * @param row The current row index to process.
-     * @param col The current column index to process.
-     * @return {@code true} if a solution is found from this point, {@code false} otherwise.
-     *         Returns {@code true} when the entire grid is filled successfully (base case).
+     * @param limit The number of solutions after which the search stops, leaving the last one in the grid.
+     * @return The number of solutions found, at most {@code limit}.
      */
-    private boolean backtrack(int row, int col) {
-        attempts++;
-
+    private int backtrack(int limit) {
         Position size = grid.getSize();
-
-        // Backtracking is done.
-        if (row >= size.getY()) {
-            logger.info(
-                Colors.SUCCESS_COLOR +
-                "Solution found after " +
-                attempts +
-                " attempts!" +
-                Colors.RESET
-            );
-            return true;
-        }
-
-        //
-        int nextRow = (col + 1 >= size.getX()) ? row + 1 : row;
-        int nextCol = (col + 1 >= size.getX()) ? 0 : col + 1;
-
-        Position currentPos = new Position(col, row);
-        Cell currentCell = grid.getCell(currentPos);
-
-        if (currentCell == null || currentCell.getSymbol() != null) {
-            return backtrack(nextRow, nextCol);
+        int width = size.getX();
+        int cellCount = width * size.getY();
+        // The stack is kept from one search to the next of the same grid
+        if (decisionCells == null || decisionCells.length != cellCount) {
+            decisionCells = new int[cellCount];
+            remainingValues = new long[cellCount];
+            checkpoints = new int[cellCount];
         }
+        int depth = 0;
+        int position = 0;
+        int found = 0;
+
+        while (true) {
+            // Move forward to the next empty cell, or to the end of the grid
+            attempts++;
+            boolean returning = shouldStop();
+            if (!returning) {
+                if (position >= cellCount) {
+                    // Backtracking is done.
+                    if (logger.isInfoEnabled()) {
+                        logger.info(
+                            Colors.SUCCESS_COLOR + "Solution found after {} attempts!" + Colors.RESET,
+                            attempts
+                        );
+                    }
+                    found++;
+                    if (found >= limit) {
+                        return found;
+                    }
+                    returning = true;
+                } else if (grid.getValue(position) != Grid.EMPTY) {
+                    position++;
+                    continue;
+                } else {
+                    decisionCells[depth] = position;
+                    remainingValues[depth] = getCandidates(position);
+                    depth++;
+                }
+            }
 
-        Set<String> possibleValues = new HashSet<>(
-            grid.getPossiblePlays(currentPos)
-        );
-
-        for (String value : possibleValues) {
-            grid.insertSymbol(value, currentPos);
-
-            logger.debug(
-                Colors.INFO_COLOR +
-                "Attempt #" +
-                attempts +
-                " at position (" +
-                row +
-                "," +
-                col +
-                ") with value " +
-                Colors.HIGHLIGHT_COLOR +
-                value +
-                Colors.RESET
-            );
-            if (backtrack(nextRow, nextCol)) {
-                return true;
+            // Try the next value of the deepest decision, popping the ones with no value left
+            while (true) {
+                if (depth == 0) {
+                    return found;
+                }
+                int top = depth - 1;
+                int currentCell = decisionCells[top];
+                if (returning) {
+                    if (logger.isDebugEnabled()) {
+                        logger.debug(
+                            Colors.WARNING_COLOR +
+                            "Rolling back from position (" +
+                            currentCell / width +
+                            "," +
+                            currentCell % width +
+                            ") | Value: " +
+                            grid.getSymbolAt(grid.getValue(currentCell)) +
+                            Colors.RESET
+                        );
+                    }
+                    grid.undoTo(checkpoints[top]);
+                    if (isStopped()) {
+                        depth--;
+                        continue;
+                    }
+                }
+                long rest = remainingValues[top];
+                if (rest == 0L) {
+                    depth--;
+                    returning = true;
+                    continue;
+                }
+                int symbolIndex = Long.numberOfTrailingZeros(rest);
+                remainingValues[top] = rest & (rest - 1);
+                checkpoints[top] = grid.checkpoint();
+                grid.insertValue(currentCell, symbolIndex);
+
+                if (logger.isDebugEnabled()) {
+                    logger.debug(
+                        Colors.INFO_COLOR +
+                        "Attempt #" +
+                        attempts +
+                        " at position (" +
+                        currentCell / width +
+                        "," +
+                        currentCell % width +
+                        ") with value " +
+                        Colors.HIGHLIGHT_COLOR +
+                        grid.getSymbolAt(symbolIndex) +
+                        Colors.RESET
+                    );
+                }
+                position = currentCell + 1;
+                break;
             }
-            logger.debug(
-                Colors.WARNING_COLOR +
-                "Rolling back from position (" +
-                row +
-                "," +
-                col +
-                ") | Value: " +
-                value +
-                Colors.RESET
-            );
-            currentCell.resetSymbol();
         }
-
-        return false;
     }
 }
@@ -1,18 +1,11 @@
 package solvers.backtrack;
 
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Map;
-import java.util.Set;
-import java.util.stream.Collectors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import solvers.Solver;
-import sudoku.Cell;
+import solvers.propagation.Propagator;
 import sudoku.Grid;
-import sudoku.Position;
-import sudoku.rule.Rule;
+import utils.BucketQueue;
 import utils.Colors;
 
 /**
@@ -23,12 +16,25 @@ import utils.Colors;
  * <ul>
  *     <li>Minimum Remaining Values (MRV) heuristic to choose the most constrained cells first</li>
  *     <li>Forward checking to detect failures early</li>
- *     <li>Hidden singles propagation</li>
- *     <li>Caching of possible values for cells</li>
+ *     <li>Naked singles propagation</li>
+ *     <li>A configurable {@link Propagator pipeline} of human techniques run to a fixpoint after every move</li>
+ *     <li>Trail based backtracking: every move is undone through the trail of the grid</li>
+ *     <li>Conflict-directed backjumping: a failure that does not depend on the last decisions jumps
+ *     straight back to the deepest decision it depends on</li>
+ *     <li>Nogood learning: the decisions behind a dead end are remembered in a bounded store, so the
+ *     same combination is refused as soon as it comes back</li>
  * </ul>
  * <p>
- * The solver maintains a cache of possible values for each cell to avoid repeated calculations
- * and implements constraint propagation through forward checking and hidden singles detection.
+ * Candidates are read from the bitmask domains maintained by the grid, and constraint propagation
+ * is done through forward checking and naked singles detection. The empty cells are kept in the
+ * {@link Grid#getDomainQueue() domain queue} of the grid, bucketed by the size of their domain, so
+ * choosing the next cell and checking for wipeouts do not scan the grid. A value that failed at a cell is
+ * eliminated from its domain until the previous decision is undone.
+ * <p>
+ * The reasons of the values and eliminations are recorded by a {@link ConflictAnalyzer}. When every
+ * value of a cell failed, the conflict set of the dead end is the union of the decisions that emptied
+ * its domain; the search returns to the deepest of them without trying the remaining values of the
+ * decisions in between, and the set is learned as a nogood if it is small enough.
  */
 public class BacktrackOptimized extends Solver {
 
@@ -36,17 +42,70 @@ public class BacktrackOptimized extends Solver {
         BacktrackOptimized.class
     );
 
-    private int attempts = 0;
-    private Map<Position, Set<String>> possibleValuesCache = new HashMap<>();
+    /**
+     * Number of nogoods kept by default.
+     */
+    public static final int DEFAULT_NOGOOD_CAPACITY = 4096;
 
     /**
-     * Constructs a new {@code BacktrackOptimized} solver for the given Sudoku grid.
+     * Number of decisions of the largest nogood learned.
+     */
+    private static final int MAX_NOGOOD_SIZE = 16;
+
+    private int attempts;
+    private BucketQueue queue;
+    private final Propagator propagator;
+    private final int nogoodCapacity;
+    private ConflictAnalyzer analyzer;
+    private NogoodStore nogoods;
+    private int[] decisionCells;
+    private int[] decisionValues;
+    private long[] remainingValues;
+    private int[] levelCheckpoints;
+    private int[] levelLimits;
+    private int[] levelFound;
+    private int[] propagationCells;
+    private int[] propagationPeers;
+    private final int[] nogoodCells = new int[MAX_NOGOOD_SIZE];
+    private final int[] nogoodValues = new int[MAX_NOGOOD_SIZE];
+    private int solutions;
+    private long backjumps;
+
+    /**
+     * Constructs a new {@code BacktrackOptimized} solver for the given Sudoku grid, with the
+     * {@link Propagator#configured() configured} propagation pipeline.
      *
      * @param grid The Sudoku grid to be solved.
      * @see Solver#Solver(Grid)
      */
     public BacktrackOptimized(Grid grid) {
+        this(grid, Propagator.configured());
+    }
+
+    /**
+     * Constructs a new {@code BacktrackOptimized} solver for the given Sudoku grid.
+     *
+     * @param grid       The Sudoku grid to be solved.
+     * @param propagator The techniques run after every move.
+     */
+    public BacktrackOptimized(Grid grid, Propagator propagator) {
+        this(grid, propagator, DEFAULT_NOGOOD_CAPACITY);
+    }
+
+    /**
+     * Constructs a new {@code BacktrackOptimized} solver for the given Sudoku grid.
+     *
+     * @param grid           The Sudoku grid to be solved.
+     * @param propagator     The techniques run after every move.
+     * @param nogoodCapacity The number of learned nogoods kept, 0 to disable learning.
+     */
+    public BacktrackOptimized(Grid grid, Propagator propagator, int nogoodCapacity) {
         super(grid);
+        if (nogoodCapacity < 0) {
+            throw new IllegalArgumentException("[BacktrackOptimized] Nogood capacity must not be negative");
+        }
+        this.propagator = propagator;
+        this.nogoodCapacity = nogoodCapacity;
         logger.info(
             Colors.GREEN +
             "Starting BacktrackOptimized solver..." +
@@ -57,434 +116,473 @@ public class BacktrackOptimized extends Solver {
     /**
      * Solves the Sudoku puzzle using optimized backtracking with the MRV heuristic.
      * <p>
-     * This method clears the {@code lastInserts} and {@code historyInserts} lists before initiating
-     * the backtracking process using the Minimum Remaining Values (MRV) heuristic.
+     * This method resets the trail of the grid before initiating the backtracking process using the
+     * Minimum Remaining Values (MRV) heuristic. If no solution exists, the grid is restored.
      */
     @Override
     public void solve() {
-        this.lastInserts.clear();
-        this.historyInserts.clear();
-        backtrackMinimumRemainingValues();
+        grid.resetTrail();
+        attempts = 0;
+        startSearch();
+        if (search(1) == 0) {
+            grid.undoTo(0);
+        }
+        grid.resetTrail();
     }
 
+    /**
+     * Counts the solutions with the same search as {@link #solve()}, without stopping at the first
+     * one. The grid is restored through its trail afterwards.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
     @Override
-    public int getNumberOfSolutions() {
-        this.lastInserts.clear();
-        this.historyInserts.clear();
-        Set<Integer> solutions = new HashSet<>();
-        return solutions.size();
+    public int countSolutions(int limit) {
+        grid.resetTrail();
+        attempts = 0;
+        startSearch();
+        int found = search(limit);
+        grid.undoTo(0);
+        grid.resetTrail();
+        return found;
     }
 
     /**
-     * Performs the optimized backtracking algorithm using the Minimum Remaining Values (MRV) heuristic.
+     * Checks if the grid has a solution in which an empty cell takes another value than the given
+     * one, with a single search: the value is eliminated from the domain of the cell before the
+     * propagation of the grid, as a fact of level 0 like the givens. The domains kept up to date by
+     * the grid and the work areas of the solver are reused from one check to the next.
      *
-     * @return {@code true} if a solution is found, {@code false} otherwise.
+     * @param cellId the id of the empty cell
+     * @param value  the index of the symbol the cell must not take
+     * @return true if such a solution exists or the search stopped before knowing
      */
-    private boolean backtrackMinimumRemainingValues() {
-        attempts++;
-        logger.debug(Colors.INFO_COLOR + "Attempt #" + attempts + Colors.RESET);
-
-        Position nextPos = findMostConstrainedCell();
-        if (nextPos == null) {
-            logger.info(
-                Colors.SUCCESS_COLOR +
-                "Solution found after " +
-                attempts +
-                " attempts!" +
-                Colors.RESET
-            );
-            return true;
-        }
+    @Override
+    public boolean hasOtherSolution(int cellId, int value) {
+        grid.resetTrail();
+        attempts = 0;
+        startSearch();
+        grid.eliminate(cellId, 1L << value);
+        int found = search(1);
+        grid.undoTo(0);
+        grid.resetTrail();
+        return found > 0 || isStopped();
+    }
 
-        Set<String> possibleValues = getPossiblePlaysWithCache(nextPos);
-        logger.debug(
-            Colors.DEBUG_COLOR +
-            "-> Analyzing position " +
-            Colors.HIGHLIGHT_COLOR +
-            nextPos +
-            Colors.DEBUG_COLOR +
-            " | Possible values: " +
-            Colors.HIGHLIGHT_COLOR +
-            possibleValues +
-            Colors.RESET
-        );
+    /**
+     * Propagates the initial grid, then starts the backtracking.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    private int search(int limit) {
+        queue = grid.getDomainQueue();
+        if (analyzer == null || !analyzer.fits(grid)) {
+            analyzer = new ConflictAnalyzer(grid);
+            int levels = grid.getCellCount() + 2;
+            decisionCells = new int[levels];
+            decisionValues = new int[levels];
+            remainingValues = new long[levels];
+            levelCheckpoints = new int[levels];
+            levelLimits = new int[levels];
+            levelFound = new int[levels];
+            propagationCells = new int[grid.getCellCount() + 1];
+            propagationPeers = new int[grid.getCellCount() + 1];
+            nogoods = nogoodCapacity > 0 ? new NogoodStore(grid, nogoodCapacity, MAX_NOGOOD_SIZE) : null;
+        } else {
+            analyzer.reset();
+            if (nogoods != null) {
+                nogoods.clear();
+            }
+        }
+        solutions = 0;
+        backjumps = 0;
+        // Deductions made before the first decision belong to level 0 and need no reason
+        return propagator.propagate(grid) ? backtrackMinimumRemainingValues(limit) : 0;
+    }
 
-        for (String value : possibleValues) {
-            logger.debug(
-                Colors.INFO_COLOR +
-                "--> Trying value " +
-                Colors.HIGHLIGHT_COLOR +
-                value +
-                Colors.INFO_COLOR +
-                " at position " +
-                Colors.HIGHLIGHT_COLOR +
-                nextPos +
-                Colors.INFO_COLOR +
-                " (Attempt #" +
-                attempts +
-                ")" +
-                Colors.RESET
-            );
+    /**
+     * Runs the propagation pipeline and records its deductions as depending on every decision up
+     * to the current one.
+     *
+     * @param level The level of the current decision.
+     * @return {@code false} if a contradiction was found.
+     */
+    private boolean propagate(int level) {
+        int checkpoint = grid.checkpoint();
+        boolean consistent = propagator.propagate(grid);
+        analyzer.explainPropagation(checkpoint, level);
+        return consistent;
+    }
 
-            insertSymbol(value, nextPos);
-            invalidateCache(nextPos);
+    /**
+     * Learns the conflict set of a dead end as a nogood: the values of its decisions cannot hold
+     * together. Nothing is learned once a solution was counted, since the values eliminated after it
+     * only hold in the current branch.
+     */
+    private void learnNogood() {
+        if (nogoods == null || solutions > 0) {
+            return;
+        }
+        int size = analyzer.getConflictSize();
+        if (size == 0 || size > MAX_NOGOOD_SIZE) {
+            return;
+        }
+        int k = 0;
+        for (int level = analyzer.nextConflictLevel(1); level > 0; level = analyzer.nextConflictLevel(level + 1)) {
+            nogoodCells[k] = decisionCells[level];
+            nogoodValues[k] = decisionValues[level];
+            k++;
+        }
+        nogoods.learn(nogoodCells, nogoodValues, size);
+    }
 
-            if (validateAndPropagate(nextPos)) {
-                logger.debug(
-                    Colors.SUCCESS_COLOR +
-                    "Valid insertion: " +
-                    value +
-                    " at " +
-                    nextPos +
-                    Colors.RESET
-                );
-                if (backtrackMinimumRemainingValues()) {
-                    return true;
-                }
-            } else {
-                logger.debug(
-                    Colors.WARNING_COLOR +
-                    "Invalid insertion: " +
-                    value +
-                    " at " +
-                    nextPos +
-                    " | Constraint violation detected" +
-                    Colors.RESET
-                );
-            }
+    /**
+     * Gets the number of times the last search jumped back over at least one decision.
+     */
+    public long getBackjumps() {
+        return backjumps;
+    }
 
-            // Rollback
-            logger.debug(
-                Colors.WARNING_COLOR +
-                "Rolling back from position " +
-                nextPos +
-                " | Value: " +
-                value +
-                Colors.RESET
-            );
-            while (
-                lastInserts.size() > 0 &&
-                !lastInserts.get(lastInserts.size() - 1).equals(nextPos)
-            ) {
-                rollBack();
-            }
-            if (!lastInserts.isEmpty()) {
-                rollBack();
-            }
-        }
-        logger.debug(
-            Colors.ERROR_COLOR +
-            "Dead end at " +
-            nextPos +
-            " | No valid values remain" +
-            Colors.RESET
-        );
-        return false;
+    /**
+     * Gets the number of nogoods learned by the last search.
+     */
+    public long getLearnedNogoods() {
+        return nogoods == null ? 0 : nogoods.getLearned();
     }
 
     /**
-     * Finds the most constrained cell in the grid using the MRV heuristic.
+     * Performs the optimized backtracking algorithm using the Minimum Remaining Values (MRV) heuristic.
      * <p>
-     * Chooses cells with the fewest possible valid values. In case of ties, it selects
-     * cells that are part of more constraints (rules).
+     * The search is driven by an explicit stack of decision levels instead of the call stack, so its
+     * depth is only bounded by the number of cells. Each level holds its cell, the values it has not
+     * tried yet, the checkpoint of the trail before its current value and the solutions found below
+     * it. Once {@code limit} solutions are found, the search returns without undoing the last one.
+     * When a level fails and its conflict set does not contain the level above, that level fails at
+     * once as well: the search jumps back to the deepest decision the failure depends on.
      *
-     * @return Position of the most constrained cell, or {@code null} if no empty cells remain.
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
      */
-    private Position findMostConstrainedCell() {
-        Position mostConstrainedPos = null;
-        int minPossibilities = Integer.MAX_VALUE;
-
-        Position size = grid.getSize();
-        for (int y = 0; y < size.getY(); y++) {
-            for (int x = 0; x < size.getX(); x++) {
-                Position currentPos = new Position(x, y);
-                Cell currentCell = grid.getCell(currentPos);
-
-                // Skip filled or invalid cells
-                if (currentCell == null || currentCell.getSymbol() != null) {
+    private int backtrackMinimumRemainingValues(int limit) {
+        int level = 1;
+        levelLimits[level] = limit;
+        boolean finished = enterLevel(level);
+        while (true) {
+            if (!finished) {
+                if (nextValue(level)) {
+                    // The value holds: go down one level
+                    levelLimits[level + 1] = levelLimits[level] - levelFound[level];
+                    level++;
+                    finished = enterLevel(level);
                     continue;
                 }
-
-                Set<String> possibilities = getPossiblePlaysWithCache(
-                    currentPos
-                );
-                int numPossibilities = possibilities.size();
-
-                if (numPossibilities == 0) {
-                    logger.debug(
-                        "Found cell with no possibilities at " + currentPos
-                    );
-                    return currentPos;
-                }
-
-                // Update most constrained cell if this one has fewer possibilities
-                if (numPossibilities < minPossibilities) {
-                    minPossibilities = numPossibilities;
-                    mostConstrainedPos = currentPos;
-                    logger.debug(
-                        "New most constrained cell found at " +
-                        currentPos +
-                        " with " +
-                        numPossibilities +
-                        " possibilities"
-                    );
-                } else if (numPossibilities == minPossibilities) {
-                    // Break ties by choosing the cell with more constraints (rules)
-                    if (
-                        currentCell.getIdRules().size() >
-                        grid.getCell(mostConstrainedPos).getIdRules().size()
-                    ) {
-                        mostConstrainedPos = currentPos;
-                    }
-                }
             }
+            int childFound = levelFound[level];
+            level--;
+            if (level == 0) {
+                return childFound;
+            }
+            levelFound[level] += childFound;
+            finished = levelFound[level] >= levelLimits[level] || afterValue(level, childFound);
         }
-
-        return mostConstrainedPos;
     }
 
     /**
-     * Validates the current move and propagates constraints to related cells.
-     * <p>
-     * Implements a three-level constraint checking system:
-     * <ol>
-     *     <li>Forward checking</li>
-     *     <li>Naked pairs elimination (currently disabled)</li>
-     *     <li>Hidden singles propagation</li>
-     * </ol>
+     * Starts a new decision level on the most constrained cell.
      *
-     * @param currentPos The position of the current move to validate.
-     * @return {@code true} if the move is valid and constraint propagation succeeds, {@code false} otherwise.
+     * @param level The level of the decision.
+     * @return {@code true} if the level ends at once, its result being stored in {@link #levelFound}.
      */
-    private boolean validateAndPropagate(Position currentPos) {
-        // First level: Forward check the current position
-        if (!isForwardCheckValid(currentPos)) {
-            logger.debug(
-                Colors.ERROR_COLOR +
-                "Forward check failed at " +
-                currentPos +
-                " | Causes domain wipeout in neighboring cells" +
-                Colors.RESET
-            );
-            return false;
+    private boolean enterLevel(int level) {
+        attempts++;
+        if (logger.isDebugEnabled()) {
+            logger.debug(Colors.INFO_COLOR + "Attempt #{}" + Colors.RESET, attempts);
+        }
+        levelFound[level] = 0;
+        if (shouldStop()) {
+            return true;
         }
 
-        // Second level: Apply naked pairs elimination (not efficient for small grids)
-        // for (int idRule : grid.getCell(currentPos).getIdRules()) {
-        //     Rule rule = grid.getRule(idRule);
-        //     eliminateNakedPairs(rule);
-        // }
+        int nextCell = findMostConstrainedCell();
+        if (nextCell < 0) {
+            if (logger.isInfoEnabled()) {
+                logger.info(
+                    Colors.SUCCESS_COLOR + "Solution found after {} attempts!" + Colors.RESET,
+                    attempts
+                );
+            }
+            solutions++;
+            levelFound[level] = 1;
+            return true;
+        }
 
-        // Third level: Find hidden singles
-        Set<Position> hiddenSinglesPositions = findHiddenSingles(currentPos);
-        if (!hiddenSinglesPositions.isEmpty()) {
+        long possibleValues = getCandidates(nextCell);
+        decisionCells[level] = nextCell;
+        remainingValues[level] = possibleValues;
+        if (logger.isDebugEnabled()) {
             logger.debug(
-                Colors.INFO_COLOR +
-                "! Found " +
-                hiddenSinglesPositions.size() +
-                " hidden singles to propagate from " +
-                currentPos +
-                Colors.RESET
+                Colors.DEBUG_COLOR +
+                "-> Analyzing cell " +
+                Colors.HIGHLIGHT_COLOR +
+                "{}" +
+                Colors.DEBUG_COLOR +
+                " | Possible values: " +
+                Colors.HIGHLIGHT_COLOR +
+                "{}" +
+                Colors.RESET,
+                nextCell,
+                Long.bitCount(possibleValues)
             );
         }
+        return false;
+    }
 
-        // Process hidden singles
-        for (Position pos : hiddenSinglesPositions) {
-            Set<String> possibleValues = getPossiblePlaysWithCache(pos);
-            if (possibleValues.size() != 1) {
-                continue;
+    /**
+     * Tries the remaining values of a level until one holds.
+     *
+     * @param level The level of the decision.
+     * @return {@code true} if a value holds and the search must go down, {@code false} if the level
+     *         ended, its result being stored in {@link #levelFound}.
+     */
+    private boolean nextValue(int level) {
+        int nextCell = decisionCells[level];
+        while (remainingValues[level] != 0L) {
+            long rest = remainingValues[level];
+            int value = Long.numberOfTrailingZeros(rest);
+            remainingValues[level] = rest & (rest - 1);
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    Colors.INFO_COLOR +
+                    "--> Trying value " +
+                    Colors.HIGHLIGHT_COLOR +
+                    "{}" +
+                    Colors.INFO_COLOR +
+                    " at cell " +
+                    Colors.HIGHLIGHT_COLOR +
+                    "{}" +
+                    Colors.INFO_COLOR +
+                    " (Attempt #{})" +
+                    Colors.RESET,
+                    value,
+                    nextCell,
+                    attempts
+                );
             }
 
-            String value = possibleValues.iterator().next();
-            insertSymbol(value, pos);
-            invalidateCache(pos);
-
-            // Validate the new insertion
-            if (!validateAndPropagate(pos)) {
+            decisionValues[level] = value;
+            levelCheckpoints[level] = grid.checkpoint();
+            if (tryValue(nextCell, value, level)) {
+                return true;
+            }
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    Colors.WARNING_COLOR +
+                    "Invalid insertion: {} at {} | Constraint violation detected" +
+                    Colors.RESET,
+                    value,
+                    nextCell
+                );
+            }
+            if (afterValue(level, 0)) {
                 return false;
             }
         }
-
-        return true;
+        analyzer.analyzeWipeout(nextCell);
+        learnNogood();
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                Colors.ERROR_COLOR +
+                "Dead end at {} | No valid values remain" +
+                Colors.RESET,
+                nextCell
+            );
+        }
+        return false;
     }
 
-    /* Techniques */
-
     /**
-     * Finds hidden singles related to the given position.
-     * <p>
-     * When a new position is updated in the grid, this method checks if affected cells have only one
-     * possible value left, which indicates a hidden single.
+     * Undoes the current value of a level once it was refused or explored, and records why.
      *
-     * @param currentPos The position to find hidden singles related to.
-     * @return A set of positions containing hidden singles.
+     * @param level      The level of the decision.
+     * @param childFound The number of solutions found with the value.
+     * @return {@code true} if the level ends, because the search was stopped or because the failure
+     *         does not depend on this decision.
      */
-    private Set<Position> findHiddenSingles(Position currentPos) {
-        Set<Position> hiddenSinglesPositions = new HashSet<>();
-
-        for (int idRule : grid.getCell(currentPos).getIdRules()) {
-            Rule rule = grid.getRule(idRule);
-            for (Position pos : rule.getRulePositions()) {
-                if (!pos.equals(currentPos)) {
-                    Cell cell = grid.getCell(pos);
-                    if (cell.getSymbol() != null) {
-                        continue;
-                    }
-                    Set<String> possibleValues = getPossiblePlaysWithCache(pos);
-                    if (possibleValues.size() == 1) {
-                        hiddenSinglesPositions.add(pos);
-                    }
-                }
+    private boolean afterValue(int level, int childFound) {
+        int nextCell = decisionCells[level];
+        int value = decisionValues[level];
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                Colors.WARNING_COLOR +
+                "Rolling back from cell {} | Value: {}" +
+                Colors.RESET,
+                nextCell,
+                value
+            );
+        }
+        grid.undoTo(levelCheckpoints[level]);
+        if (isStopped()) {
+            return true;
+        }
+        if (childFound > 0) {
+            analyzer.explainExplored(nextCell, value, level);
+        } else if (!analyzer.conflictContains(level)) {
+            // The failure does not depend on this decision: jump back over it
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    Colors.WARNING_COLOR +
+                    "Backjumping from level {} to level {}" +
+                    Colors.RESET,
+                    level,
+                    analyzer.getConflictLevel()
+                );
             }
+            backjumps++;
+            return true;
+        } else {
+            analyzer.explainFailure(nextCell, value, level);
         }
-
-        return hiddenSinglesPositions;
+        grid.eliminate(nextCell, 1L << value);
+        return false;
     }
 
     /**
-     * Checks if forward checking is valid for a given position.
-     * <p>
-     * When a new position is updated in the grid, this method checks if any affected cells are left with no possible
-     * values. If so, the forward check fails, indicating an invalid state.
+     * Inserts a value as the decision of a level and propagates it. When the value is refused, the
+     * conflict set of the failure is left in the analyzer.
      *
-     * @param currentPos The position to check forward check validity for.
-     * @return {@code true} if forward check is valid, {@code false} otherwise.
+     * @param cellId The cell of the decision.
+     * @param value  The value tried.
+     * @param level  The level of the decision.
+     * @return {@code true} if the propagation succeeded.
      */
-    private boolean isForwardCheckValid(Position currentPos) {
-        for (int idRule : grid.getCell(currentPos).getIdRules()) {
-            Rule rule = grid.getRule(idRule);
-            for (Position pos : rule.getRulePositions()) {
-                if (!pos.equals(currentPos)) {
-                    Cell cell = grid.getCell(pos);
-                    if (cell.getSymbol() != null) {
-                        continue;
-                    }
-                    Set<String> possibleValuesOtherCells =
-                        getPossiblePlaysWithCache(pos);
-                    if (possibleValuesOtherCells.isEmpty()) {
-                        return false;
-                    }
-                }
+    private boolean tryValue(int cellId, int value, int level) {
+        if (nogoods != null) {
+            int nogood = nogoods.findViolated(grid, cellId, value);
+            if (nogood >= 0) {
+                analyzer.analyzeNogood(nogoods, nogood, cellId, level);
+                return false;
             }
         }
-        return true;
+        analyzer.decide(cellId, level);
+        grid.insertValue(cellId, value);
+        if (validateAndPropagate(cellId) && propagate(level)) {
+            return true;
+        }
+        analyzer.analyzeContradiction(queue, level);
+        return false;
     }
 
     /**
-     * Eliminates naked pairs within a given rule.
+     * Finds the most constrained cell in the grid using the MRV heuristic.
      * <p>
-     * This method identifies pairs of cells within a rule that have the same two possible values.
+     * Chooses a cell with the fewest possible valid values, read in constant time from the domain
+     * queue of the grid.
      *
-     * @param rule The rule to apply naked pairs elimination to.
-     * @deprecated Naked pairs elimination is currently disabled as it is not efficient for small grids.
+     * @return Id of the most constrained cell, or {@code -1} if no empty cells remain.
      */
-    @Deprecated
-    private void eliminateNakedPairs(Rule rule) {
-        List<Position> unfilledPositions = rule
-            .getRulePositions()
-            .stream()
-            .filter(pos -> grid.getCell(pos).getSymbol() == null)
-            .collect(Collectors.toList());
-
-        for (int i = 0; i < unfilledPositions.size(); i++) {
-            for (int j = i + 1; j < unfilledPositions.size(); j++) {
-                Position pos1 = unfilledPositions.get(i);
-                Position pos2 = unfilledPositions.get(j);
-
-                Set<String> values1 = getPossiblePlaysWithCache(pos1);
-                Set<String> values2 = getPossiblePlaysWithCache(pos2);
-
-                if (values1.equals(values2) && values1.size() == 2) {
-                    // Remove these values from other cells in the same rule
-                    for (Position pos : unfilledPositions) {
-                        if (!pos.equals(pos1) && !pos.equals(pos2)) {
-                            // Get the cached possible values and modify them
-                            Set<String> possibleValues =
-                                getPossiblePlaysWithCache(pos);
-                            possibleValues.removeAll(values1);
-                            // Update the cache
-                            possibleValuesCache.put(pos, possibleValues);
-                        }
-                    }
-                }
-            }
-        }
+    private int findMostConstrainedCell() {
+        return queue.peekMin();
     }
 
     /**
-     * Rolls back the last move made on the grid and updates the history.
+     * Validates the current move and propagates constraints to related cells.
      * <p>
-     * Invalidates the cache for the position that was rolled back and all related positions.
+     * Implements a two-level constraint checking system:
+     * <ol>
+     *     <li>Forward checking</li>
+     *     <li>Naked singles propagation</li>
+     * </ol>
+     * Hidden singles, naked pairs and the other human techniques are run afterwards by the
+     * propagation pipeline. Insertions made by the propagation are recorded on the trail of the grid,
+     * so the caller undoes them along with the move.
+     *
+     * @param currentCell The id of the cell of the current move to validate.
+     * @return {@code true} if the move is valid and constraint propagation succeeds, {@code false} otherwise.
      */
-    @Override
-    protected void rollBack() {
-        if (this.lastInserts.isEmpty()) {
-            return;
+    private boolean validateAndPropagate(int currentCell) {
+        // First level: Forward check the current position
+        if (!hasNoEmptyDomain()) {
+            if (logger.isDebugEnabled()) {
+                logger.debug(
+                    Colors.ERROR_COLOR +
+                    "Forward check failed at {} | Causes domain wipeout in neighboring cells" +
+                    Colors.RESET,
+                    currentCell
+                );
+            }
+            return false;
         }
 
-        Position lastMovePosition = this.lastInserts.removeLast();
-        String lastSymbolInserted = this.grid.getSymbol(lastMovePosition);
-        this.grid.resetSymbol(lastMovePosition);
-        invalidateCache(lastMovePosition);
+        // Second level: Find and process naked singles among the peers, the cells inserted being
+        // kept on a stack with the index of the next peer to check
+        int depth = 0;
+        propagationCells[0] = currentCell;
+        propagationPeers[0] = 0;
+        while (depth >= 0) {
+            int cellId = propagationCells[depth];
+            int k = propagationPeers[depth];
+            if (k == grid.getNumberOfPeers(cellId)) {
+                depth--;
+                continue;
+            }
+            propagationPeers[depth] = k + 1;
+            int peer = grid.getPeer(cellId, k);
+            if (!isNakedSingle(peer)) {
+                continue;
+            }
+
+            int value = Long.numberOfTrailingZeros(getCandidates(peer));
+            analyzer.explainSingle(peer, value);
+            grid.insertValue(peer, value);
 
-        if (!this.historyInserts.containsKey(this.grid)) {
-            this.historyInserts.put(this.grid, new HashMap<>());
-        }
-        if (!this.historyInserts.get(this.grid).containsKey(lastMovePosition)) {
-            this.historyInserts.get(this.grid).put(
-                    lastMovePosition,
-                    new HashSet<>()
-                );
+            // Validate the new insertion
+            if (!hasNoEmptyDomain()) {
+                if (logger.isDebugEnabled()) {
+                    logger.debug(
+                        Colors.ERROR_COLOR +
+                        "Forward check failed at {} | Causes domain wipeout in neighboring cells" +
+                        Colors.RESET,
+                        peer
+                    );
+                }
+                return false;
+            }
+            depth++;
+            propagationCells[depth] = peer;
+            propagationPeers[depth] = 0;
         }
-        this.historyInserts.get(this.grid)
-            .get(lastMovePosition)
-            .add(lastSymbolInserted);
+
+        return true;
     }
 
-    /* Helper methods */
+    /* Techniques */
 
     /**
-     * Retrieves the possible values for a given position, using the cache if available.
+     * Checks if a cell is a naked single.
      * <p>
-     * If the possible values for the position are not found in the cache, they are calculated using
-     * {@link #getPossiblePlays(Position)} and then stored in the cache for future use.
+     * When a new position is updated in the grid, its peers are checked to see if they have only one
+     * possible value left, which indicates a naked single.
      *
-     * @param pos The position to retrieve possible values for.
-     * @return The set of possible values for the given position.
-     * @see #getPossiblePlays(Position)
+     * @param cellId The id of the cell to check.
+     * @return {@code true} if the cell is empty and has exactly one possible value.
      */
-    private Set<String> getPossiblePlaysWithCache(Position pos) {
-        return possibleValuesCache.computeIfAbsent(pos, this::getPossiblePlays);
+    private boolean isNakedSingle(int cellId) {
+        // Filled cells are not in the queue and have a key of -1
+        return queue.getKey(cellId) == 1;
     }
 
     /**
-     * Invalidates the cache for a given position and all related positions.
+     * Checks that no empty cell of the grid is left without possible values, which the domain queue
+     * tells in constant time.
      * <p>
-     * This method removes the cached possible values for the specified position and all other positions
-     * that are in the same rules as the given position. This ensures that the cache is consistent
-     * with the current state of the Sudoku grid after a change.
+     * This is the forward check of a move: only the peers of the cell updated last changed since the
+     * previous check, so a wipeout can only be among them.
      *
-     * @param pos The position to invalidate the cache for.
+     * @return {@code true} if every empty cell has a possible value, {@code false} otherwise.
      */
-    private void invalidateCache(Position pos) {
-        possibleValuesCache.remove(pos);
-        Set<Position> invalidatedPositions = new HashSet<>();
-
-        for (int idRule : grid.getCell(pos).getIdRules()) {
-            Rule rule = grid.getRule(idRule);
-            invalidatedPositions.addAll(rule.getRulePositions());
-        }
-
-        invalidatedPositions.forEach(p -> possibleValuesCache.remove(p));
-
-        logger.debug(
-            Colors.DEBUG_COLOR +
-            "Cache invalidated for position " +
-            pos +
-            " and " +
-            (invalidatedPositions.size() - 1) +
-            " related positions" +
-            Colors.RESET
-        );
+    private boolean hasNoEmptyDomain() {
+        return queue.getBucketSize(0) == 0;
     }
 }
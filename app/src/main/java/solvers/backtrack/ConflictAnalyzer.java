@@ -0,0 +1,433 @@
+package solvers.backtrack;
+
+import java.util.Arrays;
+import sudoku.Grid;
+import utils.BucketQueue;
+
+/**
+ * Records why every value and elimination of the grid holds during a search, so that a failure can
+ * be traced back to the decisions that caused it.
+ * <p>
+ * The reason of a fact is the set of the decision levels it depends on, stored as a bitset with one
+ * bit per level, level 0 holding the givens and everything deduced before the first decision. A
+ * decision depends on its own level, a naked single on the facts that emptied the rest of its
+ * domain, and a value that failed at a cell on the decisions the failure depended on.
+ * <p>
+ * The techniques of the propagation pipeline do not explain their deductions. Each value they
+ * insert is explained afterwards, in the order of the trail and only from the facts recorded before
+ * it, as a naked single or as a hidden single of one of its rules. The values that cannot be
+ * explained this way and the eliminations of the pipeline depend on every level up to the one they
+ * were made at.
+ * <p>
+ * The conflict set of a failure is the union of the reasons of the facts that emptied the domain of
+ * a cell. When it does not contain the level of the current decision, the failure does not depend on
+ * it and the search can jump straight back to the deepest level of the set.
+ */
+class ConflictAnalyzer {
+
+    private final Grid grid;
+    private final int symbolCount;
+    private final int words;
+    private final long[] valueReasons;
+    private final int[] valueLevels;
+    private final long[] eliminationReasons;
+    private final int[] valueIndexes;
+    private final int[] eliminationIndexes;
+    private final long[] conflict;
+    private final long[] scratch;
+    private final int[] holders = new int[Grid.MAX_SYMBOLS];
+
+    /**
+     * Constructs an analyzer for the current topology of a grid.
+     *
+     * @param grid the grid searched
+     */
+    ConflictAnalyzer(Grid grid) {
+        this.grid = grid;
+        int cellCount = grid.getCellCount();
+        this.symbolCount = grid.getAlphabetSize();
+        // There are at most as many decision levels as cells
+        this.words = (cellCount + 1 + 63) / 64;
+        this.valueReasons = new long[cellCount * words];
+        this.valueLevels = new int[cellCount];
+        this.eliminationReasons = new long[cellCount * symbolCount * words];
+        this.valueIndexes = new int[cellCount];
+        this.eliminationIndexes = new int[cellCount * symbolCount];
+        this.conflict = new long[words];
+        this.scratch = new long[words];
+        this.reset();
+    }
+
+    /**
+     * Checks if the analyzer was built for the topology of a grid.
+     *
+     * @param grid the grid
+     * @return true if the analyzer can be used on the grid
+     */
+    boolean fits(Grid grid) {
+        return grid == this.grid
+                && valueLevels.length == grid.getCellCount()
+                && symbolCount == grid.getAlphabetSize();
+    }
+
+    /**
+     * Forgets every reason, the facts of the grid becoming part of level 0.
+     */
+    void reset() {
+        Arrays.fill(valueReasons, 0L);
+        Arrays.fill(valueLevels, 0);
+        Arrays.fill(eliminationReasons, 0L);
+        Arrays.fill(valueIndexes, -1);
+        Arrays.fill(eliminationIndexes, -1);
+        Arrays.fill(conflict, 0L);
+    }
+
+    /**
+     * Records a decision, before its value is inserted.
+     *
+     * @param cellId the cell filled by the decision
+     * @param level  the level of the decision
+     */
+    void decide(int cellId, int level) {
+        valueIndexes[cellId] = grid.checkpoint();
+        int offset = cellId * words;
+        Arrays.fill(valueReasons, offset, offset + words, 0L);
+        valueReasons[offset + (level >>> 6)] = 1L << level;
+        valueLevels[cellId] = level;
+    }
+
+    /**
+     * Records the reason of a naked single before it is inserted: the reasons of the removal of every
+     * other symbol of the cell.
+     *
+     * @param cellId the cell about to be filled
+     * @param value  the only symbol left in its domain
+     */
+    void explainSingle(int cellId, int value) {
+        int before = grid.checkpoint();
+        valueIndexes[cellId] = before;
+        int offset = cellId * words;
+        Arrays.fill(valueReasons, offset, offset + words, 0L);
+        explainRemoved(cellId, alphabet(cellId) & ~(1L << value), before, valueReasons, offset);
+        valueLevels[cellId] = highestLevel(valueReasons, offset);
+    }
+
+    /**
+     * Records the deductions of the propagation pipeline from the entries of the trail since a
+     * checkpoint.
+     *
+     * @param from  the checkpoint taken before the propagation
+     * @param level the current level
+     */
+    void explainPropagation(int from, int level) {
+        int to = grid.checkpoint();
+        // The order of the facts first, an elimination being made by the last entry that adds it
+        for (int index = from; index < to; index++) {
+            int entry = grid.getTrailEntry(index);
+            if (entry >= 0) {
+                valueIndexes[entry] = index;
+            } else {
+                int cellId = ~entry;
+                long added = grid.getEliminated(cellId) & ~grid.getTrailMask(index);
+                for (long rest = added; rest != 0L; rest &= rest - 1) {
+                    int literal = cellId * symbolCount + Long.numberOfTrailingZeros(rest);
+                    eliminationIndexes[literal] = index;
+                    setLevelsUpTo(eliminationReasons, literal * words, level);
+                }
+            }
+        }
+        // Then the values, each one from the facts before it
+        for (int index = from; index < to; index++) {
+            int entry = grid.getTrailEntry(index);
+            if (entry >= 0) {
+                int offset = entry * words;
+                if (!explainNakedSingle(entry, index, offset) && !explainHiddenSingle(entry, index, offset)) {
+                    setLevelsUpTo(valueReasons, offset, level);
+                }
+                valueLevels[entry] = highestLevel(valueReasons, offset);
+            }
+        }
+    }
+
+    /**
+     * Explains a value inserted by the pipeline as a naked single: every other symbol of its cell
+     * was removed by a fact recorded before it.
+     *
+     * @param cellId the cell filled
+     * @param before the index of the insertion on the trail
+     * @param offset the index of the reason of the value
+     * @return true if the value was explained
+     */
+    private boolean explainNakedSingle(int cellId, int before, int offset) {
+        Arrays.fill(valueReasons, offset, offset + words, 0L);
+        long others = alphabet(cellId) & ~(1L << grid.getValue(cellId));
+        return explainRemoved(cellId, others, before, valueReasons, offset);
+    }
+
+    /**
+     * Explains a value inserted by the pipeline as a hidden single: in one of the rules that must
+     * contain every symbol, every other cell was filled or lost the symbol before it.
+     *
+     * @param cellId the cell filled
+     * @param before the index of the insertion on the trail
+     * @param offset the index of the reason of the value
+     * @return true if the value was explained
+     */
+    private boolean explainHiddenSingle(int cellId, int before, int offset) {
+        int value = grid.getValue(cellId);
+        long bit = 1L << value;
+        for (int r = 0; r < grid.getNumberOfRules(cellId); r++) {
+            int indexRule = grid.getRuleOf(cellId, r);
+            if (!grid.mustContainAllSymbols(indexRule)) {
+                continue;
+            }
+            Arrays.fill(scratch, 0L);
+            boolean explained = true;
+            for (int k = 0; k < grid.getNumberOfCells(indexRule) && explained; k++) {
+                int other = grid.getCellOf(indexRule, k);
+                if (other == cellId) {
+                    continue;
+                }
+                if (grid.getValue(other) >= 0 && valueIndexes[other] < before) {
+                    or(scratch, 0, valueReasons, other * words);
+                } else {
+                    explained = (alphabet(other) & bit) == 0L
+                            || explainRemoved(other, bit, before, scratch, 0);
+                }
+            }
+            if (explained) {
+                System.arraycopy(scratch, 0, valueReasons, offset, words);
+                return true;
+            }
+        }
+        return false;
+    }
+    /**
+     * Records the reason of the elimination of a value that failed at a decision: the conflict set of
+     * the failure, without the level of the decision.
+     *
+     * @param cellId the cell of the decision
+     * @param value  the value that failed
+     * @param level  the level of the decision
+     */
+    void explainFailure(int cellId, int value, int level) {
+        eliminationIndexes[cellId * symbolCount + value] = grid.checkpoint();
+        int offset = (cellId * symbolCount + value) * words;
+        System.arraycopy(conflict, 0, eliminationReasons, offset, words);
+        eliminationReasons[offset + (level >>> 6)] &= ~(1L << level);
+    }
+
+    /**
+     * Records the reason of the elimination of a value whose solutions were all counted. It is not
+     * a logical consequence of the previous decisions, so it depends on all of them.
+     *
+     * @param cellId the cell of the decision
+     * @param value  the value explored
+     * @param level  the level of the decision
+     */
+    void explainExplored(int cellId, int value, int level) {
+        eliminationIndexes[cellId * symbolCount + value] = grid.checkpoint();
+        setLevelsUpTo(eliminationReasons, (cellId * symbolCount + value) * words, level - 1);
+    }
+
+    /**
+     * Sets the conflict set to the reasons of the removal of every symbol of a cell with an empty
+     * domain.
+     *
+     * @param cellId the cell
+     */
+    void analyzeWipeout(int cellId) {
+        Arrays.fill(conflict, 0L);
+        explainRemoved(cellId, alphabet(cellId) & ~grid.getDomain(cellId), Integer.MAX_VALUE, conflict, 0);
+    }
+
+    /**
+     * Sets the conflict set of a failed propagation. A wipeout is explained precisely, while a
+     * contradiction found by a technique depends on every level up to the current one.
+     *
+     * @param queue the domain queue of the grid
+     * @param level the current level
+     */
+    void analyzeContradiction(BucketQueue queue, int level) {
+        if (queue.getBucketSize(0) > 0) {
+            analyzeWipeout(queue.getFirst(0));
+        } else {
+            setLevelsUpTo(conflict, 0, level);
+        }
+    }
+
+    /**
+     * Sets the conflict set of a decision completing a learned nogood: its level and the reasons of
+     * the other values of the nogood.
+     *
+     * @param nogoods the store of the nogood
+     * @param id      the nogood
+     * @param cellId  the cell of the decision
+     * @param level   the level of the decision
+     */
+    void analyzeNogood(NogoodStore nogoods, int id, int cellId, int level) {
+        Arrays.fill(conflict, 0L);
+        conflict[level >>> 6] |= 1L << level;
+        for (int k = 0; k < nogoods.size(id); k++) {
+            if (nogoods.getCell(id, k) == cellId) {
+                continue;
+            }
+            or(conflict, 0, valueReasons, nogoods.getCell(id, k) * words);
+        }
+    }
+
+    /**
+     * Checks if the conflict set contains a level.
+     *
+     * @param level the level
+     * @return true if the last failure depends on the decision of the level
+     */
+    boolean conflictContains(int level) {
+        return (conflict[level >>> 6] & (1L << level)) != 0L;
+    }
+
+    /**
+     * Gets the deepest level of the conflict set, the level the search jumps back to.
+     *
+     * @return the level, or 0 if the failure only depends on the givens
+     */
+    int getConflictLevel() {
+        return highestLevel(conflict, 0);
+    }
+
+    /**
+     * Gets the number of decisions of the conflict set.
+     *
+     * @return the size of the conflict set
+     */
+    int getConflictSize() {
+        int size = 0;
+        for (long word : conflict) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * Gets the next level of the conflict set.
+     *
+     * @param from the first level to look at
+     * @return the smallest level of the conflict set greater than or equal to {@code from}, or -1
+     */
+    int nextConflictLevel(int from) {
+        int w = from >>> 6;
+        if (w >= words) {
+            return -1;
+        }
+        long word = conflict[w] & (-1L << from);
+        while (word == 0L) {
+            if (++w == words) {
+                return -1;
+            }
+            word = conflict[w];
+        }
+        return (w << 6) + Long.numberOfTrailingZeros(word);
+    }
+
+    /**
+     * Gets the symbols allowed in a cell by all of its rules.
+     *
+     * @param cellId the cell
+     * @return the mask of the symbols
+     */
+    private long alphabet(int cellId) {
+        long alphabet = -1L;
+        for (int k = 0; k < grid.getNumberOfRules(cellId); k++) {
+            alphabet &= grid.getRuleSymbolsMask(grid.getRuleOf(cellId, k));
+        }
+        return alphabet;
+    }
+
+    /**
+     * Adds the reasons of the removal of symbols from a cell to a bitset, using only the facts
+     * recorded on the trail before an index. A symbol is removed either because a peer holds it, the
+     * peer holding it at the lowest level being chosen, or because it was eliminated.
+     *
+     * @param cellId  the cell
+     * @param removed the symbols to explain
+     * @param before  the index of the trail the facts must precede
+     * @param target  the array holding the bitset
+     * @param offset  the index of the bitset in the array
+     * @return true if every symbol was explained
+     */
+    private boolean explainRemoved(int cellId, long removed, int before, long[] target, int offset) {
+        for (long rest = removed; rest != 0L; rest &= rest - 1) {
+            holders[Long.numberOfTrailingZeros(rest)] = -1;
+        }
+        for (int k = 0; k < grid.getNumberOfPeers(cellId); k++) {
+            int peer = grid.getPeer(cellId, k);
+            int value = grid.getValue(peer);
+            if (value >= 0 && (removed & (1L << value)) != 0L && valueIndexes[peer] < before
+                    && (holders[value] < 0 || valueLevels[peer] < valueLevels[holders[value]])) {
+                holders[value] = peer;
+            }
+        }
+        long eliminated = grid.getEliminated(cellId);
+        for (long rest = removed; rest != 0L; rest &= rest - 1) {
+            int value = Long.numberOfTrailingZeros(rest);
+            int literal = cellId * symbolCount + value;
+            if (holders[value] >= 0) {
+                or(target, offset, valueReasons, holders[value] * words);
+            } else if ((eliminated & (1L << value)) != 0L && eliminationIndexes[literal] < before) {
+                or(target, offset, eliminationReasons, literal * words);
+            } else {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Adds a bitset to another one.
+     */
+    private void or(long[] target, int targetOffset, long[] source, int sourceOffset) {
+        for (int w = 0; w < words; w++) {
+            target[targetOffset + w] |= source[sourceOffset + w];
+        }
+    }
+
+    /**
+     * Sets a bitset to the levels from 1 to the given one.
+     *
+     * @param target the array holding the bitset
+     * @param offset the index of the bitset in the array
+     * @param level  the last level of the set, 0 for an empty set
+     */
+    private void setLevelsUpTo(long[] target, int offset, int level) {
+        for (int w = 0; w < words; w++) {
+            int low = w << 6;
+            long word;
+            if (level < low) {
+                word = 0L;
+            } else if (level >= low + 63) {
+                word = -1L;
+            } else {
+                word = (1L << (level - low + 1)) - 1;
+            }
+            target[offset + w] = word;
+        }
+        // Level 0 is never a decision
+        target[offset] &= ~1L;
+    }
+
+    /**
+     * Gets the highest level of a bitset.
+     *
+     * @param source the array holding the bitset
+     * @param offset the index of the bitset in the array
+     * @return the highest level, or 0 if the bitset is empty
+     */
+    private int highestLevel(long[] source, int offset) {
+        for (int w = words - 1; w >= 0; w--) {
+            if (source[offset + w] != 0L) {
+                return (w << 6) + 63 - Long.numberOfLeadingZeros(source[offset + w]);
+            }
+        }
+        return 0;
+    }
+}
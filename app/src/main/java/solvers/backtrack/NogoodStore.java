@@ -0,0 +1,147 @@
+package solvers.backtrack;
+
+import java.util.Arrays;
+import sudoku.Grid;
+
+/**
+ * A bounded store of learned nogoods: sets of values, one per cell, that cannot hold together in a
+ * solution.
+ * <p>
+ * Nogoods are kept in a ring of fixed capacity, the oldest one being replaced by the newest. Each
+ * value of a nogood is watched: every (cell, symbol) pair keeps the last {@value #WATCHES} nogoods
+ * containing it, so checking a decision only looks at a few nogoods. Memory is fixed once the store
+ * is built.
+ */
+class NogoodStore {
+
+    /**
+     * Number of nogoods watched by each (cell, symbol) pair.
+     */
+    private static final int WATCHES = 4;
+
+    private final int capacity;
+    private final int maxSize;
+    private final int symbolCount;
+    private final int[] cells;
+    private final byte[] values;
+    private final int[] sizes;
+    private final int[] watches;
+    private final byte[] nextWatch;
+    private int next;
+    private long learned;
+
+    /**
+     * Constructs an empty store.
+     *
+     * @param grid     the grid searched
+     * @param capacity the number of nogoods kept
+     * @param maxSize  the number of values of the largest nogood kept
+     */
+    NogoodStore(Grid grid, int capacity, int maxSize) {
+        this.capacity = capacity;
+        this.maxSize = maxSize;
+        this.symbolCount = grid.getAlphabetSize();
+        this.cells = new int[capacity * maxSize];
+        this.values = new byte[capacity * maxSize];
+        this.sizes = new int[capacity];
+        this.watches = new int[grid.getCellCount() * symbolCount * WATCHES];
+        this.nextWatch = new byte[grid.getCellCount() * symbolCount];
+        this.clear();
+    }
+
+    /**
+     * Removes every nogood.
+     */
+    void clear() {
+        Arrays.fill(sizes, 0);
+        Arrays.fill(watches, -1);
+        Arrays.fill(nextWatch, (byte) 0);
+        next = 0;
+        learned = 0;
+    }
+
+    int getMaxSize() {
+        return maxSize;
+    }
+
+    /**
+     * Gets the number of nogoods learned since the store was cleared, including the ones replaced.
+     */
+    long getLearned() {
+        return learned;
+    }
+
+    int size(int id) {
+        return sizes[id];
+    }
+
+    int getCell(int id, int k) {
+        return cells[id * maxSize + k];
+    }
+
+    int getValue(int id, int k) {
+        return values[id * maxSize + k];
+    }
+
+    /**
+     * Adds a nogood, replacing the oldest one if the store is full.
+     *
+     * @param nogoodCells  the cells of the nogood
+     * @param nogoodValues the value of each cell
+     * @param size         the number of values, at most the maximal size of the store
+     */
+    void learn(int[] nogoodCells, int[] nogoodValues, int size) {
+        int id = next;
+        next = (next + 1) % capacity;
+        learned++;
+        sizes[id] = size;
+        for (int k = 0; k < size; k++) {
+            cells[id * maxSize + k] = nogoodCells[k];
+            values[id * maxSize + k] = (byte) nogoodValues[k];
+            int literal = nogoodCells[k] * symbolCount + nogoodValues[k];
+            watches[literal * WATCHES + nextWatch[literal]] = id;
+            nextWatch[literal] = (byte) ((nextWatch[literal] + 1) % WATCHES);
+        }
+    }
+
+    /**
+     * Looks for a nogood that inserting a value would complete: it contains the value and every other
+     * value of it is already in the grid.
+     *
+     * @param grid   the grid
+     * @param cellId the cell of the insertion
+     * @param value  the value inserted
+     * @return the id of the nogood, or -1 if there is none
+     */
+    int findViolated(Grid grid, int cellId, int value) {
+        int literal = cellId * symbolCount + value;
+        for (int w = 0; w < WATCHES; w++) {
+            int id = watches[literal * WATCHES + w];
+            if (id >= 0 && isViolatedBy(grid, id, cellId, value)) {
+                return id;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Checks if a nogood contains a value and every other value of it is in the grid. The watch may
+     * be stale, the nogood having been replaced since.
+     */
+    private boolean isViolatedBy(Grid grid, int id, int cellId, int value) {
+        boolean contains = false;
+        for (int k = 0; k < sizes[id]; k++) {
+            int cell = cells[id * maxSize + k];
+            int expected = values[id * maxSize + k];
+            if (cell == cellId) {
+                if (expected != value) {
+                    return false;
+                }
+                contains = true;
+            } else if (grid.getValue(cell) != expected) {
+                return false;
+            }
+        }
+        return contains;
+    }
+}
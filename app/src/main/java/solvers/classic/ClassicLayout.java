@@ -0,0 +1,173 @@
+package solvers.classic;
+
+import java.util.Arrays;
+import sudoku.Grid;
+import sudoku.Position;
+
+/**
+ * Recognizes the grids made of a single classic sudoku: N rows, N columns and N blocks tiling an
+ * N x N box, every rule holding the N symbols of the alphabet. The blocks are either the usual
+ * rectangles, in which case the layout is {@link #isRegular() regular}, or any other tiling by N
+ * cells, such as the regions of a jigsaw sudoku.
+ * <p>
+ * The layout maps every cell id to its row, column and block once, so the solver reads them from
+ * flat int arrays. It only depends on the topology of the grid, not on its values, and can be shared
+ * by every grid built the same way.
+ */
+public final class ClassicLayout {
+
+    /**
+     * Largest size handled, the symbols of a rule fitting in an int mask.
+     */
+    public static final int MAX_SIZE = Integer.SIZE;
+
+    private final int size;
+    private final int blockWidth;
+    private final int blockHeight;
+    private final int[] cellRows;
+    private final int[] cellColumns;
+    private final int[] cellBlocks;
+
+    private ClassicLayout(int size, int blockWidth, int blockHeight, int[] cellBlocks) {
+        this.size = size;
+        this.blockWidth = blockWidth;
+        this.blockHeight = blockHeight;
+        this.cellRows = new int[size * size];
+        this.cellColumns = new int[size * size];
+        this.cellBlocks = cellBlocks;
+        for (int cellId = 0; cellId < size * size; cellId++) {
+            this.cellRows[cellId] = cellId / size;
+            this.cellColumns[cellId] = cellId % size;
+        }
+    }
+
+    /**
+     * Checks if a grid is a single classic sudoku and computes its layout.
+     * <p>
+     * Every cell of the bounding box must exist, and the rules must be exactly the rows, the columns
+     * and a tiling of the grid by N blocks of N cells, none of them a single row or column. Grids
+     * with overlapping sudokus or partial alphabets are not recognized.
+     *
+     * @param grid the grid
+     * @return the layout, or null if the grid is not a classic sudoku
+     */
+    public static ClassicLayout recognize(Grid grid) {
+        Position bounds = grid.getSize();
+        int size = bounds.getX();
+        if (size != bounds.getY() || size < 4 || size > MAX_SIZE
+                || grid.getAlphabetSize() != size || grid.getCellCount() != size * size
+                || grid.getRules().size() != 3 * size) {
+            return null;
+        }
+        for (int cellId = 0; cellId < size * size; cellId++) {
+            if (grid.getValue(cellId) == Grid.NO_CELL) {
+                return null;
+            }
+        }
+
+        long allSymbols = (1L << size) - 1;
+        boolean[] rows = new boolean[size];
+        boolean[] columns = new boolean[size];
+        int[] cellBlocks = new int[size * size];
+        Arrays.fill(cellBlocks, -1);
+        int blocks = 0;
+        int blockWidth = 0;
+        int blockHeight = 0;
+        boolean regular = true;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (grid.getNumberOfCells(indexRule) != size || grid.getRuleSymbolsMask(indexRule) != allSymbols) {
+                return null;
+            }
+            int minX = size;
+            int minY = size;
+            int maxX = -1;
+            int maxY = -1;
+            for (int k = 0; k < size; k++) {
+                int cellId = grid.getCellOf(indexRule, k);
+                minX = Math.min(minX, cellId % size);
+                maxX = Math.max(maxX, cellId % size);
+                minY = Math.min(minY, cellId / size);
+                maxY = Math.max(maxY, cellId / size);
+            }
+            int width = maxX - minX + 1;
+            int height = maxY - minY + 1;
+            if (height == 1 || width == 1) {
+                boolean[] seen = height == 1 ? rows : columns;
+                int index = height == 1 ? minY : minX;
+                if (seen[index]) {
+                    return null;
+                }
+                seen[index] = true;
+                continue;
+            }
+            if (blocks == size) {
+                return null;
+            }
+            for (int k = 0; k < size; k++) {
+                int cellId = grid.getCellOf(indexRule, k);
+                if (cellBlocks[cellId] >= 0) {
+                    return null;
+                }
+                cellBlocks[cellId] = blocks;
+            }
+            if (blockWidth == 0) {
+                blockWidth = width;
+                blockHeight = height;
+            }
+            // A rectangle of the area of the rule holds no other cell
+            regular &= width == blockWidth && height == blockHeight && width * height == size
+                    && minX % width == 0 && minY % height == 0;
+            blocks++;
+        }
+        // 3N distinct rules with at most N of each kind: N rows, N columns and N blocks
+        if (blocks == 0) {
+            return null;
+        }
+        return regular
+                ? new ClassicLayout(size, blockWidth, blockHeight, cellBlocks)
+                : new ClassicLayout(size, 0, 0, cellBlocks);
+    }
+
+    /**
+     * Checks if the blocks are the usual rectangles, aligned on the grid.
+     *
+     * @return true for rectangular blocks, false for irregular ones
+     */
+    public boolean isRegular() {
+        return blockWidth != 0;
+    }
+
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * Gets the width of the blocks.
+     *
+     * @return the width of the blocks, 0 if they are not {@link #isRegular() regular}
+     */
+    public int getBlockWidth() {
+        return blockWidth;
+    }
+
+    /**
+     * Gets the height of the blocks.
+     *
+     * @return the height of the blocks, 0 if they are not {@link #isRegular() regular}
+     */
+    public int getBlockHeight() {
+        return blockHeight;
+    }
+
+    public int getRow(int cellId) {
+        return cellRows[cellId];
+    }
+
+    public int getColumn(int cellId) {
+        return cellColumns[cellId];
+    }
+
+    public int getBlock(int cellId) {
+        return cellBlocks[cellId];
+    }
+}
@@ -0,0 +1,153 @@
+package solvers.classic;
+
+import java.util.random.RandomGenerator;
+import sudoku.Grid;
+
+/**
+ * Generates solved classic sudokus without searching, by shuffling one valid solution.
+ * <p>
+ * With blocks of {@code w} columns and {@code h} rows, the canonical solution gives the symbol
+ * {@code (w * (row % h) + row / h + column) % N} to every cell: each row is a shift of the first one,
+ * and the shifts are chosen so that every column and every block holds the N symbols. The following
+ * transformations keep a solution valid, and are applied at random:
+ * <ul>
+ *     <li>relabeling the symbols</li>
+ *     <li>permuting the rows inside each band of blocks, and the bands</li>
+ *     <li>permuting the columns inside each stack of blocks, and the stacks</li>
+ *     <li>transposing the grid, when the blocks are square</li>
+ * </ul>
+ * Filling a grid is linear in its number of cells. The solutions are all equivalent to the canonical
+ * one, which does not show in the puzzles made from them, since they are then reduced to a few clues.
+ * <p>
+ * A generator keeps its permutations between two calls, so it must not be shared between threads.
+ */
+public final class ClassicSolutionGenerator {
+
+    private final ClassicLayout layout;
+    private final int size;
+    private final int[] rowMap;
+    private final int[] columnMap;
+    private final int[] symbolMap;
+    private final int[] groups;
+    private final int[] lines;
+    private final int[] solution;
+
+    /**
+     * Constructs a generator for a classic layout.
+     *
+     * @param layout the layout of the grids to fill
+     * @throws IllegalArgumentException if the blocks of the layout are not rectangles
+     */
+    public ClassicSolutionGenerator(ClassicLayout layout) {
+        if (!layout.isRegular()) {
+            throw new IllegalArgumentException("[ClassicSolutionGenerator] Blocks must be rectangles");
+        }
+        this.layout = layout;
+        this.size = layout.getSize();
+        this.rowMap = new int[size];
+        this.columnMap = new int[size];
+        this.symbolMap = new int[size];
+        this.groups = new int[size];
+        this.lines = new int[size];
+        this.solution = new int[size * size];
+    }
+
+    /**
+     * Creates a generator for the layout of a grid.
+     *
+     * @param grid the grid
+     * @return the generator, or null if the grid is not recognized by {@link ClassicLayout} or has
+     *         irregular blocks
+     */
+    public static ClassicSolutionGenerator forGrid(Grid grid) {
+        ClassicLayout layout = ClassicLayout.recognize(grid);
+        return layout == null || !layout.isRegular() ? null : new ClassicSolutionGenerator(layout);
+    }
+
+    /**
+     * Gets the symbol of a cell of the canonical solution.
+     *
+     * @param row    the row of the cell
+     * @param column the column of the cell
+     * @return the index of the symbol
+     */
+    public int getCanonicalValue(int row, int column) {
+        int blockWidth = layout.getBlockWidth();
+        int blockHeight = layout.getBlockHeight();
+        return (blockWidth * (row % blockHeight) + row / blockHeight + column) % size;
+    }
+
+    /**
+     * Generates a random solution.
+     *
+     * @param random the source of the transformations
+     * @param values the array receiving the index of the symbol of every cell, by cell id
+     */
+    public void generate(RandomGenerator random, int[] values) {
+        int blockWidth = layout.getBlockWidth();
+        int blockHeight = layout.getBlockHeight();
+        // Bands are blockWidth groups of blockHeight rows, stacks blockHeight groups of blockWidth columns
+        shuffleLines(random, rowMap, size / blockHeight, blockHeight);
+        shuffleLines(random, columnMap, size / blockWidth, blockWidth);
+        for (int symbol = 0; symbol < size; symbol++) {
+            symbolMap[symbol] = symbol;
+        }
+        shuffle(random, symbolMap, size);
+        boolean transposed = blockWidth == blockHeight && random.nextBoolean();
+
+        for (int cellId = 0; cellId < size * size; cellId++) {
+            int row = rowMap[layout.getRow(cellId)];
+            int column = columnMap[layout.getColumn(cellId)];
+            int canonical = transposed ? getCanonicalValue(column, row) : getCanonicalValue(row, column);
+            values[cellId] = symbolMap[canonical];
+        }
+    }
+
+    /**
+     * Empties a grid of the layout of this generator and fills it with a random solution.
+     *
+     * @param grid   the grid to fill
+     * @param random the source of the transformations
+     */
+    public void fill(Grid grid, RandomGenerator random) {
+        generate(random, solution);
+        grid.loadValues(solution);
+    }
+
+    /**
+     * Builds a permutation of the lines that moves whole groups of lines and lines inside their
+     * group.
+     *
+     * @param random     the source of the permutation
+     * @param map        the array receiving the line taken by every line
+     * @param groupCount the number of groups
+     * @param groupSize  the number of lines of a group
+     */
+    private void shuffleLines(RandomGenerator random, int[] map, int groupCount, int groupSize) {
+        for (int group = 0; group < groupCount; group++) {
+            groups[group] = group;
+        }
+        shuffle(random, groups, groupCount);
+        for (int group = 0; group < groupCount; group++) {
+            for (int line = 0; line < groupSize; line++) {
+                lines[line] = line;
+            }
+            shuffle(random, lines, groupSize);
+            for (int line = 0; line < groupSize; line++) {
+                map[group * groupSize + line] = groups[group] * groupSize + lines[line];
+            }
+        }
+    }
+
+    /**
+     * Shuffles the first elements of an array with the Fisher-Yates algorithm.
+     */
+    private static void shuffle(RandomGenerator random, int[] array, int length) {
+        for (int i = length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int swap = array[i];
+            array[i] = array[j];
+            array[j] = swap;
+        }
+    }
+}
@@ -0,0 +1,387 @@
+package solvers.classic;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.Solver;
+import solvers.backtrack.BacktrackOptimized;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * A solver specialized for the grids recognized by {@link ClassicLayout}.
+ * <p>
+ * The generic solvers go through the rules of the grid for every move. This one keeps the symbols
+ * used by every row, column and block in fixed int masks, so the candidates of a cell are computed
+ * without branches as {@code all & ~(row | column | block)}. After every decision, the naked and
+ * hidden singles are filled until none is left, then the search branches on the cell with the
+ * fewest candidates. The decisions are kept on an explicit stack.
+ * The masks and stacks are allocated once: solving does not allocate, and the solution is written
+ * back into the grid at the end.
+ * <p>
+ * {@link #create(Grid)} dispatches to this solver when the grid is recognized and to
+ * {@link BacktrackOptimized} otherwise.
+ */
+public class ClassicSolver extends Solver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ClassicSolver.class
+    );
+
+    private final int size;
+    private final int allSymbols;
+    private final int[] cellRows;
+    private final int[] cellColumns;
+    private final int[] cellBlocks;
+    private final int[] unitCells;
+
+    private final int[] unitsUsed;
+    private final int[] values;
+    private final int[] emptyCells;
+    private final int[] positions;
+    private final int[] levelCells;
+    private final int[] levelFilled;
+    private final int[] remainingValues;
+    private int emptyCount;
+    private int filled;
+    private int attempts;
+
+    /**
+     * Constructs a {@code ClassicSolver} for the given Sudoku grid.
+     *
+     * @param grid The Sudoku grid to be solved, which must be a classic sudoku.
+     * @throws IllegalArgumentException if the grid is not recognized by {@link ClassicLayout}
+     * @see Solver#Solver(Grid)
+     */
+    public ClassicSolver(Grid grid) {
+        this(grid, ClassicLayout.recognize(grid));
+    }
+
+    private ClassicSolver(Grid grid, ClassicLayout layout) {
+        super(grid);
+        if (layout == null) {
+            throw new IllegalArgumentException("[ClassicSolver] Grid is not a classic sudoku");
+        }
+        this.size = layout.getSize();
+        this.allSymbols = (int) ((1L << size) - 1);
+        int cellCount = size * size;
+        // Units: the rows, then the columns, then the blocks
+        this.cellRows = new int[cellCount];
+        this.cellColumns = new int[cellCount];
+        this.cellBlocks = new int[cellCount];
+        this.unitCells = new int[3 * cellCount];
+        int[] unitSizes = new int[3 * size];
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            this.cellRows[cellId] = layout.getRow(cellId);
+            this.cellColumns[cellId] = size + layout.getColumn(cellId);
+            this.cellBlocks[cellId] = 2 * size + layout.getBlock(cellId);
+            for (int unit : new int[] {cellRows[cellId], cellColumns[cellId], cellBlocks[cellId]}) {
+                this.unitCells[unit * size + unitSizes[unit]++] = cellId;
+            }
+        }
+        this.unitsUsed = new int[3 * size];
+        this.values = new int[cellCount];
+        this.emptyCells = new int[cellCount];
+        this.positions = new int[cellCount];
+        this.levelCells = new int[cellCount];
+        this.levelFilled = new int[cellCount];
+        this.remainingValues = new int[cellCount];
+        if (layout.isRegular()) {
+            logger.info(
+                Colors.GREEN +
+                "Starting Classic solver for {}x{} blocks..." +
+                Colors.RESET,
+                layout.getBlockWidth(),
+                layout.getBlockHeight()
+            );
+        } else {
+            logger.info(Colors.GREEN + "Starting Classic solver for irregular blocks..." + Colors.RESET);
+        }
+    }
+
+    /**
+     * Creates the fastest solver for a grid: a {@code ClassicSolver} if the grid is a classic
+     * sudoku, a {@link BacktrackOptimized} otherwise.
+     *
+     * @param grid The Sudoku grid to be solved.
+     * @return The solver.
+     */
+    public static Solver create(Grid grid) {
+        ClassicLayout layout = ClassicLayout.recognize(grid);
+        return layout != null ? new ClassicSolver(grid, layout) : new BacktrackOptimized(grid);
+    }
+
+    /**
+     * Solves the grid and writes the solution back into it. The grid is left untouched if it has no
+     * solution.
+     */
+    @Override
+    public void solve() {
+        startSearch();
+        attempts = 0;
+        if (!load() || search(1) == 0) {
+            if (isStopped()) {
+                logger.warn(
+                    Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                    getStopStatus()
+                );
+                return;
+            }
+            logger.error(
+                Colors.ERROR_COLOR + "Impossible to solve... Exiting" + Colors.RESET
+            );
+            return;
+        }
+        for (int i = 0; i < emptyCount; i++) {
+            int cellId = emptyCells[i];
+            grid.insertValue(cellId, values[cellId]);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(
+                Colors.SUCCESS_COLOR + "Solution found after {} attempts!" + Colors.RESET,
+                attempts
+            );
+        }
+    }
+
+    /**
+     * Counts the solutions with the same search as {@link #solve()}. The grid is not modified.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    @Override
+    public int countSolutions(int limit) {
+        startSearch();
+        attempts = 0;
+        return load() ? search(limit) : 0;
+    }
+
+    /**
+     * Checks if the grid has a solution in which an empty cell takes another value than the given
+     * one, by searching from each of its other candidates in turn. The grid is not modified.
+     *
+     * @param cellId The id of the empty cell.
+     * @param value  The index of the symbol the cell must not take.
+     * @return true if such a solution exists or the search stopped before knowing.
+     */
+    @Override
+    public boolean hasOtherSolution(int cellId, int value) {
+        startSearch();
+        attempts = 0;
+        if (!load()) {
+            return false;
+        }
+        for (int rest = getCandidatesOf(cellId) & ~(1 << value); rest != 0; rest &= rest - 1) {
+            place(cellId, Integer.numberOfTrailingZeros(rest));
+            if (search(1) > 0 || isStopped()) {
+                return true;
+            }
+            undoTo(0);
+        }
+        return false;
+    }
+
+    /**
+     * Loads the values of the grid into the masks.
+     *
+     * @return false if two givens of a rule are equal
+     */
+    private boolean load() {
+        for (int unit = 0; unit < 3 * size; unit++) {
+            unitsUsed[unit] = 0;
+        }
+        emptyCount = 0;
+        filled = 0;
+        for (int cellId = 0; cellId < size * size; cellId++) {
+            int value = grid.getValue(cellId);
+            values[cellId] = value;
+            if (value == Grid.EMPTY) {
+                positions[cellId] = emptyCount;
+                emptyCells[emptyCount++] = cellId;
+                continue;
+            }
+            int bit = 1 << value;
+            if (((unitsUsed[cellRows[cellId]] | unitsUsed[cellColumns[cellId]] | unitsUsed[cellBlocks[cellId]]) & bit) != 0) {
+                return false;
+            }
+            unitsUsed[cellRows[cellId]] |= bit;
+            unitsUsed[cellColumns[cellId]] |= bit;
+            unitsUsed[cellBlocks[cellId]] |= bit;
+        }
+        return true;
+    }
+
+    /**
+     * Searches the solutions. The empty cells before {@link #filled} hold a value, placed by the
+     * decisions or deduced from them, in the order they were placed. Each level of the stack keeps
+     * its cell, the values it has not tried yet and the number of cells filled before it, which is
+     * all it takes to undo it. Once {@code limit} solutions are found, the search returns with the
+     * last one in {@link #values}.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    private int search(int limit) {
+        if (!propagate()) {
+            return 0;
+        }
+        int found = 0;
+        int depth = 0;
+        boolean returning = false;
+        while (true) {
+            if (!returning) {
+                attempts++;
+                if (shouldStop()) {
+                    return found;
+                }
+                if (filled == emptyCount) {
+                    found++;
+                    if (found >= limit) {
+                        return found;
+                    }
+                    returning = true;
+                } else {
+                    chooseCell(depth);
+                }
+            }
+            if (returning) {
+                if (depth == 0) {
+                    return found;
+                }
+                depth--;
+            }
+
+            // Try the values left at the level until one propagates, or go back up
+            returning = true;
+            undoTo(levelFilled[depth]);
+            while (remainingValues[depth] != 0) {
+                int rest = remainingValues[depth];
+                remainingValues[depth] = rest & (rest - 1);
+                place(levelCells[depth], Integer.numberOfTrailingZeros(rest));
+                if (propagate()) {
+                    depth++;
+                    returning = false;
+                    break;
+                }
+                undoTo(levelFilled[depth]);
+            }
+        }
+    }
+
+    /**
+     * Starts a decision level on the empty cell with the fewest candidates.
+     *
+     * @param depth The level of the decision.
+     */
+    private void chooseCell(int depth) {
+        int best = -1;
+        int bestCandidates = 0;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = filled; i < emptyCount; i++) {
+            int cellId = emptyCells[i];
+            int candidates = getCandidatesOf(cellId);
+            int count = Integer.bitCount(candidates);
+            if (count < bestCount) {
+                best = cellId;
+                bestCandidates = candidates;
+                bestCount = count;
+                if (count <= 2) {
+                    break;
+                }
+            }
+        }
+        levelCells[depth] = best;
+        levelFilled[depth] = filled;
+        remainingValues[depth] = bestCandidates;
+    }
+
+    /**
+     * Fills the naked singles and the hidden singles of every unit until none is left.
+     *
+     * @return false if a cell has no candidate or a symbol has no place left in a unit
+     */
+    private boolean propagate() {
+        boolean changed = true;
+        while (changed && filled < emptyCount) {
+            changed = false;
+            // Naked singles: placing a cell moves it before the index, so no cell is skipped
+            for (int i = filled; i < emptyCount; i++) {
+                int cellId = emptyCells[i];
+                int candidates = getCandidatesOf(cellId);
+                if (candidates == 0) {
+                    return false;
+                }
+                if ((candidates & (candidates - 1)) == 0) {
+                    place(cellId, Integer.numberOfTrailingZeros(candidates));
+                    changed = true;
+                }
+            }
+            // Hidden singles: the symbols that fit a single empty cell of a unit
+            for (int unit = 0; unit < 3 * size; unit++) {
+                int once = 0;
+                int twice = 0;
+                for (int k = unit * size; k < (unit + 1) * size; k++) {
+                    int cellId = unitCells[k];
+                    if (values[cellId] == Grid.EMPTY) {
+                        int candidates = getCandidatesOf(cellId);
+                        twice |= once & candidates;
+                        once |= candidates;
+                    }
+                }
+                if ((once | unitsUsed[unit]) != allSymbols) {
+                    return false;
+                }
+                for (int hidden = once & ~twice; hidden != 0; hidden &= hidden - 1) {
+                    int bit = hidden & -hidden;
+                    for (int k = unit * size; k < (unit + 1) * size; k++) {
+                        int cellId = unitCells[k];
+                        // A cell taking an earlier hidden single leaves this symbol without place,
+                        // which the next pass finds
+                        if (values[cellId] == Grid.EMPTY && (getCandidatesOf(cellId) & bit) != 0) {
+                            place(cellId, Integer.numberOfTrailingZeros(bit));
+                            changed = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+        return true;
+    }
+
+    private int getCandidatesOf(int cellId) {
+        return allSymbols & ~(unitsUsed[cellRows[cellId]] | unitsUsed[cellColumns[cellId]] | unitsUsed[cellBlocks[cellId]]);
+    }
+
+    /**
+     * Places a value in an empty cell, moving the cell to the end of the filled ones.
+     */
+    private void place(int cellId, int value) {
+        int bit = 1 << value;
+        unitsUsed[cellRows[cellId]] |= bit;
+        unitsUsed[cellColumns[cellId]] |= bit;
+        unitsUsed[cellBlocks[cellId]] |= bit;
+        values[cellId] = value;
+        int position = positions[cellId];
+        int other = emptyCells[filled];
+        emptyCells[filled] = cellId;
+        positions[cellId] = filled;
+        emptyCells[position] = other;
+        positions[other] = position;
+        filled++;
+    }
+
+    /**
+     * Empties the cells filled after the given number of cells, in reverse order.
+     */
+    private void undoTo(int count) {
+        while (filled > count) {
+            int cellId = emptyCells[--filled];
+            int bit = ~(1 << values[cellId]);
+            unitsUsed[cellRows[cellId]] &= bit;
+            unitsUsed[cellColumns[cellId]] &= bit;
+            unitsUsed[cellBlocks[cellId]] &= bit;
+            values[cellId] = Grid.EMPTY;
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package solvers.dlx;
+
+import java.util.Arrays;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.Solver;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * Implements Knuth's Algorithm X with Dancing Links to solve Sudoku puzzles.
+ * <p>
+ * The grid is translated into an exact cover matrix:
+ * <ul>
+ *     <li>one column per empty cell, which must be filled exactly once</li>
+ *     <li>one column per rule and symbol not used yet in the rule</li>
+ *     <li>one row per candidate (cell, symbol), covering the column of the cell and the columns of
+ *     the symbol in every rule of the cell</li>
+ * </ul>
+ * A rule with as many cells as symbols must contain every symbol, so its columns are primary. A rule
+ * with fewer cells than symbols only forbids repetitions, so its columns are secondary: they can be
+ * covered at most once. This works for any layout built by {@link Grid.Builder}, including
+ * overlapping sudokus and random blocks.
+ * <p>
+ * The matrix is stored in flat int arrays, nodes being linked by index.
+ */
+public class DancingLinks extends Solver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        DancingLinks.class
+    );
+
+    private static final int ROOT = 0;
+
+    private int[] left;
+    private int[] right;
+    private int[] up;
+    private int[] down;
+    private int[] column;
+    private int[] rowOf;
+    private int[] columnSize;
+    private int[] rowCell;
+    private int[] rowValue;
+
+    private int[] cellColumn;
+    private int[] ruleColumn;
+    private boolean[] primary;
+    private int[] partial;
+    private int[] solution;
+    private int solutionLength;
+    private int nextNode;
+    private int attempts;
+
+    /**
+     * Constructs a {@code DancingLinks} solver for the given Sudoku grid.
+     *
+     * @param grid The Sudoku grid to be solved.
+     * @see Solver#Solver(Grid)
+     */
+    public DancingLinks(Grid grid) {
+        super(grid);
+        logger.info(
+            Colors.GREEN + "Starting Dancing Links solver..." + Colors.RESET
+        );
+    }
+
+    /**
+     * Solves the Sudoku grid by searching the first exact cover and writing it back into the grid.
+     * The grid is left untouched if it has no solution.
+     */
+    @Override
+    public void solve() {
+        buildMatrix();
+        attempts = 0;
+        startSearch();
+        if (search(0, 1) == 0) {
+            if (isStopped()) {
+                logger.warn(
+                    Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                    getStopStatus()
+                );
+                return;
+            }
+            logger.error(
+                Colors.ERROR_COLOR + "Impossible to solve... Exiting" + Colors.RESET
+            );
+            return;
+        }
+        for (int i = 0; i < solutionLength; i++) {
+            grid.insertValue(rowCell[solution[i]], rowValue[solution[i]]);
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(
+                Colors.SUCCESS_COLOR + "Solution found after {} attempts!" + Colors.RESET,
+                attempts
+            );
+        }
+    }
+
+    /**
+     * Counts the exact covers of the matrix, stopping once {@code limit} are found. The grid is not
+     * modified.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    @Override
+    public int countSolutions(int limit) {
+        buildMatrix();
+        attempts = 0;
+        startSearch();
+        return search(0, limit);
+    }
+
+    /**
+     * Builds the exact cover matrix of the current state of the grid. The arrays of the previous
+     * matrix are reused when they are large enough, so a solver kept for a grid reloaded with other
+     * givens does not allocate anything once it has seen its largest matrix.
+     */
+    private void buildMatrix() {
+        int cellCount = grid.getCellCount();
+        int ruleCount = grid.getRules().size();
+        int alphabetSize = grid.getAlphabetSize();
+
+        // Columns: one per empty cell, one per (rule, free symbol)
+        if (cellColumn == null || cellColumn.length != cellCount
+                || ruleColumn.length != ruleCount * alphabetSize) {
+            cellColumn = new int[cellCount];
+            ruleColumn = new int[ruleCount * alphabetSize];
+            primary = new boolean[ruleCount * alphabetSize + cellCount + 1];
+            partial = new int[cellCount];
+            solution = new int[cellCount];
+        } else {
+            Arrays.fill(cellColumn, 0);
+            Arrays.fill(ruleColumn, 0);
+        }
+        int columns = 0;
+        int rows = 0;
+        int rowNodes = 0;
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            if (grid.getValue(cellId) == Grid.EMPTY) {
+                cellColumn[cellId] = ++columns;
+                int candidates = Long.bitCount(grid.getCandidates(cellId));
+                rows += candidates;
+                rowNodes += candidates * (1 + grid.getNumberOfRules(cellId));
+            }
+        }
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            if (cellColumn[cellId] != 0) {
+                primary[cellColumn[cellId]] = true;
+            }
+        }
+        for (int indexRule = 0; indexRule < ruleCount; indexRule++) {
+            long symbols = grid.getSymbolsMask(grid.getRule(indexRule).getIndexSymbols());
+            boolean mustContainAll = grid.getNumberOfCells(indexRule) == Long.bitCount(symbols);
+            for (long rest = symbols & ~grid.getUsedMask(indexRule); rest != 0L; rest &= rest - 1) {
+                int symbol = Long.numberOfTrailingZeros(rest);
+                ruleColumn[indexRule * alphabetSize + symbol] = ++columns;
+                primary[columns] = mustContainAll;
+            }
+        }
+
+        int size = columns + 1 + rowNodes;
+        if (left == null || left.length < size) {
+            left = new int[size];
+            right = new int[size];
+            up = new int[size];
+            down = new int[size];
+            column = new int[size];
+            rowOf = new int[size];
+        }
+        if (columnSize == null || columnSize.length < columns + 1) {
+            columnSize = new int[columns + 1];
+        } else {
+            Arrays.fill(columnSize, 0, columns + 1, 0);
+        }
+        if (rowCell == null || rowCell.length < rows) {
+            rowCell = new int[rows];
+            rowValue = new int[rows];
+        }
+        solutionLength = 0;
+
+        // Headers: primary columns are linked to the root, secondary ones to themselves
+        left[ROOT] = ROOT;
+        right[ROOT] = ROOT;
+        for (int c = 1; c <= columns; c++) {
+            up[c] = c;
+            down[c] = c;
+            column[c] = c;
+            if (primary[c]) {
+                left[c] = left[ROOT];
+                right[c] = ROOT;
+                right[left[ROOT]] = c;
+                left[ROOT] = c;
+            } else {
+                left[c] = c;
+                right[c] = c;
+            }
+        }
+
+        // Rows: one per candidate of every empty cell
+        nextNode = columns + 1;
+        int row = 0;
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            if (cellColumn[cellId] == 0) {
+                continue;
+            }
+            for (long rest = grid.getCandidates(cellId); rest != 0L; rest &= rest - 1) {
+                int symbol = Long.numberOfTrailingZeros(rest);
+                rowCell[row] = cellId;
+                rowValue[row] = symbol;
+                int first = addNode(cellColumn[cellId], row, -1);
+                for (int k = 0; k < grid.getNumberOfRules(cellId); k++) {
+                    int indexRule = grid.getRuleOf(cellId, k);
+                    addNode(ruleColumn[indexRule * alphabetSize + symbol], row, first);
+                }
+                row++;
+            }
+        }
+    }
+
+    /**
+     * Appends a node at the bottom of a column and at the end of a row.
+     *
+     * @param c     The column of the node.
+     * @param row   The row of the node.
+     * @param first The first node of the row, or {@code -1} if this node starts the row.
+     * @return The index of the node.
+     */
+    private int addNode(int c, int row, int first) {
+        int node = nextNode++;
+        column[node] = c;
+        rowOf[node] = row;
+        up[node] = up[c];
+        down[node] = c;
+        down[up[c]] = node;
+        up[c] = node;
+        columnSize[c]++;
+        if (first < 0) {
+            left[node] = node;
+            right[node] = node;
+        } else {
+            left[node] = left[first];
+            right[node] = first;
+            right[left[first]] = node;
+            left[first] = node;
+        }
+        return node;
+    }
+
+    /**
+     * Searches exact covers, stopping once {@code limit} are found. The first one is kept in
+     * {@code solution}.
+     *
+     * @param depth The number of rows in the partial solution.
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    private int search(int depth, int limit) {
+        attempts++;
+        if (shouldStop()) {
+            return 0;
+        }
+        if (right[ROOT] == ROOT) {
+            if (solutionLength == 0) {
+                System.arraycopy(partial, 0, solution, 0, depth);
+                solutionLength = depth;
+            }
+            return 1;
+        }
+
+        // Choose the primary column with the fewest rows
+        int chosen = right[ROOT];
+        for (int c = right[chosen]; c != ROOT; c = right[c]) {
+            if (columnSize[c] < columnSize[chosen]) {
+                chosen = c;
+            }
+        }
+        if (columnSize[chosen] == 0) {
+            return 0;
+        }
+
+        int found = 0;
+        cover(chosen);
+        for (int r = down[chosen]; r != chosen && found < limit; r = down[r]) {
+            partial[depth] = rowOf[r];
+            for (int j = right[r]; j != r; j = right[j]) {
+                cover(column[j]);
+            }
+            found += search(depth + 1, limit - found);
+            for (int j = left[r]; j != r; j = left[j]) {
+                uncover(column[j]);
+            }
+        }
+        uncover(chosen);
+        return found;
+    }
+
+    /**
+     * Removes a column from the header list and every row that intersects it from the other columns.
+     *
+     * @param c The column to cover.
+     */
+    private void cover(int c) {
+        right[left[c]] = right[c];
+        left[right[c]] = left[c];
+        for (int i = down[c]; i != c; i = down[i]) {
+            for (int j = right[i]; j != i; j = right[j]) {
+                down[up[j]] = down[j];
+                up[down[j]] = up[j];
+                columnSize[column[j]]--;
+            }
+        }
+    }
+
+    /**
+     * Restores a column covered by {@link #cover(int)}, in reverse order.
+     *
+     * @param c The column to uncover.
+     */
+    private void uncover(int c) {
+        for (int i = up[c]; i != c; i = up[i]) {
+            for (int j = left[i]; j != i; j = left[j]) {
+                columnSize[column[j]]++;
+                down[up[j]] = j;
+                up[down[j]] = j;
+            }
+        }
+        right[left[c]] = c;
+        left[right[c]] = c;
+    }
+}
@@ -0,0 +1,241 @@
+package solvers.parallel;
+
+import java.io.Serial;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.CancellationToken;
+import solvers.SolveResult;
+import solvers.Solver;
+import solvers.backtrack.BacktrackOptimized;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * Parallel backtracking solver running on a {@link ForkJoinPool}.
+ * <p>
+ * The search tree is split at the most constrained cell: every candidate of that cell becomes an
+ * independent subproblem working on its own {@link Grid#copy()}. Subproblems are split again until
+ * there are enough of them to keep every worker busy, then each one is searched sequentially with
+ * {@link BacktrackOptimized}. Idle workers steal pending subproblems from busy ones.
+ * <p>
+ * When solving, the first subproblem to find a solution cancels the others through a shared
+ * {@link CancellationToken} and its values are copied back into the grid. When counting, the
+ * subproblem counts are summed and the search stops once the limit is reached.
+ * <p>
+ * Every subproblem is searched with the options of this solver: cancelling their token or reaching
+ * their deadline stops all of them, while the node budget applies to each subproblem. The nodes of
+ * the search are the splits plus the nodes of every sequential search.
+ */
+public class ParallelBacktrack extends Solver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        ParallelBacktrack.class
+    );
+
+    private final ForkJoinPool pool;
+    private final int tasksPerWorker;
+
+    /**
+     * Constructs a {@code ParallelBacktrack} solver running on the common pool.
+     *
+     * @param grid The Sudoku grid to be solved.
+     * @see Solver#Solver(Grid)
+     */
+    public ParallelBacktrack(Grid grid) {
+        this(grid, ForkJoinPool.commonPool(), 8);
+    }
+
+    /**
+     * Constructs a {@code ParallelBacktrack} solver.
+     *
+     * @param grid           The Sudoku grid to be solved.
+     * @param pool           The pool running the subproblems.
+     * @param tasksPerWorker The number of subproblems to create per worker of the pool, more of them
+     *                       balance the load better at the cost of more grid copies.
+     */
+    public ParallelBacktrack(Grid grid, ForkJoinPool pool, int tasksPerWorker) {
+        super(grid);
+        this.pool = pool;
+        this.tasksPerWorker = tasksPerWorker;
+        logger.info(
+            Colors.GREEN + "Starting ParallelBacktrack solver..." + Colors.RESET
+        );
+    }
+
+    /**
+     * Solves the grid in parallel and copies the first solution found into the grid. The grid is
+     * left untouched if it has no solution.
+     */
+    @Override
+    public void solve() {
+        startSearch();
+        AtomicReference<Grid> solution = new AtomicReference<>();
+        CancellationToken found = new CancellationToken(options.getCancellation());
+        LongAdder nodes = new LongAdder();
+        pool.invoke(
+            new SearchTask(grid.copy(), budget(), found, 1, solution, null, nodes)
+        );
+        addNodes(nodes.sum());
+        if (solution.get() != null) {
+            grid.copyValuesFrom(solution.get());
+        } else if (isStopped() || options.getCancellation().isCancelled()) {
+            // Keeps TIMED_OUT if a subproblem reached a limit first
+            stop(SolveResult.Status.CANCELLED);
+            logger.warn(
+                Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                getStopStatus()
+            );
+        } else {
+            logger.error(
+                Colors.ERROR_COLOR + "Impossible to solve... Exiting" + Colors.RESET
+            );
+        }
+    }
+
+    /**
+     * Counts the solutions in parallel, summing the counts of the subproblems. The grid is not
+     * modified.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    @Override
+    public int countSolutions(int limit) {
+        startSearch();
+        AtomicInteger count = new AtomicInteger();
+        CancellationToken reached = new CancellationToken(options.getCancellation());
+        LongAdder nodes = new LongAdder();
+        pool.invoke(
+            new SearchTask(grid.copy(), budget(), reached, limit, null, count, nodes)
+        );
+        addNodes(nodes.sum());
+        if (count.get() < limit && options.getCancellation().isCancelled()) {
+            stop(SolveResult.Status.CANCELLED);
+        }
+        return Math.min(count.get(), limit);
+    }
+
+    /**
+     * Gets the number of subproblems to create.
+     *
+     * @return The number of subproblems.
+     */
+    private int budget() {
+        return Math.max(1, pool.getParallelism() * tasksPerWorker);
+    }
+
+    /**
+     * Finds the empty cell with the smallest domain, read in constant time from the domain queue of
+     * the grid like the sequential engines do.
+     *
+     * @param grid The grid to search.
+     * @return The id of the cell, or {@code -1} if the grid is complete.
+     */
+    private static int findMostConstrainedCell(Grid grid) {
+        return grid.getDomainQueue().peekMin();
+    }
+
+    /**
+     * A subproblem of the search, owning its grid. Tasks are serializable through
+     * {@link RecursiveAction} only, they are never serialized.
+     */
+    private class SearchTask extends RecursiveAction {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient Grid grid;
+        private final int budget;
+        private final transient CancellationToken stop;
+        private final int limit;
+        private final AtomicReference<Grid> solution;
+        private final AtomicInteger count;
+        private final LongAdder nodes;
+
+        /**
+         * @param grid     The grid of the subproblem, owned by the task.
+         * @param budget   The number of subproblems this task may still be split into.
+         * @param stop     The token set once the search is over.
+         * @param limit    The number of solutions after which the search stops.
+         * @param solution Where to publish the first solution, or {@code null} when counting.
+         * @param count    The total of solutions, or {@code null} when solving.
+         * @param nodes    The total of nodes explored by the tasks.
+         */
+        SearchTask(
+            Grid grid,
+            int budget,
+            CancellationToken stop,
+            int limit,
+            AtomicReference<Grid> solution,
+            AtomicInteger count,
+            LongAdder nodes
+        ) {
+            this.grid = grid;
+            this.budget = budget;
+            this.stop = stop;
+            this.limit = limit;
+            this.solution = solution;
+            this.count = count;
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected void compute() {
+            if (stop.isCancelled()) {
+                return;
+            }
+            int cellId = findMostConstrainedCell(grid);
+            long domain = cellId < 0 ? 0L : grid.getDomain(cellId);
+            if (budget <= 1 || Long.bitCount(domain) <= 1) {
+                searchSequentially();
+                return;
+            }
+
+            nodes.increment();
+            List<SearchTask> subtasks = new ArrayList<>();
+            int childBudget = Math.max(1, budget / Long.bitCount(domain));
+            for (long rest = domain; rest != 0L; rest &= rest - 1) {
+                Grid child = grid.copy();
+                child.insertValue(cellId, Long.numberOfTrailingZeros(rest));
+                subtasks.add(
+                    new SearchTask(child, childBudget, stop, limit, solution, count, nodes)
+                );
+            }
+            invokeAll(subtasks);
+        }
+
+        /**
+         * Searches the subproblem with a sequential solver sharing the stop token.
+         */
+        private void searchSequentially() {
+            Solver leaf = new BacktrackOptimized(grid);
+            leaf.setOptions(options.withCancellation(stop));
+            if (solution != null) {
+                leaf.solve();
+                if (grid.isComplete() && solution.compareAndSet(null, grid)) {
+                    stop.cancel();
+                }
+            } else {
+                int remaining = limit - count.get();
+                if (remaining <= 0) {
+                    stop.cancel();
+                    return;
+                }
+                if (count.addAndGet(leaf.countSolutions(remaining)) >= limit) {
+                    stop.cancel();
+                }
+            }
+            nodes.add(leaf.getNodes());
+            if (leaf.getStopStatus() == SolveResult.Status.TIMED_OUT) {
+                stop(SolveResult.Status.TIMED_OUT);
+            }
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package solvers.parallel;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.CancellationToken;
+import solvers.SolveResult;
+import solvers.Solver;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.dlx.DancingLinks;
+import solvers.wfc.WaveFunctionCollapse;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * Portfolio solver racing several engines on the same grid.
+ * <p>
+ * Which engine is the fastest depends a lot on the grid, so every configured engine is started at
+ * once on its own virtual thread, working on its own {@link Grid#copy()}. The first engine to finish
+ * wins: the others are cancelled through a shared {@link CancellationToken} and the values of the
+ * winner are copied back into the grid.
+ * <p>
+ * Every engine explores the whole search space, so an engine finishing without a solution proves
+ * there is none and also ends the race. The nodes of the race are the nodes of all the engines, the
+ * cancelled ones included.
+ * <p>
+ * Virtual threads are not preempted while they compute, so engines only truly run side by side when
+ * there are as many carrier threads, by default one per processor, as engines.
+ */
+public class Portfolio extends Solver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        Portfolio.class
+    );
+
+    private final List<Function<Grid, Solver>> engines;
+
+    /**
+     * Constructs a {@code Portfolio} racing {@link BacktrackOptimized}, {@link DancingLinks} and
+     * {@link WaveFunctionCollapse}.
+     *
+     * @param grid The Sudoku grid to be solved.
+     * @see Solver#Solver(Grid)
+     */
+    public Portfolio(Grid grid) {
+        this(
+            grid,
+            List.of(
+                BacktrackOptimized::new,
+                DancingLinks::new,
+                WaveFunctionCollapse::new
+            )
+        );
+    }
+
+    /**
+     * Constructs a {@code Portfolio} racing the given engines.
+     *
+     * @param grid    The Sudoku grid to be solved.
+     * @param engines The factories of the engines, each one called with its own copy of the grid.
+     */
+    public Portfolio(Grid grid, List<Function<Grid, Solver>> engines) {
+        super(grid);
+        if (engines.isEmpty()) {
+            throw new IllegalArgumentException("[Portfolio] Engines must not be empty");
+        }
+        this.engines = List.copyOf(engines);
+        logger.info(
+            Colors.GREEN +
+            "Starting Portfolio solver with " +
+            engines.size() +
+            " engines..." +
+            Colors.RESET
+        );
+    }
+
+    /**
+     * Races the engines and copies the solution of the winner into the grid. The grid is left
+     * untouched if it has no solution.
+     */
+    @Override
+    public void solve() {
+        startSearch();
+        AtomicReference<Solver> winner = new AtomicReference<>();
+        CancellationToken finished = new CancellationToken(options.getCancellation());
+        AtomicBoolean timedOut = new AtomicBoolean();
+        race(finished, timedOut, engine -> {
+            engine.solve();
+            // A stopped engine leaves its grid untouched, only a complete run is a result
+            if (!engine.isStopped() && winner.compareAndSet(null, engine)) {
+                finished.cancel();
+            }
+        });
+
+        Solver result = winner.get();
+        if (result == null) {
+            stop(timedOut.get() ? SolveResult.Status.TIMED_OUT : SolveResult.Status.CANCELLED);
+            logger.warn(
+                Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                getStopStatus()
+            );
+        } else if (result.getGrid().isComplete()) {
+            logger.info(
+                Colors.SUCCESS_COLOR +
+                "{} won the race" +
+                Colors.RESET,
+                result.getClass().getSimpleName()
+            );
+            grid.copyValuesFrom(result.getGrid());
+        } else {
+            logger.error(
+                Colors.ERROR_COLOR + "Impossible to solve... Exiting" + Colors.RESET
+            );
+        }
+    }
+
+    /**
+     * Races the engines on counting the solutions and returns the count of the first one to finish.
+     * The grid is not modified.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    @Override
+    public int countSolutions(int limit) {
+        startSearch();
+        AtomicInteger count = new AtomicInteger(-1);
+        CancellationToken finished = new CancellationToken(options.getCancellation());
+        AtomicBoolean timedOut = new AtomicBoolean();
+        race(finished, timedOut, engine -> {
+            int solutions = engine.countSolutions(limit);
+            // A stopped engine returns a partial count
+            if (!engine.isStopped() && count.compareAndSet(-1, solutions)) {
+                finished.cancel();
+            }
+        });
+        if (count.get() < 0) {
+            stop(timedOut.get() ? SolveResult.Status.TIMED_OUT : SolveResult.Status.CANCELLED);
+            return 0;
+        }
+        return count.get();
+    }
+
+    /**
+     * Runs every engine on its own virtual thread and waits for all of them to return, then adds
+     * the nodes of every engine to the nodes of this solver.
+     *
+     * Engines get the options of this solver with the shared token: the node budget applies to
+     * each engine.
+     *
+     * @param finished The token shared by the engines, set once the race is over.
+     * @param timedOut Set if an engine reached the deadline or its node budget.
+     * @param run      The work of an engine, which publishes its result and sets the token.
+     */
+    private void race(CancellationToken finished, AtomicBoolean timedOut, Consumer<Solver> run) {
+        LongAdder nodes = new LongAdder();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (Function<Grid, Solver> factory : engines) {
+                // Copied on the calling thread, the grid compiles itself lazily
+                Grid copy = grid.copy();
+                executor.execute(() -> {
+                    try {
+                        Solver engine = factory.apply(copy);
+                        engine.setOptions(options.withCancellation(finished));
+                        run.accept(engine);
+                        nodes.add(engine.getNodes());
+                        if (engine.getStopStatus() == SolveResult.Status.TIMED_OUT) {
+                            timedOut.set(true);
+                        }
+                    } catch (RuntimeException e) {
+                        logger.error(
+                            Colors.ERROR_COLOR + "Engine failed: {}" + Colors.RESET,
+                            e.toString()
+                        );
+                    }
+                });
+            }
+        }
+        addNodes(nodes.sum());
+    }
+}
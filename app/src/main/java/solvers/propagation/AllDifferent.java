@@ -0,0 +1,236 @@
+package solvers.propagation;
+
+import java.util.Arrays;
+import sudoku.Grid;
+
+/**
+ * Generalized arc consistency for the all-different constraint of every rule, with Régin's
+ * algorithm.
+ * <p>
+ * The empty cells of a rule and the symbols left in their domains form a bipartite graph. A maximum
+ * matching covering every cell is searched with augmenting paths, a rule without one has no
+ * solution. A candidate that belongs to no maximum matching is then eliminated: a candidate
+ * {@code v} of a cell matched to {@code w} is kept only if {@code v} and {@code w} are in the same
+ * strongly connected component of the alternating graph, or if {@code v} can be reached from a
+ * symbol left unmatched. With at most {@link Grid#MAX_SYMBOLS} symbols, the alternating graph is
+ * contracted onto the symbols and stored as bitmasks, and its components are read from its
+ * transitive closure.
+ * <p>
+ * This subsumes naked and hidden subsets of every size within a rule. The propagation is
+ * incremental: a rule is only checked again when the domain of one of its cells may have changed,
+ * that is when the {@link Grid#getRuleVersion(int) version} of a rule sharing a cell with it
+ * changed.
+ */
+public class AllDifferent implements Technique {
+
+    private Grid lastGrid;
+    private int[][] overlappingRules;
+    private long[] checkedVersions;
+
+    private int[] cells = new int[0];
+    private long[] domains = new long[0];
+    private final int[] symbolMates = new int[Grid.MAX_SYMBOLS];
+    private final int[] cellMates = new int[Grid.MAX_SYMBOLS];
+    private final long[] reach = new long[Grid.MAX_SYMBOLS];
+    private long visited;
+
+    @Override
+    public String getName() {
+        return "all-different";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        if (grid != lastGrid || overlappingRules.length != grid.getRules().size()) {
+            prepare(grid);
+        }
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int indexRule = 0; indexRule < overlappingRules.length; indexRule++) {
+            long version = version(grid, indexRule);
+            if (version == checkedVersions[indexRule]) {
+                continue;
+            }
+            Outcome result = propagateRule(grid, indexRule);
+            if (result == Outcome.CONTRADICTION) {
+                return result;
+            }
+            if (result == Outcome.CHANGED) {
+                outcome = result;
+            }
+            // The rule is consistent with the domains it leaves
+            checkedVersions[indexRule] = version(grid, indexRule);
+        }
+        return outcome;
+    }
+
+    /**
+     * Computes, for every rule, the rules sharing at least one cell with it.
+     *
+     * @param grid the grid
+     */
+    private void prepare(Grid grid) {
+        int ruleCount = grid.getRules().size();
+        overlappingRules = new int[ruleCount][];
+        checkedVersions = new long[ruleCount];
+        Arrays.fill(checkedVersions, -1L);
+        boolean[] seen = new boolean[ruleCount];
+        int[] found = new int[ruleCount];
+        for (int indexRule = 0; indexRule < ruleCount; indexRule++) {
+            int count = 0;
+            for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+                int cellId = grid.getCellOf(indexRule, k);
+                for (int r = 0; r < grid.getNumberOfRules(cellId); r++) {
+                    int other = grid.getRuleOf(cellId, r);
+                    if (!seen[other]) {
+                        seen[other] = true;
+                        found[count++] = other;
+                    }
+                }
+            }
+            overlappingRules[indexRule] = Arrays.copyOf(found, count);
+            for (int i = 0; i < count; i++) {
+                seen[found[i]] = false;
+            }
+        }
+        lastGrid = grid;
+    }
+
+    /**
+     * Sums the versions of the rules sharing a cell with a rule. Versions only grow, so the sum
+     * changes whenever one of them does.
+     *
+     * @param grid      the grid
+     * @param indexRule the index of the rule
+     * @return the combined version
+     */
+    private long version(Grid grid, int indexRule) {
+        long version = 0L;
+        for (int other : overlappingRules[indexRule]) {
+            version += grid.getRuleVersion(other) & 0xFFFFFFFFL;
+        }
+        return version;
+    }
+
+    /**
+     * Enforces generalized arc consistency on one rule.
+     *
+     * @param grid      the grid
+     * @param indexRule the index of the rule
+     * @return the outcome of the propagation
+     */
+    private Outcome propagateRule(Grid grid, int indexRule) {
+        int ruleCells = grid.getNumberOfCells(indexRule);
+        if (cells.length < ruleCells) {
+            cells = new int[ruleCells];
+            domains = new long[ruleCells];
+        }
+        int count = 0;
+        long symbols = 0L;
+        for (int k = 0; k < ruleCells; k++) {
+            int cellId = grid.getCellOf(indexRule, k);
+            if (grid.getValue(cellId) == Grid.EMPTY) {
+                cells[count] = cellId;
+                domains[count] = grid.getDomain(cellId);
+                symbols |= domains[count];
+                count++;
+            }
+        }
+        if (count == 0) {
+            return Outcome.UNCHANGED;
+        }
+        if (Long.bitCount(symbols) < count) {
+            return Outcome.CONTRADICTION;
+        }
+
+        // Maximum matching of the cells with augmenting paths
+        Arrays.fill(symbolMates, -1);
+        for (int i = 0; i < count; i++) {
+            cellMates[i] = -1;
+        }
+        for (int i = 0; i < count; i++) {
+            visited = 0L;
+            if (!augment(i)) {
+                return Outcome.CONTRADICTION;
+            }
+        }
+
+        // Alternating graph contracted onto the symbols: v -> w if the cell matched to w can take v
+        long free = symbols;
+        for (long rest = symbols; rest != 0L; rest &= rest - 1) {
+            reach[Long.numberOfTrailingZeros(rest)] = 0L;
+        }
+        for (int i = 0; i < count; i++) {
+            int mate = cellMates[i];
+            free &= ~(1L << mate);
+            for (long rest = domains[i] & ~(1L << mate); rest != 0L; rest &= rest - 1) {
+                reach[Long.numberOfTrailingZeros(rest)] |= 1L << mate;
+            }
+        }
+
+        // Transitive closure of the graph
+        for (long pivots = symbols; pivots != 0L; pivots &= pivots - 1) {
+            int pivot = Long.numberOfTrailingZeros(pivots);
+            long pivotBit = 1L << pivot;
+            for (long rest = symbols; rest != 0L; rest &= rest - 1) {
+                int v = Long.numberOfTrailingZeros(rest);
+                if ((reach[v] & pivotBit) != 0L) {
+                    reach[v] |= reach[pivot];
+                }
+            }
+        }
+
+        // Symbols reachable from a free symbol can be freed by an alternating path
+        long freeable = free;
+        for (long rest = free; rest != 0L; rest &= rest - 1) {
+            freeable |= reach[Long.numberOfTrailingZeros(rest)];
+        }
+
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int i = 0; i < count; i++) {
+            int mate = cellMates[i];
+            long mateBit = 1L << mate;
+            long inconsistent = 0L;
+            for (long rest = domains[i] & ~mateBit & ~freeable; rest != 0L; rest &= rest - 1) {
+                int v = Long.numberOfTrailingZeros(rest);
+                // Same component: v reaches the mate and the mate reaches v
+                if ((reach[v] & mateBit) == 0L || (reach[mate] & (1L << v)) == 0L) {
+                    inconsistent |= 1L << v;
+                }
+            }
+            if (inconsistent != 0L && grid.eliminate(cells[i], inconsistent)) {
+                outcome = Outcome.CHANGED;
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Searches an augmenting path from an unmatched cell, depth first. The symbols visited by the
+     * search are kept in {@link #visited}.
+     *
+     * @param cell the index of the cell in {@link #cells}
+     * @return true if the cell was matched
+     */
+    private boolean augment(int cell) {
+        long options = domains[cell] & ~visited;
+        visited |= options;
+        // Free symbols first, then symbols whose cell can move
+        for (long rest = options; rest != 0L; rest &= rest - 1) {
+            int v = Long.numberOfTrailingZeros(rest);
+            if (symbolMates[v] < 0) {
+                symbolMates[v] = cell;
+                cellMates[cell] = v;
+                return true;
+            }
+        }
+        for (long rest = options; rest != 0L; rest &= rest - 1) {
+            int v = Long.numberOfTrailingZeros(rest);
+            if (augment(symbolMates[v])) {
+                symbolMates[v] = cell;
+                cellMates[cell] = v;
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,57 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+
+/**
+ * Hidden singles: a symbol that has a single possible cell in a rule that must contain it goes in
+ * that cell. A symbol without any possible cell is a contradiction.
+ */
+public class HiddenSingles implements Technique {
+
+    @Override
+    public String getName() {
+        return "hidden-singles";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (!grid.mustContainAllSymbols(indexRule)) {
+                continue;
+            }
+            long free = grid.getRuleSymbolsMask(indexRule) & ~grid.getUsedMask(indexRule);
+            if (free == 0L) {
+                continue;
+            }
+
+            // Symbols seen in at least one and in at least two domains of the rule
+            long once = 0L;
+            long twice = 0L;
+            int cells = grid.getNumberOfCells(indexRule);
+            for (int k = 0; k < cells; k++) {
+                long domain = grid.getDomain(grid.getCellOf(indexRule, k));
+                twice |= once & domain;
+                once |= domain;
+            }
+            if ((free & ~once) != 0L) {
+                return Outcome.CONTRADICTION;
+            }
+
+            for (long singles = free & ~twice; singles != 0L; singles &= singles - 1) {
+                long bit = singles & -singles;
+                for (int k = 0; k < cells; k++) {
+                    int cellId = grid.getCellOf(indexRule, k);
+                    if ((grid.getDomain(cellId) & bit) != 0L) {
+                        if (!grid.insertValue(cellId, Long.numberOfTrailingZeros(bit))) {
+                            return Outcome.CONTRADICTION;
+                        }
+                        outcome = Outcome.CHANGED;
+                        break;
+                    }
+                }
+            }
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,126 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+
+/**
+ * Hidden pairs and triples: when {@code size} symbols of a rule that must contain them can only go
+ * in the same {@code size} cells, those cells hold those symbols, so their other candidates are
+ * eliminated. Fewer cells than symbols is a contradiction.
+ * <p>
+ * The cells where a symbol can go are kept as a mask over the cells of the rule, which has at most
+ * {@link Grid#MAX_SYMBOLS} cells since it has as many cells as symbols.
+ */
+public class HiddenSubsets implements Technique {
+
+    private final int size;
+    private final int[] symbols = new int[Grid.MAX_SYMBOLS];
+    private final long[] places = new long[Grid.MAX_SYMBOLS];
+
+    /**
+     * Constructs the technique for subsets of the given size.
+     *
+     * @param size the number of symbols of a subset, 2 for pairs and 3 for triples
+     */
+    public HiddenSubsets(int size) {
+        if (size < 2 || size > 3) {
+            throw new IllegalArgumentException("[HiddenSubsets] Only pairs and triples are supported");
+        }
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return size == 2 ? "hidden-pairs" : "hidden-triples";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (!grid.mustContainAllSymbols(indexRule)) {
+                continue;
+            }
+            long free = grid.getRuleSymbolsMask(indexRule) & ~grid.getUsedMask(indexRule);
+            if (Long.bitCount(free) <= size) {
+                continue;
+            }
+
+            // Cells of the rule where each free symbol can go
+            int count = 0;
+            int cells = grid.getNumberOfCells(indexRule);
+            for (long rest = free; rest != 0L; rest &= rest - 1) {
+                long bit = rest & -rest;
+                long place = 0L;
+                for (int k = 0; k < cells; k++) {
+                    if ((grid.getDomain(grid.getCellOf(indexRule, k)) & bit) != 0L) {
+                        place |= 1L << k;
+                    }
+                }
+                int placeCount = Long.bitCount(place);
+                if (placeCount >= 2 && placeCount <= size) {
+                    symbols[count] = Long.numberOfTrailingZeros(bit);
+                    places[count] = place;
+                    count++;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    long pair = places[i] | places[j];
+                    long pairSymbols = (1L << symbols[i]) | (1L << symbols[j]);
+                    if (size == 2) {
+                        Outcome result = restrict(grid, indexRule, pair, pairSymbols);
+                        if (result == Outcome.CONTRADICTION) {
+                            return result;
+                        }
+                        if (result == Outcome.CHANGED) {
+                            outcome = result;
+                        }
+                        continue;
+                    }
+                    if (Long.bitCount(pair) > size) {
+                        continue;
+                    }
+                    for (int l = j + 1; l < count; l++) {
+                        Outcome result = restrict(grid, indexRule, pair | places[l], pairSymbols | (1L << symbols[l]));
+                        if (result == Outcome.CONTRADICTION) {
+                            return result;
+                        }
+                        if (result == Outcome.CHANGED) {
+                            outcome = result;
+                        }
+                    }
+                }
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Restricts the cells of a subset to the symbols of the subset, if the subset is hidden.
+     *
+     * @param grid        the grid
+     * @param indexRule   the index of the rule
+     * @param cellsMask   the cells of the subset, as a mask over the cells of the rule
+     * @param symbolsMask the symbols of the subset
+     * @return the outcome of the restriction
+     */
+    private Outcome restrict(Grid grid, int indexRule, long cellsMask, long symbolsMask) {
+        int cellCount = Long.bitCount(cellsMask);
+        if (cellCount < size) {
+            return Outcome.CONTRADICTION;
+        }
+        if (cellCount > size) {
+            return Outcome.UNCHANGED;
+        }
+        Outcome outcome = Outcome.UNCHANGED;
+        for (long rest = cellsMask; rest != 0L; rest &= rest - 1) {
+            int cellId = grid.getCellOf(indexRule, Long.numberOfTrailingZeros(rest));
+            long others = grid.getDomain(cellId) & ~symbolsMask;
+            if (others != 0L && grid.eliminate(cellId, others)) {
+                outcome = Outcome.CHANGED;
+            }
+        }
+        return outcome;
+    }
+}
@@ -0,0 +1,98 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+import sudoku.rule.BlockRule;
+
+/**
+ * Intersection removal: when every cell of a rule where a symbol can go also belongs to a second
+ * rule, the symbol is in that intersection, so it is eliminated from the other cells of the second
+ * rule.
+ * <p>
+ * Starting from blocks, this is the pointing pairs technique: a symbol confined to one line of a
+ * block is removed from the rest of the line. Starting from lines, this is the box/line reduction:
+ * a symbol confined to one block of a line is removed from the rest of the block. Both work on any
+ * pair of overlapping rules, including rules of overlapping sudokus.
+ */
+public class IntersectionRemoval implements Technique {
+
+    private final boolean fromBlocks;
+    private int[] places = new int[0];
+
+    /**
+     * Constructs the technique.
+     *
+     * @param fromBlocks true to start from the {@link BlockRule blocks} (pointing pairs), false to
+     *                   start from the other rules (box/line reduction)
+     */
+    public IntersectionRemoval(boolean fromBlocks) {
+        this.fromBlocks = fromBlocks;
+    }
+
+    @Override
+    public String getName() {
+        return fromBlocks ? "pointing-pairs" : "box-line-reduction";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (!grid.mustContainAllSymbols(indexRule)
+                    || (grid.getRule(indexRule) instanceof BlockRule) != fromBlocks) {
+                continue;
+            }
+            int cells = grid.getNumberOfCells(indexRule);
+            if (places.length < cells) {
+                places = new int[cells];
+            }
+            long free = grid.getRuleSymbolsMask(indexRule) & ~grid.getUsedMask(indexRule);
+            for (long rest = free; rest != 0L; rest &= rest - 1) {
+                long bit = rest & -rest;
+                int count = 0;
+                for (int k = 0; k < cells; k++) {
+                    int cellId = grid.getCellOf(indexRule, k);
+                    if ((grid.getDomain(cellId) & bit) != 0L) {
+                        places[count++] = cellId;
+                    }
+                }
+                if (count == 0) {
+                    return Outcome.CONTRADICTION;
+                }
+
+                // Every other rule of the first place that contains all the places
+                for (int r = 0; r < grid.getNumberOfRules(places[0]); r++) {
+                    int other = grid.getRuleOf(places[0], r);
+                    if (other == indexRule || !containsAll(grid, other, count)) {
+                        continue;
+                    }
+                    for (int k = 0; k < grid.getNumberOfCells(other); k++) {
+                        int cellId = grid.getCellOf(other, k);
+                        if ((grid.getDomain(cellId) & bit) != 0L
+                                && !grid.isCellInRule(cellId, indexRule)
+                                && grid.eliminate(cellId, bit)) {
+                            outcome = Outcome.CHANGED;
+                        }
+                    }
+                }
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Checks if a rule contains the first {@code count} places.
+     *
+     * @param grid      the grid
+     * @param indexRule the index of the rule
+     * @param count     the number of places
+     * @return true if every place is a cell of the rule
+     */
+    private boolean containsAll(Grid grid, int indexRule, int count) {
+        for (int i = 1; i < count; i++) {
+            if (!grid.isCellInRule(places[i], indexRule)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,33 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+import utils.BucketQueue;
+
+/**
+ * Naked singles: an empty cell with a single candidate gets that candidate.
+ * <p>
+ * The cells are read from the bucket of size 1 of the {@link Grid#getDomainQueue() domain queue},
+ * so the technique costs nothing when there is no single.
+ */
+public class NakedSingles implements Technique {
+
+    @Override
+    public String getName() {
+        return "naked-singles";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        BucketQueue queue = grid.getDomainQueue();
+        Outcome outcome = Outcome.UNCHANGED;
+        while (queue.getBucketSize(1) > 0) {
+            int cellId = queue.getFirst(1);
+            grid.insertValue(cellId, Long.numberOfTrailingZeros(grid.getDomain(cellId)));
+            outcome = Outcome.CHANGED;
+            if (queue.getBucketSize(0) > 0) {
+                return Outcome.CONTRADICTION;
+            }
+        }
+        return outcome;
+    }
+}
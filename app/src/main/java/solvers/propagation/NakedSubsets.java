@@ -0,0 +1,118 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+
+/**
+ * Naked pairs and triples: when {@code size} empty cells of a rule share only {@code size}
+ * candidates between them, those candidates go in those cells, so they are eliminated from the
+ * other cells of the rule. Fewer candidates than cells is a contradiction.
+ */
+public class NakedSubsets implements Technique {
+
+    private final int size;
+    private int[] cells = new int[0];
+    private long[] domains = new long[0];
+
+    /**
+     * Constructs the technique for subsets of the given size.
+     *
+     * @param size the number of cells of a subset, 2 for pairs and 3 for triples
+     */
+    public NakedSubsets(int size) {
+        if (size < 2 || size > 3) {
+            throw new IllegalArgumentException("[NakedSubsets] Only pairs and triples are supported");
+        }
+        this.size = size;
+    }
+
+    @Override
+    public String getName() {
+        return size == 2 ? "naked-pairs" : "naked-triples";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            // Empty cells small enough to be part of a subset
+            int count = 0;
+            int ruleCells = grid.getNumberOfCells(indexRule);
+            if (cells.length < ruleCells) {
+                cells = new int[ruleCells];
+                domains = new long[ruleCells];
+            }
+            for (int k = 0; k < ruleCells; k++) {
+                int cellId = grid.getCellOf(indexRule, k);
+                long domain = grid.getDomain(cellId);
+                int candidates = Long.bitCount(domain);
+                if (grid.getValue(cellId) == Grid.EMPTY && candidates >= 2 && candidates <= size) {
+                    cells[count] = cellId;
+                    domains[count] = domain;
+                    count++;
+                }
+            }
+            if (count < size) {
+                continue;
+            }
+
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    long pair = domains[i] | domains[j];
+                    if (size == 2) {
+                        Outcome result = eliminate(grid, indexRule, pair, cells[i], cells[j], -1);
+                        if (result == Outcome.CONTRADICTION) {
+                            return result;
+                        }
+                        if (result == Outcome.CHANGED) {
+                            outcome = result;
+                        }
+                        continue;
+                    }
+                    if (Long.bitCount(pair) > size) {
+                        continue;
+                    }
+                    for (int l = j + 1; l < count; l++) {
+                        Outcome result = eliminate(grid, indexRule, pair | domains[l], cells[i], cells[j], cells[l]);
+                        if (result == Outcome.CONTRADICTION) {
+                            return result;
+                        }
+                        if (result == Outcome.CHANGED) {
+                            outcome = result;
+                        }
+                    }
+                }
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Eliminates the candidates of a subset from the other cells of a rule, if the subset is naked.
+     *
+     * @param grid      the grid
+     * @param indexRule the index of the rule
+     * @param union     the candidates of the cells of the subset
+     * @param first     the first cell of the subset
+     * @param second    the second cell of the subset
+     * @param third     the third cell of the subset, or -1 for a pair
+     * @return the outcome of the elimination
+     */
+    private Outcome eliminate(Grid grid, int indexRule, long union, int first, int second, int third) {
+        int candidates = Long.bitCount(union);
+        if (candidates < size) {
+            return Outcome.CONTRADICTION;
+        }
+        if (candidates > size) {
+            return Outcome.UNCHANGED;
+        }
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+            int cellId = grid.getCellOf(indexRule, k);
+            if (cellId != first && cellId != second && cellId != third
+                    && (grid.getDomain(cellId) & union) != 0L && grid.eliminate(cellId, union)) {
+                outcome = Outcome.CHANGED;
+            }
+        }
+        return outcome;
+    }
+}
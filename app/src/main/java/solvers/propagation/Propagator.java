@@ -0,0 +1,124 @@
+package solvers.propagation;
+
+import java.util.ArrayList;
+import java.util.List;
+import sudoku.Grid;
+import utils.BucketQueue;
+
+/**
+ * Runs a pipeline of {@link Technique techniques} on a grid until none of them deduces anything.
+ * <p>
+ * Techniques are run in their configured order. Whenever one of them changes the grid, the pipeline
+ * starts again from the first one, so cheap techniques are exhausted before expensive ones run. The
+ * pipeline stops at the first contradiction.
+ * <p>
+ * A pipeline is configured with a comma separated list of technique names, for instance
+ * {@code "naked-singles,hidden-singles,pointing-pairs"}. The solvers read it from the
+ * {@value #CONFIGURATION_PROPERTY} system property, {@value #DEFAULT_CONFIGURATION} by default.
+ */
+public class Propagator {
+
+    /**
+     * System property holding the techniques used by the solvers.
+     */
+    public static final String CONFIGURATION_PROPERTY = "sudoku.techniques";
+
+    /**
+     * Techniques used when the system property is not set.
+     */
+    public static final String DEFAULT_CONFIGURATION = "naked-singles,hidden-singles,pointing-pairs,box-line-reduction";
+
+    /**
+     * Every technique, from the cheapest to the most expensive.
+     */
+    public static final String ALL_TECHNIQUES = "naked-singles,hidden-singles,pointing-pairs,box-line-reduction,"
+            + "naked-pairs,hidden-pairs,naked-triples,hidden-triples,x-wing,all-different";
+
+    private final List<Technique> techniques;
+
+    /**
+     * Constructs a pipeline running the given techniques in order.
+     *
+     * @param techniques the techniques, from the first one to run to the last one
+     */
+    public Propagator(List<Technique> techniques) {
+        this.techniques = List.copyOf(techniques);
+    }
+
+    /**
+     * Creates the pipeline configured by the {@value #CONFIGURATION_PROPERTY} system property.
+     *
+     * @return the configured pipeline
+     */
+    public static Propagator configured() {
+        return fromConfiguration(System.getProperty(CONFIGURATION_PROPERTY, DEFAULT_CONFIGURATION));
+    }
+
+    /**
+     * Creates a pipeline from a comma separated list of technique names. An empty list gives a
+     * pipeline that deduces nothing.
+     *
+     * @param configuration the names of the techniques, in the order they run
+     * @return the pipeline
+     * @throws IllegalArgumentException if a name is unknown
+     */
+    public static Propagator fromConfiguration(String configuration) {
+        List<Technique> techniques = new ArrayList<>();
+        for (String name : configuration.split(",")) {
+            if (!name.isBlank()) {
+                techniques.add(createTechnique(name.trim()));
+            }
+        }
+        return new Propagator(techniques);
+    }
+
+    /**
+     * Creates a technique from its name.
+     *
+     * @param name the name of the technique
+     * @return a new instance of the technique
+     * @throws IllegalArgumentException if the name is unknown
+     */
+    public static Technique createTechnique(String name) {
+        return switch (name) {
+            case "naked-singles" -> new NakedSingles();
+            case "hidden-singles" -> new HiddenSingles();
+            case "naked-pairs" -> new NakedSubsets(2);
+            case "naked-triples" -> new NakedSubsets(3);
+            case "hidden-pairs" -> new HiddenSubsets(2);
+            case "hidden-triples" -> new HiddenSubsets(3);
+            case "pointing-pairs" -> new IntersectionRemoval(true);
+            case "box-line-reduction" -> new IntersectionRemoval(false);
+            case "x-wing" -> new XWing();
+            case "all-different" -> new AllDifferent();
+            default -> throw new IllegalArgumentException("[Propagator] Unknown technique: " + name);
+        };
+    }
+
+    /**
+     * Runs the techniques until none of them changes the grid or a contradiction is found.
+     * Deductions are recorded on the trail of the grid.
+     *
+     * @param grid the grid to propagate
+     * @return false if the grid has no solution, true otherwise
+     */
+    public boolean propagate(Grid grid) {
+        BucketQueue queue = grid.getDomainQueue();
+        int i = 0;
+        while (i < techniques.size()) {
+            if (queue.getBucketSize(0) > 0) {
+                return false;
+            }
+            Technique.Outcome outcome = techniques.get(i).apply(grid);
+            if (outcome == Technique.Outcome.CONTRADICTION) {
+                return false;
+            }
+            i = outcome == Technique.Outcome.CHANGED ? 0 : i + 1;
+        }
+        return queue.getBucketSize(0) == 0;
+    }
+
+    public List<Technique> getTechniques() {
+        return techniques;
+    }
+}
@@ -0,0 +1,40 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+
+/**
+ * A deduction technique run by a {@link Propagator}.
+ * <p>
+ * A technique reads the domains of the grid, then inserts values or eliminates candidates through
+ * {@link Grid#insertValue(int, int)} and {@link Grid#eliminate(int, long)}, so that every deduction
+ * is recorded on the trail and undone with the decision that led to it.
+ */
+public interface Technique {
+
+    /**
+     * Enum representing the result of one application of a technique.
+     */
+    enum Outcome {
+        /** Nothing was deduced. */
+        UNCHANGED,
+        /** At least one value was inserted or one candidate eliminated. */
+        CHANGED,
+        /** The grid has no solution in its current state. */
+        CONTRADICTION,
+    }
+
+    /**
+     * Gets the name of the technique, as used in the configuration of a {@link Propagator}.
+     *
+     * @return the name of the technique
+     */
+    String getName();
+
+    /**
+     * Applies the technique once to every rule of the grid.
+     *
+     * @param grid the grid to apply the technique to
+     * @return the outcome of the application
+     */
+    Outcome apply(Grid grid);
+}
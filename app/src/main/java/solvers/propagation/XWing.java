@@ -0,0 +1,122 @@
+package solvers.propagation;
+
+import sudoku.Grid;
+
+/**
+ * X-Wing: when a symbol can only go in two cells in each of two rules that must contain it, and
+ * those four cells are paired by two other rules, the symbol is in one diagonal of the rectangle.
+ * Each pairing rule then gets the symbol in one of its two cells of the rectangle, so the symbol is
+ * eliminated from its other cells.
+ * <p>
+ * On a classic grid, the two rules are rows and the pairing rules columns, or the other way round.
+ */
+public class XWing implements Technique {
+
+    private int[] rules = new int[0];
+    private int[] firstPlaces = new int[0];
+    private int[] secondPlaces = new int[0];
+
+    @Override
+    public String getName() {
+        return "x-wing";
+    }
+
+    @Override
+    public Outcome apply(Grid grid) {
+        int ruleCount = grid.getRules().size();
+        if (rules.length < ruleCount) {
+            rules = new int[ruleCount];
+            firstPlaces = new int[ruleCount];
+            secondPlaces = new int[ruleCount];
+        }
+        Outcome outcome = Outcome.UNCHANGED;
+        for (int symbol = 0; symbol < grid.getAlphabetSize(); symbol++) {
+            long bit = 1L << symbol;
+
+            // Rules where the symbol has exactly two places
+            int count = 0;
+            for (int indexRule = 0; indexRule < ruleCount; indexRule++) {
+                if (!grid.mustContainAllSymbols(indexRule)
+                        || (grid.getRuleSymbolsMask(indexRule) & ~grid.getUsedMask(indexRule) & bit) == 0L) {
+                    continue;
+                }
+                int places = 0;
+                for (int k = 0; k < grid.getNumberOfCells(indexRule) && places <= 2; k++) {
+                    int cellId = grid.getCellOf(indexRule, k);
+                    if ((grid.getDomain(cellId) & bit) != 0L) {
+                        if (places == 0) {
+                            firstPlaces[count] = cellId;
+                        } else {
+                            secondPlaces[count] = cellId;
+                        }
+                        places++;
+                    }
+                }
+                if (places == 2) {
+                    rules[count++] = indexRule;
+                }
+            }
+
+            for (int i = 0; i < count; i++) {
+                for (int j = i + 1; j < count; j++) {
+                    if (eliminate(grid, bit, firstPlaces[i], secondPlaces[i], firstPlaces[j], secondPlaces[j])
+                            | eliminate(grid, bit, firstPlaces[i], secondPlaces[i], secondPlaces[j], firstPlaces[j])) {
+                        outcome = Outcome.CHANGED;
+                    }
+                }
+            }
+        }
+        return outcome;
+    }
+
+    /**
+     * Eliminates the symbol from the pairing rules of a rectangle, the first pairing rule containing
+     * {@code a1} and {@code a2} and the second one {@code b1} and {@code b2}.
+     *
+     * @param grid the grid
+     * @param bit  the mask of the symbol
+     * @param a1   the first place in the first rule
+     * @param b1   the second place in the first rule
+     * @param a2   the place in the second rule paired with {@code a1}
+     * @param b2   the place in the second rule paired with {@code b1}
+     * @return true if a candidate was eliminated
+     */
+    private boolean eliminate(Grid grid, long bit, int a1, int b1, int a2, int b2) {
+        if (a1 == a2 || a1 == b2 || b1 == a2 || b1 == b2) {
+            return false;
+        }
+        boolean changed = false;
+        for (int r = 0; r < grid.getNumberOfRules(a1); r++) {
+            int first = grid.getRuleOf(a1, r);
+            if (!grid.isCellInRule(a2, first)) {
+                continue;
+            }
+            for (int s = 0; s < grid.getNumberOfRules(b1); s++) {
+                int second = grid.getRuleOf(b1, s);
+                if (second == first || !grid.isCellInRule(b2, second)) {
+                    continue;
+                }
+                changed |= eliminateOutside(grid, first, bit, a1, b1, a2, b2);
+                changed |= eliminateOutside(grid, second, bit, a1, b1, a2, b2);
+            }
+        }
+        return changed;
+    }
+
+    /**
+     * Eliminates the symbol from the cells of a rule outside of the rectangle.
+     *
+     * @return true if a candidate was eliminated
+     */
+    private boolean eliminateOutside(Grid grid, int indexRule, long bit, int a1, int b1, int a2, int b2) {
+        boolean changed = false;
+        for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+            int cellId = grid.getCellOf(indexRule, k);
+            if (cellId != a1 && cellId != b1 && cellId != a2 && cellId != b2
+                    && (grid.getDomain(cellId) & bit) != 0L) {
+                changed |= grid.eliminate(cellId, bit);
+            }
+        }
+        return changed;
+    }
+}
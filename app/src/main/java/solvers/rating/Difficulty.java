@@ -0,0 +1,50 @@
+package solvers.rating;
+
+import java.util.List;
+
+/**
+ * Enum representing the difficulty bands of the {@link DifficultyRater}, from the easiest to the
+ * hardest.
+ * <p>
+ * Each band lists the {@link solvers.propagation.Technique techniques} it adds to the ladder, by
+ * their names in the {@link solvers.propagation.Propagator}, and the weight of one deduction made
+ * with them in the score of a puzzle.
+ */
+public enum Difficulty {
+    /** Singles only. */
+    EASY(1, "naked-singles", "hidden-singles"),
+    /** Intersections between blocks and lines. */
+    MEDIUM(4, "pointing-pairs", "box-line-reduction"),
+    /** Naked and hidden subsets. */
+    HARD(10, "naked-pairs", "hidden-pairs", "naked-triples", "hidden-triples"),
+    /** Fish. */
+    EXPERT(25, "x-wing"),
+    /** Beyond the ladder: the puzzle cannot be solved without guessing. */
+    EXTREME(100);
+
+    private final int weight;
+    private final List<String> techniques;
+
+    Difficulty(int weight, String... techniques) {
+        this.weight = weight;
+        this.techniques = List.of(techniques);
+    }
+
+    /**
+     * Gets the weight of one deduction made with a technique of this band.
+     *
+     * @return the weight of a deduction
+     */
+    public int getWeight() {
+        return weight;
+    }
+
+    /**
+     * Gets the names of the techniques of this band, from the cheapest to the most expensive.
+     *
+     * @return the names of the techniques, empty for {@link #EXTREME}
+     */
+    public List<String> getTechniques() {
+        return techniques;
+    }
+}
@@ -0,0 +1,79 @@
+package solvers.rating;
+
+/**
+ * The rating of a puzzle by the {@link DifficultyRater}.
+ * <p>
+ * A step is a single deduction, that is a value inserted or a candidate eliminated. The score sums
+ * the {@link Difficulty#getWeight() weight} of every step, so two puzzles of the same band are
+ * ordered by how much work they take.
+ */
+public class Rating {
+
+    private final Difficulty difficulty;
+    private final String hardestTechnique;
+    private final int steps;
+    private final int score;
+    private final boolean contradiction;
+
+    /**
+     * Constructs a rating.
+     *
+     * @param difficulty       the band of the hardest technique needed, {@link Difficulty#EXTREME}
+     *                         if the ladder could not finish the puzzle
+     * @param hardestTechnique the name of the hardest technique used, null if none was
+     * @param steps            the number of deductions made
+     * @param score            the weighted number of deductions
+     * @param contradiction    true if the techniques proved that the puzzle has no solution
+     */
+    public Rating(Difficulty difficulty, String hardestTechnique, int steps, int score, boolean contradiction) {
+        this.difficulty = difficulty;
+        this.hardestTechnique = hardestTechnique;
+        this.steps = steps;
+        this.score = score;
+        this.contradiction = contradiction;
+    }
+
+    public Difficulty getDifficulty() {
+        return difficulty;
+    }
+
+    public String getHardestTechnique() {
+        return hardestTechnique;
+    }
+
+    public int getSteps() {
+        return steps;
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    /**
+     * Checks if the techniques solved the puzzle, in which case its solution is unique.
+     *
+     * @return true if the puzzle was solved without guessing
+     */
+    public boolean isSolved() {
+        return difficulty != Difficulty.EXTREME;
+    }
+
+    /**
+     * Checks if the techniques proved that the puzzle has no solution.
+     *
+     * @return true if a contradiction was found
+     */
+    public boolean isContradiction() {
+        return contradiction;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%s (%s, %d steps, score %d)",
+            contradiction ? "CONTRADICTION" : difficulty,
+            hardestTechnique == null ? "no technique" : hardestTechnique,
+            steps, score
+        );
+    }
+}
@@ -0,0 +1,729 @@
+package solvers.sat;
+
+import java.util.Arrays;
+import java.util.function.BooleanSupplier;
+import solvers.RestartSchedule;
+
+/**
+ * A conflict-driven clause learning (CDCL) SAT solver.
+ * <p>
+ * Variables are numbered from 0. A literal is {@code 2 * variable} for the variable and
+ * {@code 2 * variable + 1} for its negation, so the negation of a literal is {@code literal ^ 1}.
+ * <p>
+ * The solver implements the usual techniques of MiniSat-like solvers:
+ * <ul>
+ *     <li>Two watched literals per clause: a clause is only visited when one of its two watched
+ *     literals becomes false</li>
+ *     <li>VSIDS: the variables of recent conflicts are bumped and the unassigned variable with the
+ *     highest activity is decided next, read from a binary heap</li>
+ *     <li>First unique implication point learning, with local minimization of the learned clause,
+ *     and non-chronological backjumping to the second highest level of the clause</li>
+ *     <li>Luby restarts with phase saving</li>
+ *     <li>Periodic reduction of the learned clauses, keeping the ones with a low literal block
+ *     distance and the ones that are the reason of an assignment</li>
+ * </ul>
+ * The clauses and their metadata are stored in parallel arrays indexed by clause, compacted after
+ * every reduction so that long runs do not keep the slots of the deleted clauses.
+ * <p>
+ * Clauses can be added between two calls to {@link #solve(BooleanSupplier)}, which makes
+ * incremental uses such as blocking found models cheap: learned clauses are kept. A search can also
+ * be run under assumptions, literals taken as the first decisions: they hold for this search only,
+ * and the clauses learned under them stay valid for the next searches.
+ */
+public class Cdcl {
+
+    /**
+     * The outcome of a call to {@link #solve(BooleanSupplier)}.
+     */
+    public enum Status {
+        SATISFIABLE,
+        UNSATISFIABLE,
+        /** The search was stopped before its end. */
+        UNKNOWN
+    }
+
+    private static final int UNASSIGNED = -1;
+    private static final int NO_REASON = -1;
+    private static final double VARIABLE_DECAY = 0.95;
+    private static final double RESCALE_LIMIT = 1e100;
+    private static final RestartSchedule RESTARTS = RestartSchedule.luby(100);
+    private static final int[] NO_ASSUMPTIONS = new int[0];
+
+    private final int variableCount;
+    private int[][] clauses = new int[64][];
+    private boolean[] learned = new boolean[64];
+    private int[] lbds = new int[64];
+    private int clauseCount;
+    private final int[][] watches;
+    private final int[] watchSizes;
+
+    private final byte[] values;
+    private final int[] levels;
+    private final int[] reasons;
+    private final boolean[] phases;
+    private final int[] trail;
+    private int trailSize;
+    private int propagationHead;
+    private int[] levelStarts = new int[16];
+    private int decisionLevel;
+
+    private final double[] activities;
+    private double activityIncrement = 1.0;
+    private final int[] heap;
+    private final int[] heapIndexes;
+    private int heapSize;
+
+    private final boolean[] seen;
+    private int[] learnedClause;
+    private final int[] toClear;
+    private int toClearSize;
+    private int[] levelStamps;
+    private int stamp;
+
+    private long[] reductionKeys = new long[0];
+    private int[] remap = new int[0];
+
+    private int[] assumptions = NO_ASSUMPTIONS;
+    private int assumptionCount;
+
+    private final boolean[] model;
+    private boolean inconsistent;
+    private int learnedCount;
+    private int maxLearned;
+    private long conflicts;
+    private long decisions;
+    private long propagations;
+    private int restarts;
+
+    /**
+     * Constructs a solver without clauses.
+     *
+     * @param variableCount the number of variables
+     */
+    public Cdcl(int variableCount) {
+        this.variableCount = variableCount;
+        this.watches = new int[2 * variableCount][];
+        this.watchSizes = new int[2 * variableCount];
+        for (int literal = 0; literal < 2 * variableCount; literal++) {
+            this.watches[literal] = new int[4];
+        }
+        this.values = new byte[variableCount];
+        Arrays.fill(this.values, (byte) UNASSIGNED);
+        this.levels = new int[variableCount];
+        this.reasons = new int[variableCount];
+        this.phases = new boolean[variableCount];
+        this.trail = new int[variableCount];
+        this.activities = new double[variableCount];
+        this.heap = new int[variableCount];
+        this.heapIndexes = new int[variableCount];
+        for (int variable = 0; variable < variableCount; variable++) {
+            this.heap[variable] = variable;
+            this.heapIndexes[variable] = variable;
+        }
+        this.heapSize = variableCount;
+        this.seen = new boolean[variableCount];
+        this.toClear = new int[variableCount];
+        this.learnedClause = new int[16];
+        this.levelStamps = new int[variableCount + 1];
+        this.model = new boolean[variableCount];
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    /**
+     * Gets the number of clauses, learned ones included.
+     */
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    public long getConflicts() {
+        return conflicts;
+    }
+
+    public long getDecisions() {
+        return decisions;
+    }
+
+    public long getPropagations() {
+        return propagations;
+    }
+
+    public int getRestarts() {
+        return restarts;
+    }
+
+    /**
+     * Creates the literal of a variable.
+     *
+     * @param variable the variable
+     * @param positive true for the variable, false for its negation
+     * @return the literal
+     */
+    public static int literal(int variable, boolean positive) {
+        return positive ? 2 * variable : 2 * variable + 1;
+    }
+
+    /**
+     * Adds a clause. The search goes back to level 0 first, so clauses can be added after a
+     * solution was found.
+     *
+     * @param literals the literals of the clause, any of which makes it true
+     * @return false if the solver is now known to be unsatisfiable
+     */
+    public boolean addClause(int... literals) {
+        cancelUntil(0);
+        if (inconsistent) {
+            return false;
+        }
+        int[] clause = literals.clone();
+        Arrays.sort(clause);
+        int size = 0;
+        for (int k = 0; k < clause.length; k++) {
+            int literal = clause[k];
+            int value = value(literal);
+            if (value == 1 || (size > 0 && clause[size - 1] == (literal ^ 1))) {
+                // Satisfied at level 0 or tautology
+                return true;
+            }
+            if (value == 0 || (size > 0 && clause[size - 1] == literal)) {
+                continue;
+            }
+            clause[size++] = literal;
+        }
+        if (size == 0) {
+            inconsistent = true;
+            return false;
+        }
+        if (size == 1) {
+            enqueue(clause[0], NO_REASON);
+            if (propagate() != NO_REASON) {
+                inconsistent = true;
+            }
+            return !inconsistent;
+        }
+        attach(Arrays.copyOf(clause, size), false, 0);
+        return true;
+    }
+
+    /**
+     * Searches a model of the clauses.
+     *
+     * @param stop checked before every decision, the search returns {@link Status#UNKNOWN} when it
+     *             answers true
+     * @return the outcome of the search
+     */
+    public Status solve(BooleanSupplier stop) {
+        return solve(NO_ASSUMPTIONS, 0, stop);
+    }
+
+    /**
+     * Searches a model of the clauses in which the given literals are true. The assumptions are
+     * decided first, one per decision level, so the search is unsatisfiable under them without
+     * the clauses being refuted: the solver can be searched again under other assumptions.
+     *
+     * @param assumptions     the literals assumed true, which the solver does not keep
+     * @param assumptionCount the number of assumptions at the start of the array
+     * @param stop            checked before every decision, the search returns
+     *                        {@link Status#UNKNOWN} when it answers true
+     * @return the outcome of the search
+     */
+    public Status solve(int[] assumptions, int assumptionCount, BooleanSupplier stop) {
+        this.assumptions = assumptions;
+        this.assumptionCount = assumptionCount;
+        if (levelStamps.length <= variableCount + assumptionCount) {
+            // Assumptions already true take a level without assigning a variable
+            levelStamps = new int[variableCount + assumptionCount + 1];
+        }
+        cancelUntil(0);
+        if (inconsistent || propagate() != NO_REASON) {
+            inconsistent = true;
+            return Status.UNSATISFIABLE;
+        }
+        if (maxLearned == 0) {
+            maxLearned = Math.max(clauseCount / 3, 1000);
+        }
+        for (int run = 0; ; run++) {
+            Status status = search(RESTARTS.getLimit(run), stop);
+            if (status != null) {
+                return status;
+            }
+            restarts++;
+        }
+    }
+
+    /**
+     * Gets the value of a variable in the model found by the last successful search. The model is
+     * kept when clauses are added afterwards.
+     *
+     * @param variable the variable
+     * @return true if the variable is true in the model
+     */
+    public boolean getModelValue(int variable) {
+        return model[variable];
+    }
+
+    /**
+     * Searches until a model is found, the clauses are refuted or the number of conflicts of the
+     * run is reached.
+     *
+     * @param conflictLimit the number of conflicts after which the search restarts
+     * @param stop          the stop condition
+     * @return the outcome, or null to restart
+     */
+    private Status search(long conflictLimit, BooleanSupplier stop) {
+        long runConflicts = 0;
+        while (true) {
+            int conflict = propagate();
+            if (conflict != NO_REASON) {
+                conflicts++;
+                runConflicts++;
+                if (decisionLevel == 0) {
+                    inconsistent = true;
+                    return Status.UNSATISFIABLE;
+                }
+                int size = analyze(conflict);
+                int backjumpLevel = size == 1 ? 0 : levels[learnedClause[1] >> 1];
+                cancelUntil(backjumpLevel);
+                if (size == 1) {
+                    enqueue(learnedClause[0], NO_REASON);
+                } else {
+                    int[] clause = Arrays.copyOf(learnedClause, size);
+                    int index = attach(clause, true, computeLbd(clause));
+                    enqueue(clause[0], index);
+                }
+                decayActivities();
+                continue;
+            }
+            if (runConflicts >= conflictLimit) {
+                cancelUntil(0);
+                return null;
+            }
+            if (learnedCount - trailSize >= maxLearned) {
+                reduceLearned();
+            }
+            if (stop.getAsBoolean()) {
+                return Status.UNKNOWN;
+            }
+            int next = -1;
+            while (decisionLevel < assumptionCount) {
+                int assumption = assumptions[decisionLevel];
+                int value = value(assumption);
+                if (value == 0) {
+                    return Status.UNSATISFIABLE;
+                }
+                if (value == UNASSIGNED) {
+                    next = assumption;
+                    break;
+                }
+                // Already true: an empty level keeps one level per assumption
+                newDecisionLevel();
+            }
+            if (next < 0) {
+                int variable = pickBranchVariable();
+                if (variable < 0) {
+                    for (int v = 0; v < variableCount; v++) {
+                        model[v] = values[v] == 1;
+                    }
+                    return Status.SATISFIABLE;
+                }
+                next = literal(variable, phases[variable]);
+            }
+            decisions++;
+            newDecisionLevel();
+            enqueue(next, NO_REASON);
+        }
+    }
+
+    /* Assignment and propagation */
+
+    /**
+     * Gets the value of a literal.
+     *
+     * @return 1 if true, 0 if false, -1 if unassigned
+     */
+    private int value(int literal) {
+        int value = values[literal >> 1];
+        return value == UNASSIGNED ? UNASSIGNED : value ^ (literal & 1);
+    }
+
+    private void enqueue(int literal, int reason) {
+        int variable = literal >> 1;
+        values[variable] = (byte) ((literal & 1) ^ 1);
+        levels[variable] = decisionLevel;
+        reasons[variable] = reason;
+        trail[trailSize++] = literal;
+    }
+
+    private void newDecisionLevel() {
+        if (decisionLevel + 1 == levelStarts.length) {
+            levelStarts = Arrays.copyOf(levelStarts, levelStarts.length * 2);
+        }
+        levelStarts[++decisionLevel] = trailSize;
+    }
+
+    /**
+     * Undoes the assignments of the levels above the given one, saving their phases.
+     *
+     * @param level the level to go back to
+     */
+    private void cancelUntil(int level) {
+        if (decisionLevel <= level) {
+            return;
+        }
+        int start = levelStarts[level + 1];
+        for (int k = trailSize - 1; k >= start; k--) {
+            int variable = trail[k] >> 1;
+            phases[variable] = values[variable] == 1;
+            values[variable] = (byte) UNASSIGNED;
+            reasons[variable] = NO_REASON;
+            if (heapIndexes[variable] < 0) {
+                heapInsert(variable);
+            }
+        }
+        trailSize = start;
+        propagationHead = Math.min(propagationHead, start);
+        decisionLevel = level;
+    }
+
+    /**
+     * Propagates the assignments of the trail through the watched literals.
+     *
+     * @return the index of a falsified clause, or -1 if there is none
+     */
+    private int propagate() {
+        while (propagationHead < trailSize) {
+            int falseLiteral = trail[propagationHead++] ^ 1;
+            propagations++;
+            int[] list = watches[falseLiteral];
+            int size = watchSizes[falseLiteral];
+            int kept = 0;
+            int k = 0;
+            while (k < size) {
+                int index = list[k++];
+                int[] clause = clauses[index];
+                if (clause[0] == falseLiteral) {
+                    clause[0] = clause[1];
+                    clause[1] = falseLiteral;
+                }
+                if (value(clause[0]) == 1) {
+                    list[kept++] = index;
+                    continue;
+                }
+                boolean moved = false;
+                for (int j = 2; j < clause.length; j++) {
+                    if (value(clause[j]) != 0) {
+                        clause[1] = clause[j];
+                        clause[j] = falseLiteral;
+                        watch(clause[1], index);
+                        moved = true;
+                        break;
+                    }
+                }
+                if (moved) {
+                    continue;
+                }
+                list[kept++] = index;
+                if (value(clause[0]) == 0) {
+                    // Conflict: keep the remaining watches
+                    while (k < size) {
+                        list[kept++] = list[k++];
+                    }
+                    watchSizes[falseLiteral] = kept;
+                    propagationHead = trailSize;
+                    return index;
+                }
+                enqueue(clause[0], index);
+            }
+            watchSizes[falseLiteral] = kept;
+        }
+        return NO_REASON;
+    }
+
+    private void watch(int literal, int index) {
+        if (watchSizes[literal] == watches[literal].length) {
+            watches[literal] = Arrays.copyOf(watches[literal], watches[literal].length * 2);
+        }
+        watches[literal][watchSizes[literal]++] = index;
+    }
+
+    private int attach(int[] clause, boolean isLearned, int lbd) {
+        if (clauseCount == clauses.length) {
+            int capacity = clauseCount * 2;
+            clauses = Arrays.copyOf(clauses, capacity);
+            learned = Arrays.copyOf(learned, capacity);
+            lbds = Arrays.copyOf(lbds, capacity);
+        }
+        int index = clauseCount++;
+        clauses[index] = clause;
+        learned[index] = isLearned;
+        lbds[index] = lbd;
+        if (isLearned) {
+            learnedCount++;
+        }
+        watch(clause[0], index);
+        watch(clause[1], index);
+        return index;
+    }
+
+    /* Conflict analysis */
+
+    /**
+     * Derives the first unique implication point clause of a conflict into {@link #learnedClause}.
+     * The asserting literal is put first and a literal of the highest remaining level second.
+     *
+     * @param conflict the index of the falsified clause
+     * @return the size of the learned clause
+     */
+    private int analyze(int conflict) {
+        int size = 1;
+        int pending = 0;
+        int literal = -1;
+        int index = trailSize - 1;
+        do {
+            int[] clause = clauses[conflict];
+            if (learned[conflict]) {
+                lbds[conflict] = Math.min(lbds[conflict], computeLbd(clause));
+            }
+            for (int j = literal == -1 ? 0 : 1; j < clause.length; j++) {
+                int q = clause[j];
+                int variable = q >> 1;
+                if (!seen[variable] && levels[variable] > 0) {
+                    bumpActivity(variable);
+                    seen[variable] = true;
+                    toClear[toClearSize++] = variable;
+                    if (levels[variable] >= decisionLevel) {
+                        pending++;
+                    } else {
+                        if (size == learnedClause.length) {
+                            learnedClause = Arrays.copyOf(learnedClause, size * 2);
+                        }
+                        learnedClause[size++] = q;
+                    }
+                }
+            }
+            while (!seen[trail[index] >> 1]) {
+                index--;
+            }
+            literal = trail[index--];
+            conflict = reasons[literal >> 1];
+            pending--;
+        } while (pending > 0);
+        learnedClause[0] = literal ^ 1;
+
+        // Local minimization: drop the literals implied by the other ones
+        int kept = 1;
+        for (int k = 1; k < size; k++) {
+            int reason = reasons[learnedClause[k] >> 1];
+            if (reason == NO_REASON || !isImpliedBySeen(clauses[reason])) {
+                learnedClause[kept++] = learnedClause[k];
+            }
+        }
+        size = kept;
+
+        // A literal of the highest level of the rest goes second, to be watched
+        int highest = 1;
+        for (int k = 2; k < size; k++) {
+            if (levels[learnedClause[k] >> 1] > levels[learnedClause[highest] >> 1]) {
+                highest = k;
+            }
+        }
+        if (size > 1) {
+            int swap = learnedClause[1];
+            learnedClause[1] = learnedClause[highest];
+            learnedClause[highest] = swap;
+        }
+
+        for (int k = 0; k < toClearSize; k++) {
+            seen[toClear[k]] = false;
+        }
+        toClearSize = 0;
+        return size;
+    }
+
+    /**
+     * Checks if every literal of a reason clause, except the implied one, is in the learned clause
+     * or assigned at level 0.
+     */
+    private boolean isImpliedBySeen(int[] reason) {
+        for (int j = 1; j < reason.length; j++) {
+            int variable = reason[j] >> 1;
+            if (!seen[variable] && levels[variable] > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Computes the literal block distance of a clause: the number of distinct decision levels of
+     * its literals.
+     */
+    private int computeLbd(int[] clause) {
+        stamp++;
+        int lbd = 0;
+        for (int literal : clause) {
+            int level = levels[literal >> 1];
+            if (levelStamps[level] != stamp) {
+                levelStamps[level] = stamp;
+                lbd++;
+            }
+        }
+        return lbd;
+    }
+
+    /**
+     * Deletes half of the learned clauses, the ones with the highest literal block distance first.
+     * Binary clauses, clauses of distance 2 and the reasons of current assignments are kept. The
+     * clause store is then compacted, and the watch lists and reasons follow the new indexes.
+     */
+    private void reduceLearned() {
+        if (reductionKeys.length < clauseCount) {
+            reductionKeys = new long[clauses.length];
+            remap = new int[clauses.length];
+        }
+        // Sorted on the distance then the index, both fitting in the key
+        int candidates = 0;
+        for (int index = 0; index < clauseCount; index++) {
+            int[] clause = clauses[index];
+            remap[index] = index;
+            if (learned[index] && clause.length > 2 && lbds[index] > 2 && !isReason(clause, index)) {
+                reductionKeys[candidates++] = ((long) lbds[index] << 32) | index;
+            }
+        }
+        Arrays.sort(reductionKeys, 0, candidates);
+        int deleted = candidates / 2;
+        for (int k = candidates - deleted; k < candidates; k++) {
+            remap[(int) reductionKeys[k]] = NO_REASON;
+        }
+        learnedCount -= deleted;
+
+        int kept = 0;
+        for (int index = 0; index < clauseCount; index++) {
+            if (remap[index] == NO_REASON) {
+                continue;
+            }
+            clauses[kept] = clauses[index];
+            learned[kept] = learned[index];
+            lbds[kept] = lbds[index];
+            remap[index] = kept++;
+        }
+        Arrays.fill(clauses, kept, clauseCount, null);
+        clauseCount = kept;
+
+        for (int literal = 0; literal < 2 * variableCount; literal++) {
+            int[] list = watches[literal];
+            int size = 0;
+            for (int k = 0; k < watchSizes[literal]; k++) {
+                int index = remap[list[k]];
+                if (index != NO_REASON) {
+                    list[size++] = index;
+                }
+            }
+            watchSizes[literal] = size;
+        }
+        for (int k = 0; k < trailSize; k++) {
+            int variable = trail[k] >> 1;
+            if (reasons[variable] != NO_REASON) {
+                reasons[variable] = remap[reasons[variable]];
+            }
+        }
+        maxLearned += maxLearned / 10;
+    }
+
+    private boolean isReason(int[] clause, int index) {
+        int variable = clause[0] >> 1;
+        return reasons[variable] == index && value(clause[0]) == 1;
+    }
+
+    /* VSIDS */
+
+    private void bumpActivity(int variable) {
+        activities[variable] += activityIncrement;
+        if (activities[variable] > RESCALE_LIMIT) {
+            for (int v = 0; v < variableCount; v++) {
+                activities[v] *= 1 / RESCALE_LIMIT;
+            }
+            activityIncrement *= 1 / RESCALE_LIMIT;
+        }
+        if (heapIndexes[variable] >= 0) {
+            siftUp(heapIndexes[variable]);
+        }
+    }
+
+    private void decayActivities() {
+        activityIncrement /= VARIABLE_DECAY;
+    }
+
+    /**
+     * Removes unassigned variables from the heap until the one with the highest activity is found.
+     *
+     * @return the variable, or -1 if every variable is assigned
+     */
+    private int pickBranchVariable() {
+        while (heapSize > 0) {
+            int variable = heapRemoveMax();
+            if (values[variable] == UNASSIGNED) {
+                return variable;
+            }
+        }
+        return -1;
+    }
+
+    private void heapInsert(int variable) {
+        heap[heapSize] = variable;
+        heapIndexes[variable] = heapSize;
+        heapSize++;
+        siftUp(heapSize - 1);
+    }
+
+    private int heapRemoveMax() {
+        int max = heap[0];
+        heapIndexes[max] = -1;
+        heapSize--;
+        if (heapSize > 0) {
+            heap[0] = heap[heapSize];
+            heapIndexes[heap[0]] = 0;
+            siftDown(0);
+        }
+        return max;
+    }
+
+    private void siftUp(int position) {
+        int variable = heap[position];
+        while (position > 0) {
+            int parent = (position - 1) >> 1;
+            if (activities[heap[parent]] >= activities[variable]) {
+                break;
+            }
+            heap[position] = heap[parent];
+            heapIndexes[heap[position]] = position;
+            position = parent;
+        }
+        heap[position] = variable;
+        heapIndexes[variable] = position;
+    }
+
+    private void siftDown(int position) {
+        int variable = heap[position];
+        while (true) {
+            int child = 2 * position + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && activities[heap[child + 1]] > activities[heap[child]]) {
+                child++;
+            }
+            if (activities[heap[child]] <= activities[variable]) {
+                break;
+            }
+            heap[position] = heap[child];
+            heapIndexes[heap[position]] = position;
+            position = child;
+        }
+        heap[position] = variable;
+        heapIndexes[variable] = position;
+    }
+}
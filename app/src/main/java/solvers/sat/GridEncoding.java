@@ -0,0 +1,257 @@
+package solvers.sat;
+
+import java.util.Arrays;
+import sudoku.Grid;
+
+/**
+ * Encodes the layout of a {@link Grid} as a SAT problem.
+ * <p>
+ * There is one variable per cell and symbol allowed by every rule of the cell. The clauses are:
+ * <ul>
+ *     <li>at least one symbol per cell</li>
+ *     <li>at most one symbol per cell</li>
+ *     <li>at most one cell per rule and symbol, and at least one when the rule must contain every
+ *     one of its symbols</li>
+ * </ul>
+ * The clauses do not depend on the values of the grid, which are given to the solver as
+ * {@link #getGivens(int[]) assumptions}. One encoding and its solver thus serve every puzzle of the
+ * layout, and what the solver learns on a puzzle helps with the next ones.
+ * At-most-one constraints over a few literals are encoded pairwise. Longer ones use the sequential
+ * counter encoding, which adds {@code n - 1} auxiliary variables and {@code 3n - 4} binary clauses
+ * instead of {@code n(n - 1) / 2} clauses, so 25x25 and larger grids stay compact.
+ */
+public final class GridEncoding {
+
+    /**
+     * Largest at-most-one constraint encoded pairwise.
+     */
+    private static final int PAIRWISE_LIMIT = 6;
+
+    private final Grid grid;
+    private final int symbolCount;
+    private final int[] variables;
+    private int[] cellOfVariable;
+    private int[] valueOfVariable;
+    private int cellVariableCount;
+    private int variableCount;
+    private int[][] clauses = new int[64][];
+    private int clauseCount;
+    private boolean unsatisfiable;
+
+    /**
+     * Encodes the layout of a grid.
+     *
+     * @param grid the grid, whose values are ignored
+     */
+    public GridEncoding(Grid grid) {
+        this.grid = grid;
+        this.symbolCount = grid.getAlphabetSize();
+        int cellCount = grid.getCellCount();
+        this.variables = new int[cellCount * symbolCount];
+        Arrays.fill(this.variables, -1);
+        this.cellOfVariable = new int[cellCount];
+        this.valueOfVariable = new int[cellCount];
+        this.encodeCells();
+        this.encodeRules();
+    }
+
+    /**
+     * Creates a variable for every allowed symbol of every cell, then the clauses of the cells. The
+     * auxiliary variables of the counters are created after the variables of the cells.
+     */
+    private void encodeCells() {
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            if (grid.getValue(cellId) == Grid.NO_CELL) {
+                continue;
+            }
+            for (long rest = getAllowedSymbols(cellId); rest != 0L; rest &= rest - 1) {
+                newCellVariable(cellId, Long.numberOfTrailingZeros(rest));
+            }
+        }
+        this.cellVariableCount = this.variableCount;
+
+        int[] literals = new int[symbolCount];
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            int size = 0;
+            for (int value = 0; value < symbolCount; value++) {
+                int variable = getVariable(cellId, value);
+                if (variable >= 0) {
+                    literals[size++] = Cdcl.literal(variable, true);
+                }
+            }
+            if (grid.getValue(cellId) != Grid.NO_CELL) {
+                addClause(Arrays.copyOf(literals, size));
+                atMostOne(literals, size);
+            }
+        }
+    }
+
+    /**
+     * Gets the symbols allowed in a cell by every one of its rules, whatever the values of the grid.
+     *
+     * @param cellId the id of the cell
+     * @return the mask of the symbols, {@code 0} if the cell is not covered by any rule
+     */
+    private long getAllowedSymbols(int cellId) {
+        if (grid.getNumberOfRules(cellId) == 0) {
+            return 0L;
+        }
+        long allowed = -1L;
+        for (int k = 0; k < grid.getNumberOfRules(cellId); k++) {
+            allowed &= grid.getRuleSymbolsMask(grid.getRuleOf(cellId, k));
+        }
+        return allowed;
+    }
+
+    /**
+     * Creates the clauses of every rule and symbol of the rule.
+     */
+    private void encodeRules() {
+        int[] literals = new int[grid.getCellCount()];
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            boolean mustContainAll = grid.mustContainAllSymbols(indexRule);
+            for (long rest = grid.getRuleSymbolsMask(indexRule); rest != 0L; rest &= rest - 1) {
+                int value = Long.numberOfTrailingZeros(rest);
+                int size = 0;
+                for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+                    int variable = getVariable(grid.getCellOf(indexRule, k), value);
+                    if (variable >= 0) {
+                        literals[size++] = Cdcl.literal(variable, true);
+                    }
+                }
+                if (mustContainAll) {
+                    addClause(Arrays.copyOf(literals, size));
+                }
+                atMostOne(literals, size);
+            }
+        }
+    }
+
+    /**
+     * Adds the clauses forbidding two of the given literals to be true together.
+     *
+     * @param literals the literals
+     * @param size     the number of literals
+     */
+    private void atMostOne(int[] literals, int size) {
+        if (size <= PAIRWISE_LIMIT) {
+            for (int i = 0; i < size; i++) {
+                for (int j = i + 1; j < size; j++) {
+                    addClause(new int[] {literals[i] ^ 1, literals[j] ^ 1});
+                }
+            }
+            return;
+        }
+        // Sequential counter: s_i is true when one of the first i + 1 literals is true
+        int previous = Cdcl.literal(newAuxiliaryVariable(), true);
+        addClause(new int[] {literals[0] ^ 1, previous});
+        for (int i = 1; i < size - 1; i++) {
+            int current = Cdcl.literal(newAuxiliaryVariable(), true);
+            addClause(new int[] {literals[i] ^ 1, current});
+            addClause(new int[] {previous ^ 1, current});
+            addClause(new int[] {literals[i] ^ 1, previous ^ 1});
+            previous = current;
+        }
+        addClause(new int[] {literals[size - 1] ^ 1, previous ^ 1});
+    }
+
+    private int newCellVariable(int cellId, int value) {
+        int variable = variableCount++;
+        if (variable == cellOfVariable.length) {
+            cellOfVariable = Arrays.copyOf(cellOfVariable, Math.max(variable * 2, 16));
+            valueOfVariable = Arrays.copyOf(valueOfVariable, Math.max(variable * 2, 16));
+        }
+        variables[cellId * symbolCount + value] = variable;
+        cellOfVariable[variable] = cellId;
+        valueOfVariable[variable] = value;
+        return variable;
+    }
+
+    private int newAuxiliaryVariable() {
+        return variableCount++;
+    }
+
+    private void addClause(int[] clause) {
+        if (clause.length == 0) {
+            unsatisfiable = true;
+            return;
+        }
+        if (clauseCount == clauses.length) {
+            clauses = Arrays.copyOf(clauses, clauseCount * 2);
+        }
+        clauses[clauseCount++] = clause;
+    }
+
+    /**
+     * Creates a SAT solver loaded with the clauses of the encoding.
+     *
+     * @return the solver
+     */
+    public Cdcl createSolver() {
+        Cdcl cdcl = new Cdcl(variableCount);
+        if (unsatisfiable) {
+            cdcl.addClause();
+        }
+        for (int i = 0; i < clauseCount; i++) {
+            cdcl.addClause(clauses[i]);
+        }
+        return cdcl;
+    }
+
+    /**
+     * Writes the literals of the current values of the grid, to be assumed by the solver.
+     *
+     * @param assumptions the array receiving the literals, with room for one per cell
+     * @return the number of literals, or -1 if a cell holds a symbol that its rules do not allow
+     */
+    public int getGivens(int[] assumptions) {
+        int size = 0;
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            int value = grid.getValue(cellId);
+            if (value < 0) {
+                continue;
+            }
+            int variable = getVariable(cellId, value);
+            if (variable < 0) {
+                return -1;
+            }
+            assumptions[size++] = Cdcl.literal(variable, true);
+        }
+        return size;
+    }
+
+    /**
+     * Gets the variable of a symbol in a cell.
+     *
+     * @param cellId the id of the cell
+     * @param value  the index of the symbol
+     * @return the variable, or -1 if the symbol is not allowed in the cell
+     */
+    public int getVariable(int cellId, int value) {
+        return variables[cellId * symbolCount + value];
+    }
+
+    /**
+     * Gets the number of variables standing for a symbol in a cell. They are numbered first, the
+     * auxiliary variables of the counters coming after them.
+     */
+    public int getCellVariableCount() {
+        return cellVariableCount;
+    }
+
+    public int getVariableCount() {
+        return variableCount;
+    }
+
+    public int getClauseCount() {
+        return clauseCount;
+    }
+
+    public int getCell(int variable) {
+        return cellOfVariable[variable];
+    }
+
+    public int getValue(int variable) {
+        return valueOfVariable[variable];
+    }
+}
@@ -0,0 +1,169 @@
+package solvers.sat;
+
+import java.util.function.BooleanSupplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.Solver;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * Solves a grid by encoding it with {@link GridEncoding} and searching a model with the
+ * {@link Cdcl} solver.
+ * <p>
+ * Clause learning shines on the grids where the other solvers thrash: large jigsaws and
+ * overlapping layouts, whose failures come from decisions made far above them. Every conflict
+ * becomes a clause, so the same failure is never explored twice.
+ * <p>
+ * The layout of the grid is encoded once, on the first search, and the values of the grid are
+ * given to the SAT solver as assumptions. A solver reused through {@link #load(int[])} thus keeps
+ * its encoding and everything it learned from one puzzle to the next, and
+ * {@link #hasOtherSolution(int, int)} only assumes one more literal.
+ * <p>
+ * Solutions are counted incrementally: once a model is found, a clause forbidding its assignment
+ * of the empty cells is added and the search starts again, keeping everything it learned. Those
+ * clauses only hold for the current puzzle, so counting runs on a SAT solver of its own, loaded
+ * from the same encoding.
+ */
+public class SatSolver extends Solver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        SatSolver.class
+    );
+
+    private Grid encodedGrid;
+    private GridEncoding encoding;
+    private Cdcl cdcl;
+    private int[] assumptions;
+    private int assumptionCount;
+    private final BooleanSupplier stop = this::shouldStop;
+
+    /**
+     * Constructs a {@code SatSolver} for the given Sudoku grid.
+     *
+     * @param grid The Sudoku grid to be solved.
+     * @see Solver#Solver(Grid)
+     */
+    public SatSolver(Grid grid) {
+        super(grid);
+        logger.info(
+            Colors.GREEN + "Starting SAT solver..." + Colors.RESET
+        );
+    }
+
+    /**
+     * Solves the grid and writes the model back into it. The grid is left untouched if it has no
+     * solution.
+     */
+    @Override
+    public void solve() {
+        Cdcl.Status status = prepare()
+            ? cdcl.solve(assumptions, assumptionCount, stop)
+            : Cdcl.Status.UNSATISFIABLE;
+        if (status == Cdcl.Status.UNKNOWN) {
+            logger.warn(
+                Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                getStopStatus()
+            );
+            return;
+        }
+        if (status == Cdcl.Status.UNSATISFIABLE) {
+            logger.error(
+                Colors.ERROR_COLOR + "Impossible to solve... Exiting" + Colors.RESET
+            );
+            return;
+        }
+        for (int variable = 0; variable < encoding.getCellVariableCount(); variable++) {
+            int cellId = encoding.getCell(variable);
+            if (cdcl.getModelValue(variable) && grid.getValue(cellId) == Grid.EMPTY) {
+                grid.insertValue(cellId, encoding.getValue(variable));
+            }
+        }
+        if (logger.isInfoEnabled()) {
+            logger.info(
+                Colors.SUCCESS_COLOR + "Solution found after {} conflicts and {} decisions!" + Colors.RESET,
+                cdcl.getConflicts(),
+                cdcl.getDecisions()
+            );
+        }
+    }
+
+    /**
+     * Counts the solutions by blocking every model found, stopping once {@code limit} are found.
+     * The grid is not modified.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
+    @Override
+    public int countSolutions(int limit) {
+        if (!prepare()) {
+            return 0;
+        }
+        Cdcl counter = encoding.createSolver();
+        int count = 0;
+        int[] blocking = new int[grid.getNumberOfEmptyCells()];
+        while (count < limit
+                && counter.solve(assumptions, assumptionCount, stop) == Cdcl.Status.SATISFIABLE) {
+            count++;
+            int size = 0;
+            for (int variable = 0; variable < encoding.getCellVariableCount(); variable++) {
+                if (counter.getModelValue(variable) && grid.getValue(encoding.getCell(variable)) == Grid.EMPTY) {
+                    blocking[size++] = Cdcl.literal(variable, false);
+                }
+            }
+            if (!counter.addClause(blocking)) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Checks for a solution in which the cell takes another value with a single search: the value
+     * is assumed false along with the values of the grid.
+     *
+     * @param cellId the id of the empty cell
+     * @param value  the index of the symbol the cell must not take
+     * @return true if such a solution exists or the search stopped before knowing
+     */
+    @Override
+    public boolean hasOtherSolution(int cellId, int value) {
+        if (!prepare()) {
+            return false;
+        }
+        int variable = encoding.getVariable(cellId, value);
+        int count = assumptionCount;
+        if (variable >= 0) {
+            assumptions[count++] = Cdcl.literal(variable, false);
+        }
+        return cdcl.solve(assumptions, count, stop) != Cdcl.Status.UNSATISFIABLE;
+    }
+
+    /**
+     * Starts a search: encodes the layout of the grid on the first search of the grid, then writes
+     * its values as the assumptions of the SAT solver.
+     *
+     * @return false if a value of the grid is not allowed in its cell
+     */
+    private boolean prepare() {
+        grid.resetTrail();
+        startSearch();
+        if (encodedGrid != grid) {
+            encodedGrid = grid;
+            encoding = new GridEncoding(grid);
+            cdcl = encoding.createSolver();
+            // One more slot for the value forbidden by hasOtherSolution
+            assumptions = new int[grid.getCellCount() + 1];
+        }
+        assumptionCount = encoding.getGivens(assumptions);
+        return assumptionCount >= 0;
+    }
+
+    /**
+     * Gets the SAT solver of the last search, to read its statistics.
+     */
+    public Cdcl getCdcl() {
+        return cdcl;
+    }
+}
@@ -1,15 +1,13 @@
 package solvers.wfc;
 
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.Random;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import solvers.RestartSchedule;
 import solvers.Solver;
 import sudoku.Grid;
-import sudoku.Position;
-import sudoku.rule.Rule;
+import utils.BucketQueue;
 import utils.Colors;
 
 /**
@@ -20,6 +18,17 @@ import utils.Colors;
  * algorithm, to find a solution to a given Sudoku grid. The solver iteratively collapses cells
  * with the minimum entropy until a solution is found or a contradiction is encountered,
  * requiring a rollback.
+ * <p>
+ * The entropy of a cell is the size of its domain. Cells are read from the
+ * {@link Grid#getDomainQueue() domain queue} of the grid, which keeps them bucketed by entropy as
+ * symbols are inserted and rolled back.
+ * <p>
+ * Random choices make the runtime heavy tailed, so {@link #solve()} restarts from the root once a
+ * run met as many contradictions as its {@link RestartSchedule} allows. A restart undoes the trail
+ * of the grid down to the checkpoint of the root and reseeds the generator with a seed derived
+ * from the seed of the solver and the number of the run, so that every run can be replayed. With
+ * phase saving, a cell takes again the last symbol it held when it is still possible, which keeps
+ * the consistent parts of the previous runs.
  */
 public class WaveFunctionCollapse extends Solver {
 
@@ -27,20 +36,51 @@ public class WaveFunctionCollapse extends Solver {
         WaveFunctionCollapse.class
     );
 
-    int[][] entropy;
+    /**
+     * Number of contradictions of the shortest runs of the default Luby schedule.
+     */
+    public static final long DEFAULT_RESTART_UNIT = 128;
+
+    private final Random random = new Random();
+    private final RestartSchedule schedule;
+    private final long seed;
+    private final boolean phaseSaving;
+    private int[] savedPhases;
+    private int restarts;
+    private long failures;
+    private BucketQueue entropy;
+    private int[] decisionCheckpoints;
+    private int[] decisionCells;
+    private int[] decisionValues;
+    private int decisionCount;
 
     /**
-     * Constructs a {@code WaveFunctionCollapse} solver for the given Sudoku grid.
+     * Constructs a {@code WaveFunctionCollapse} solver for the given Sudoku grid, restarting on a
+     * Luby schedule with phase saving and a random seed.
      *
      * @param grid The Sudoku grid to be solved.
      * @see Solver#Solver(Grid)
      */
     public WaveFunctionCollapse(Grid grid) {
+        this(grid, RestartSchedule.luby(DEFAULT_RESTART_UNIT), new Random().nextLong(), true);
+    }
+
+    /**
+     * Constructs a {@code WaveFunctionCollapse} solver for the given Sudoku grid.
+     *
+     * @param grid        The Sudoku grid to be solved.
+     * @param schedule    The number of contradictions allowed in each run, {@link RestartSchedule#NEVER} to never restart.
+     * @param seed        The seed of the random choices.
+     * @param phaseSaving Whether a cell takes again the last symbol it held when possible.
+     */
+    public WaveFunctionCollapse(Grid grid, RestartSchedule schedule, long seed, boolean phaseSaving) {
         super(grid);
-        int sizeX = grid.getSize().getX();
-        int sizeY = grid.getSize().getY();
-        this.entropy = new int[sizeY][sizeX];
-        this.entropy = new int[sizeY][sizeX];
+        this.schedule = schedule;
+        this.seed = seed;
+        this.phaseSaving = phaseSaving;
+        this.decisionCheckpoints = new int[grid.getCellCount()];
+        this.decisionCells = new int[grid.getCellCount()];
+        this.decisionValues = new int[grid.getCellCount()];
         logger.info(
             Colors.GREEN +
             "Starting Wave Function Collapse solver..." +
@@ -49,258 +89,250 @@ public class WaveFunctionCollapse extends Solver {
     }
 
     /**
-     * Initializes the entropy matrix for the Sudoku grid.
+     * Rolls back the last decision.
      * <p>
-     * For each cell, if it's empty, the entropy is set to the number of possible values it can hold.
-     * If the cell is already filled, the entropy is set to -1.
+     * The grid is restored through its trail to the state it had before the decision, then the
+     * symbol of the decision is eliminated from the cell so that it is not tried again until the
+     * previous decision is rolled back too.
+     *
+     * @return {@code true} if a decision was rolled back, {@code false} if there was none.
      */
-    private void fillEntropy() {
-        logger.debug(
-            Colors.DEBUG_COLOR +
-            "Filling initial entropy values..." +
-            Colors.RESET
-        );
-        for (int y = 0; y < grid.getSize().getY(); y++) {
-            for (int x = 0; x < grid.getSize().getX(); x++) {
-                Position position = new Position(x, y);
-                if (
-                    grid.getCell(position) == null ||
-                    grid.getSymbol(position) != null
-                ) {
-                    this.entropy[y][x] = -1;
-                } else {
-                    this.entropy[y][x] = this.getPossiblePlays(position).size();
-                }
-            }
+    private boolean rollBack() {
+        if (this.decisionCount == 0) {
+            return false;
+        }
+
+        this.decisionCount--;
+        int cellId = this.decisionCells[this.decisionCount];
+        int value = this.decisionValues[this.decisionCount];
+        this.grid.undoTo(this.decisionCheckpoints[this.decisionCount]);
+        this.grid.eliminate(cellId, 1L << value);
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                Colors.WARNING_COLOR +
+                "Rolling back symbol {} at cell {}" +
+                Colors.RESET,
+                value,
+                cellId
+            );
         }
+        return true;
     }
 
     /**
-     * Rolls back the last move by resetting the symbol in the last inserted cell.
-     * <p>
-     * This method retrieves the last inserted position from {@code lastInserts}, resets the symbol
-     * in the grid at that position, and updates the history. It also propagates the entropy change
-     * caused by removing the symbol.
+     * Inserts a symbol into the Sudoku grid as a new decision.
      *
-     * @see Solver#rollBack()
-     * @see #propagateEntropy(String, Position, boolean)
+     * @param value  The index of the symbol to insert.
+     * @param cellId The id of the cell to insert the symbol at.
      */
-    @Override
-    protected void rollBack() {
-        if (this.lastInserts.isEmpty()) {
-            return;
+    private void insertSymbol(int value, int cellId) {
+        if (this.decisionCount == this.decisionCells.length) {
+            int capacity = Math.max(16, this.decisionCount * 2);
+            this.decisionCheckpoints = Arrays.copyOf(this.decisionCheckpoints, capacity);
+            this.decisionCells = Arrays.copyOf(this.decisionCells, capacity);
+            this.decisionValues = Arrays.copyOf(this.decisionValues, capacity);
         }
+        this.decisionCheckpoints[this.decisionCount] = this.grid.checkpoint();
+        this.decisionCells[this.decisionCount] = cellId;
+        this.decisionValues[this.decisionCount] = value;
+        this.decisionCount++;
+        this.grid.insertValue(cellId, value);
+        this.savedPhases[cellId] = value;
+    }
 
-        Position lastMovePosition = this.lastInserts.removeLast();
-        String lastSymbolInserted = this.grid.getSymbol(lastMovePosition);
-        this.grid.resetSymbol(lastMovePosition);
-
-        if (!this.historyInserts.containsKey(this.grid)) {
-            this.historyInserts.put(this.grid, new HashMap<>());
+    /**
+     * Prepares a new search: the saved phases are forgotten and the generator is seeded for the
+     * first run.
+     */
+    private void startRuns() {
+        this.grid.resetTrail();
+        this.decisionCount = 0;
+        this.restarts = 0;
+        this.failures = 0;
+        if (this.savedPhases == null || this.savedPhases.length != this.grid.getCellCount()) {
+            this.savedPhases = new int[this.grid.getCellCount()];
         }
-        if (!this.historyInserts.get(this.grid).containsKey(lastMovePosition)) {
-            this.historyInserts.get(this.grid).put(
-                    lastMovePosition,
-                    new HashSet<>()
-                );
+        Arrays.fill(this.savedPhases, -1);
+        this.random.setSeed(this.runSeed(0));
+        this.startSearch();
+        this.entropy = this.grid.getDomainQueue();
+    }
+
+    /**
+     * Gets the seed of a run, mixing the seed of the solver with the number of the run.
+     *
+     * @param run The number of the run.
+     * @return The seed of the generator for the run.
+     */
+    private long runSeed(int run) {
+        return this.seed + run * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Counts a contradiction of the current run, and restarts from the root once the run met as
+     * many contradictions as the schedule allows. The values eliminated by the rollbacks of the run
+     * are forgotten with the rest of the trail.
+     *
+     * @param root The checkpoint of the trail at the root of the search.
+     */
+    private void countFailure(int root) {
+        this.failures++;
+        if (this.failures < this.schedule.getLimit(this.restarts)) {
+            return;
         }
-        this.historyInserts.get(this.grid)
-            .get(lastMovePosition)
-            .add(lastSymbolInserted);
-        this.propagateEntropy(lastSymbolInserted, lastMovePosition, false);
+        this.grid.undoTo(root);
+        this.decisionCount = 0;
+        this.failures = 0;
+        this.restarts++;
+        this.random.setSeed(this.runSeed(this.restarts));
+        logger.debug(
+            Colors.WARNING_COLOR +
+            "Restart #{} after {} contradictions" +
+            Colors.RESET,
+            this.restarts,
+            this.schedule.getLimit(this.restarts - 1)
+        );
     }
 
     /**
-     * Inserts a symbol into the Sudoku grid at the specified position.
-     * <p>
-     * This method extends the base {@link Solver#insertSymbol(String, Position)} method by also
-     * propagating the entropy changes after inserting the symbol.
+     * Collapses a random cell among the cells with the minimum entropy with a random symbol.
      *
-     * @param symbol   The symbol to insert.
-     * @param position The position to insert the symbol at.
-     * @see Solver#insertSymbol(String, Position)
-     * @see #propagateEntropy(String, Position, boolean)
+     * @param minimumEntropy The minimum entropy of the grid.
      */
-    @Override
-    protected void insertSymbol(String symbol, Position position) {
-        super.insertSymbol(symbol, position);
-        this.propagateEntropy(symbol, position, true);
+    private void collapse(int minimumEntropy) {
+        int cellId = this.chooseRandomCell(minimumEntropy);
+        long candidates = this.getCandidates(cellId);
+        int savedPhase = this.savedPhases[cellId];
+        int randomSymbol = this.phaseSaving && savedPhase >= 0 && (candidates & (1L << savedPhase)) != 0L
+            ? savedPhase
+            : this.chooseRandomSymbol(candidates, this.random);
+        if (logger.isDebugEnabled()) {
+            logger.debug(
+                Colors.INFO_COLOR +
+                "Inserting symbol {} at position " +
+                Colors.HIGHLIGHT_COLOR +
+                "{}" +
+                Colors.RESET,
+                randomSymbol,
+                this.grid.getCellPosition(cellId)
+            );
+        }
+        this.insertSymbol(randomSymbol, cellId);
     }
 
     /**
      * Solves the Sudoku puzzle using the Wave Function Collapse algorithm.
      * <p>
      * The Wave Function Collapse algorithm iteratively reduces uncertainty in the grid until a solution is found.
+     * Runs restart from the root following the restart schedule of the solver.
      */
     @Override
     public void solve() {
-        this.lastInserts = new ArrayList<>();
-        this.historyInserts = new HashMap<>();
-        this.fillEntropy();
+        this.startRuns();
+        int root = this.grid.checkpoint();
         while (!this.grid.isComplete()) {
-            Entropy cellsEntropy = this.getPositionsMinimumEntropy();
-            Set<Position> positionsMinimumEntropy =
-                cellsEntropy.getPositionCells();
-            // this.printEntropy();
-            if (positionsMinimumEntropy.isEmpty()) {
-                if (!this.lastInserts.isEmpty()) {
-                    this.rollBack();
-                } else {
+            if (this.shouldStop()) {
+                logger.warn(
+                    Colors.WARNING_COLOR + "Search stopped: {}" + Colors.RESET,
+                    this.getStopStatus()
+                );
+                this.grid.undoTo(0);
+                break;
+            }
+            int minimumEntropy = this.entropy.getMinKey();
+            if (minimumEntropy <= 0) {
+                if (!this.rollBack()) {
                     logger.error(
                         Colors.ERROR_COLOR +
                         "Impossible to solve... Exiting" +
                         Colors.RESET
                     );
+                    this.grid.undoTo(0);
                     break;
                 }
+                this.countFailure(root);
             } else {
-                if (cellsEntropy.getEntropy() <= 0) {
-                    this.rollBack();
-                } else {
-                    Position randomPosition =
-                        this.chooseRandomPosition(positionsMinimumEntropy);
-                    Set<String> possiblePlays =
-                        this.getPossiblePlays(randomPosition);
-                    String randomSymbol =
-                        this.chooseRandomSymbol(possiblePlays);
-                    logger.debug(
-                        Colors.INFO_COLOR +
-                        "Inserting symbol {} at position " +
-                        Colors.HIGHLIGHT_COLOR +
-                        "{}" +
-                        Colors.RESET,
-                        randomSymbol,
-                        randomPosition
-                    );
-                    this.insertSymbol(randomSymbol, randomPosition);
-                }
+                this.collapse(minimumEntropy);
             }
-            // this.grid.print();
-            // this.printEntropy();
-            // System.out.println((this.lastInserts.getLast()));
-            // try {
-            // sleep(50);
-            // } catch (InterruptedException e) {
-            // e.printStackTrace();
-            // }
         }
-        // this.grid.print();
+        this.grid.resetTrail();
     }
 
+    /**
+     * Counts the solutions of the grid by exploring every decision, stopping once {@code limit}
+     * solutions are found.
+     * <p>
+     * Every rolled back symbol is eliminated on the trail, so each branch is explored once. There is
+     * no restart, which would explore branches again. The grid is restored to its original state
+     * afterwards.
+     *
+     * @param limit The number of solutions after which the search stops.
+     * @return The number of solutions found, at most {@code limit}.
+     */
     @Override
-    public int getNumberOfSolutions() {
-        this.lastInserts = new ArrayList<>();
-        this.historyInserts = new HashMap<>();
-        this.fillEntropy();
-        Set<Integer> solutions = new HashSet<>();
-        Entropy cellsEntropy = this.getPositionsMinimumEntropy();
-        int entropy = cellsEntropy.getEntropy();
+    public int countSolutions(int limit) {
+        this.startRuns();
+        int solutions = 0;
 
-        do {
-            Set<Position> positionsMinimumEntropy =
-                cellsEntropy.getPositionCells();
+        while (!this.shouldStop()) {
             if (this.grid.isComplete()) {
-                solutions.add(grid.hashCode());
-                this.rollBack();
-            } else if (positionsMinimumEntropy.isEmpty()) {
-                this.rollBack();
-            } else {
-                if (entropy <= 0) {
-                    this.rollBack();
-                } else {
-                    Position randomPosition =
-                        this.chooseRandomPosition(positionsMinimumEntropy);
-                    Set<String> possiblePlays =
-                        this.getPossiblePlays(randomPosition);
-                    String randomSymbol =
-                        this.chooseRandomSymbol(possiblePlays);
-                    this.insertSymbol(randomSymbol, randomPosition);
+                solutions++;
+                if (solutions >= limit || !this.rollBack()) {
+                    break;
                 }
+                continue;
+            }
+            int minimumEntropy = this.entropy.getMinKey();
+            if (minimumEntropy <= 0) {
+                if (!this.rollBack()) {
+                    break;
+                }
+            } else {
+                this.collapse(minimumEntropy);
             }
-            cellsEntropy = this.getPositionsMinimumEntropy();
-            entropy = cellsEntropy.getEntropy();
-        } while (!this.lastInserts.isEmpty() || entropy > 0);
+        }
 
-        return solutions.size();
+        this.grid.undoTo(0);
+        this.grid.resetTrail();
+        return solutions;
     }
 
     /**
-     * Finds positions with the minimum entropy in the grid.
-     * <p>
+     * Chooses a random cell among the cells with the given entropy.
+     *
+     * @param minimumEntropy The entropy of the cells to choose from.
+     * @return The id of the chosen cell.
      */
-    private Entropy getPositionsMinimumEntropy() {
-        Entropy cellsEntropy = new Entropy();
-        for (int y = 0; y < this.grid.getSize().getY(); y++) {
-            for (int x = 0; x < this.grid.getSize().getX(); x++) {
-                Position position = new Position(x, y);
-                if (
-                    !this.grid.isInsideGrid(position) ||
-                    this.grid.getSymbol(position) != null
-                ) {
-                    continue;
-                }
-
-                int alreadyDone = this.getHistoryInsert(position).size();
-
-                cellsEntropy.addCell(
-                    this.entropy[y][x] - alreadyDone,
-                    position
-                );
-            }
+    private int chooseRandomCell(int minimumEntropy) {
+        int rank = this.random.nextInt(this.entropy.getBucketSize(minimumEntropy));
+        int cellId = this.entropy.getFirst(minimumEntropy);
+        for (int i = 0; i < rank; i++) {
+            cellId = this.entropy.getNext(cellId);
         }
-        return cellsEntropy;
+        return cellId;
     }
 
     /**
-     * Propagates the entropy changes to related cells after inserting or removing a symbol.
+     * Gets the number of restarts of the last search.
      */
-    private void propagateEntropy(
-        String symbol,
-        Position position,
-        boolean isInsert
-    ) {
-        logger.debug(
-            Colors.DEBUG_COLOR +
-            "Propagating entropy for symbol {} at position " +
-            Colors.HIGHLIGHT_COLOR +
-            "{}" +
-            Colors.DEBUG_COLOR +
-            " (insert: {})" +
-            Colors.RESET,
-            symbol,
-            position,
-            isInsert
-        );
-        Set<Position> positions = new HashSet<>();
-        ArrayList<Integer> idRules = this.grid.getCell(position).getIdRules();
-        for (int idRule : idRules) {
-            Rule rule = this.grid.getRule(idRule);
-            int indexSymbols = rule.getIndexSymbols();
-            if (!this.grid.getSymbols(indexSymbols).contains(symbol)) {
-                continue;
-            }
-            positions.addAll(rule.getRulePositions());
-        }
-
-        for (Position positionEntropy : positions) {
-            int x = positionEntropy.getX();
-            int y = positionEntropy.getY();
-
-            this.entropy[y][x] = this.grid.getPossiblePlays(
-                    positionEntropy
-                ).size();
-        }
+    public int getRestarts() {
+        return this.restarts;
     }
 
+    /**
+     * Logs the entropy of every cell of the grid, -1 for the filled cells.
+     */
     public void printEntropy() {
+        BucketQueue queue = this.grid.getDomainQueue();
+        int width = this.grid.getSize().getX();
         StringBuilder entropyStr = new StringBuilder(
             "\nCurrent Entropy Matrix:\n"
         );
-        for (int[] ints : entropy) {
-            for (int anInt : ints) {
-                entropyStr.append(anInt).append(" ");
+        for (int cellId = 0; cellId < this.grid.getCellCount(); cellId++) {
+            entropyStr.append(queue.getKey(cellId)).append(" ");
+            if ((cellId + 1) % width == 0) {
+                entropyStr.append("\n");
             }
-            entropyStr.append("\n");
         }
         logger.debug(
             Colors.DEBUG_COLOR + "{}" + Colors.RESET,
@@ -1,6 +1,7 @@
 package sudoku;
 
-import java.util.ArrayList;
+import java.util.Random;
+import java.util.random.RandomGenerator;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -8,19 +9,43 @@ import org.slf4j.LoggerFactory;
 import solvers.Solver;
 import solvers.backtrack.Backtrack;
 import solvers.backtrack.BacktrackOptimized;
+import solvers.classic.ClassicSolutionGenerator;
+import solvers.classic.ClassicSolver;
+import solvers.dlx.DancingLinks;
+import solvers.parallel.ParallelBacktrack;
+import solvers.parallel.Portfolio;
+import solvers.rating.Difficulty;
+import solvers.rating.DifficultyRater;
+import solvers.rating.Rating;
+import solvers.sat.SatSolver;
 import solvers.wfc.WaveFunctionCollapse;
 
 /**
  * This class is responsible for generating a Sudoku puzzle.
  * It uses different solving algorithms to generate a complete Sudoku grid
- * and then removes a certain percentage of cells to create the puzzle.
+ * and then removes either a certain percentage of cells, or as many cells as
+ * a target {@link Difficulty} allows, to create the puzzle.
  */
 public class GenerateSudoku {
 
     private static final Logger logger = LoggerFactory.getLogger(GenerateSudoku.class);
+
+    /**
+     * Maximum number of puzzles generated for one puzzle of the target difficulty.
+     */
+    public static final int MAX_ATTEMPTS = 10_000;
+
     private final Grid grid;
     private final double percentage;
+    private final Difficulty difficulty;
+    private final RandomGenerator random;
+    private DifficultyRater rater;
+    private Rating rating;
+    private long rejected;
     private Solver solver;
+    private SolverType solverType;
+    private ClassicSolutionGenerator solutionGenerator;
+    private JigsawGenerator jigsaw;
 
     /**
      * Constructs a GenerateSudoku instance with the specified grid and percentage
@@ -30,8 +55,40 @@ public class GenerateSudoku {
      * @param percentage the percentage of cells to remove to create the puzzle
      */
     public GenerateSudoku(Grid grid, double percentage) {
+        this(grid, percentage, new Random());
+    }
+
+    /**
+     * Constructs a GenerateSudoku instance drawing every random choice from the
+     * given generator, so that several generators running in parallel each have
+     * their own stream.
+     *
+     * @param grid       the initial Sudoku grid
+     * @param percentage the percentage of cells to remove to create the puzzle
+     * @param random     the source of the random choices
+     */
+    public GenerateSudoku(Grid grid, double percentage, RandomGenerator random) {
         this.grid = grid;
         this.percentage = percentage;
+        this.difficulty = null;
+        this.random = random;
+    }
+
+    /**
+     * Constructs a GenerateSudoku instance generating puzzles rated in the given
+     * difficulty band by the {@link DifficultyRater}, instead of removing a fixed
+     * percentage of cells.
+     *
+     * @param grid       the initial Sudoku grid
+     * @param difficulty the band of the generated puzzles
+     * @param random     the source of the random choices
+     */
+    public GenerateSudoku(Grid grid, Difficulty difficulty, RandomGenerator random) {
+        this.grid = grid;
+        this.percentage = 1.0;
+        this.difficulty = difficulty;
+        this.random = random;
+        this.rater = new DifficultyRater();
     }
 
     /**
@@ -41,140 +98,221 @@ public class GenerateSudoku {
         WFC,
         BACKTRACK,
         BACKTRACK_OPTIMIZED,
+        DANCING_LINKS,
+        PARALLEL_BACKTRACK,
+        PORTFOLIO,
+        SAT,
+        CLASSIC,
     }
 
     /**
-     * Generates a Sudoku puzzle using the specified solver type.
+     * Creates a solver of the given type for a grid.
      *
-     * @param solverType the type of solver to use for generating the Sudoku puzzle
+     * @param solverType the type of solver
+     * @param grid       the grid to solve
+     * @return the solver
      */
-    public void generateSudoku(SolverType solverType) {
-        solver = switch (solverType) {
+    public static Solver createSolver(SolverType solverType, Grid grid) {
+        return switch (solverType) {
             case WFC -> new WaveFunctionCollapse(grid);
             case BACKTRACK -> new Backtrack(grid);
             case BACKTRACK_OPTIMIZED -> new BacktrackOptimized(grid);
+            case DANCING_LINKS -> new DancingLinks(grid);
+            case PARALLEL_BACKTRACK -> new ParallelBacktrack(grid);
+            case PORTFOLIO -> new Portfolio(grid);
+            case SAT -> new SatSolver(grid);
+            case CLASSIC -> ClassicSolver.create(grid);
             default -> throw new IllegalArgumentException("Unknown solver type");
         };
+    }
+
+    /**
+     * Generates a Sudoku puzzle using the specified solver type. The solver is kept for the next
+     * puzzles generated with the same type, unless the grid has random blocks whose layout changes
+     * with every puzzle.
+     * <p>
+     * An empty classic sudoku is filled without searching, by shuffling a valid solution with
+     * {@link ClassicSolutionGenerator}. The solver fills the other layouts, and checks the
+     * uniqueness of the puzzle while its cells are removed. The blocks of a grid with random blocks
+     * are reshaped around its solution by a {@link JigsawGenerator}, and put back as they were
+     * before the next puzzle is filled.
+     * <p>
+     * With a target difficulty, cells are removed as long as the puzzle stays within the band (see
+     * {@link #deleteCellsWithin(Difficulty)}). A puzzle that ends up easier than the band is
+     * rejected and the grid generated again, up to {@value #MAX_ATTEMPTS} times.
+     *
+     * @param solverType the type of solver to use for generating the Sudoku puzzle
+     * @throws IllegalStateException if no puzzle of the target difficulty was found
+     */
+    public void generateSudoku(SolverType solverType) {
+        if (solver == null || this.solverType != solverType) {
+            solver = createSolver(solverType, grid);
+            this.solverType = solverType;
+        }
+        if (difficulty == null) {
+            fillSolution(solverType);
+            deleteRandomCells((int) (grid.getNbOfCellNotNull() * this.percentage));
+            return;
+        }
+        for (int attempt = 1; ; attempt++) {
+            fillSolution(solverType);
+            deleteCellsWithin(difficulty);
+            rating = rater.rate(grid);
+            logger.debug("Puzzle rated {}", rating);
+            if (rating.getDifficulty() == difficulty) {
+                return;
+            }
+            rejected++;
+            if (attempt == MAX_ATTEMPTS) {
+                throw new IllegalStateException("[GenerateSudoku] No puzzle rated " + difficulty
+                        + " after " + MAX_ATTEMPTS + " attempts");
+            }
+            grid.clearValues();
+        }
+    }
+
+    /**
+     * Fills the empty grid with a solution, then reshapes its blocks if they are random.
+     *
+     * @param solverType the type of solver to use
+     */
+    private void fillSolution(SolverType solverType) {
+        if (jigsaw != null) {
+            // Back to the regular blocks, which the solution generator knows how to fill
+            jigsaw.restore();
+            solver = createSolver(solverType, grid);
+        }
         long startTime = System.currentTimeMillis();
-        solver.solve();
+        if (!fillWithShuffledSolution()) {
+            solver.solve();
+        }
         long endTime = System.currentTimeMillis();
         logger.info("Total solve time: " + (endTime - startTime) + "ms");
-        if (solver.getGrid().isRandomBlock()) {
-            switchRandomCase();
+        if (grid.isRandomBlock()) {
+            if (jigsaw == null) {
+                jigsaw = new JigsawGenerator(grid);
+            }
+            jigsaw.reshape(random);
+            // The blocks changed, a solver specialized for the old layout would check the wrong rules
+            solver = createSolver(solverType, grid);
         }
-        deleteRandomCells((int) (grid.getNbOfCellNotNull() * this.percentage));
     }
 
     /**
-     * Deletes a specified number of cells randomly from the grid.
+     * Fills the grid with a shuffled canonical solution if it is an empty classic sudoku.
+     *
+     * @return true if the grid was filled, false if the solver must fill it
+     */
+    private boolean fillWithShuffledSolution() {
+        if (grid.getNumberOfEmptyCells() != grid.getCellCount()) {
+            return false;
+        }
+        if (solutionGenerator == null) {
+            solutionGenerator = ClassicSolutionGenerator.forGrid(grid);
+            if (solutionGenerator == null) {
+                return false;
+            }
+        }
+        solutionGenerator.fill(grid, random);
+        return true;
+    }
+
+    /**
+     * Deletes a specified number of cells randomly from the grid, keeping its solution unique.
+     * <p>
+     * The grid holds its unique solution before every removal, so the puzzle stays unique as long as
+     * no solution gives another value to the emptied cell: each removal is checked with
+     * {@link Solver#hasOtherSolution(int, int)} instead of counting the solutions from scratch. A
+     * cell whose removal breaks the uniqueness is put back and never tried again, since removing
+     * more cells only adds solutions.
      *
      * @param nbCells the number of cells to delete
      */
     public void deleteRandomCells(int nbCells) {
         logger.info("Deleting " + nbCells + " cells");
-        ArrayList<Position> positions = new ArrayList<>();
-        for (int x = 0; x < grid.getSize().getX(); x++) {
-            for (int y = 0; y < grid.getSize().getY(); y++) {
-                if (solver.getGrid().getCell(new Position(x, y)) != null &&
-                        solver.getGrid().getSymbol(new Position(x, y)) != null)
-                    positions.add(new Position(x, y));
+        int[] cells = new int[grid.getCellCount()];
+        int remaining = 0;
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            if (grid.getValue(cellId) >= 0) {
+                cells[remaining++] = cellId;
             }
         }
-        if (positions.isEmpty()) {
+        if (remaining == 0) {
             logger.warn("No positions available to delete.");
             return;
         }
-        while (nbCells > 0 && !positions.isEmpty()) {
-            int id = (int) (Math.random() * positions.size());
-            Position position = positions.remove(id);
-            Cell cell = solver.getGrid().getCell(position);
-            if (cell != null && cell.getSymbol() != null) {
-                String symbol = cell.getSymbol();
-                solver.getGrid().resetSymbol(position);
-
-                int nbSolution = solver.getNumberOfSolutions();
-
-                if (nbSolution > 1) {
-                    logger.debug("Multiple solutions");
-                    solver.getGrid().insertSymbol(symbol, position);
-                } else {
-                    logger.debug("Deleting cell " + position + " with symbol " + symbol);
-                    nbCells--;
-                }
+        while (nbCells > 0 && remaining > 0) {
+            int id = random.nextInt(remaining);
+            int cellId = cells[id];
+            cells[id] = cells[--remaining];
+            int value = grid.getValue(cellId);
+            grid.resetValue(cellId);
+
+            if (solver.hasOtherSolution(cellId, value)) {
+                logger.debug("Multiple solutions");
+                grid.insertValue(cellId, value);
+            } else {
+                logger.debug("Deleting cell {} with symbol {}", grid.getCellPosition(cellId), grid.getSymbolAt(value));
+                nbCells--;
             }
         }
     }
 
     /**
-     * Switches random cases in the grid to ensure randomness.
+     * Deletes every cell it can from the grid while the puzzle stays in the given difficulty band
+     * or an easier one.
+     * <p>
+     * Below {@link Difficulty#EXTREME}, a removal is kept if the techniques of the band still solve
+     * the puzzle, which also proves its solution unique, so the solver is not needed. Otherwise the
+     * removal is checked for uniqueness like in {@link #deleteRandomCells(int)}. A cell that cannot
+     * be removed is put back and never tried again.
+     *
+     * @param ceiling the hardest band allowed
      */
-    public void switchRandomCase() {
-        System.out.println("Switching random cases");
-        ArrayList<Position> switchedPositions = new ArrayList<>();
-        System.out.println(grid.getSize().getX());
-        System.out.println(grid.getSize().getY());
-        for (int i = 0; i < grid.getSize().getX(); i++) {
-            for (int j = 0; j < grid.getSize().getY(); j++) {
-
-                Position position = new Position(i, j);
-                if (switchedPositions.contains(position)) {
-                    continue;
-                }
-                Position position2 = findCaseWithSameSymbol(position);
-                if (position2 != null && !switchedPositions.contains(position2)) {
-                    Cell cell = grid.getCell(position);
-                    Cell cell2 = grid.getCell(position2);
-                    if (cell != null && cell2 != null) {
-                        String symbol = cell.getSymbol();
-                        String symbol2 = cell2.getSymbol();
-                        ArrayList<Integer> idRules = cell.getIdRules();
-                        ArrayList<Integer> idRules2 = cell2.getIdRules();
-
-                        for (int idRule : idRules) {
-                            grid.getRule(idRule).getRulePositions().remove(position);
-                            grid.getRule(idRule).getRulePositions().add(position2);
-                        }
-                        for (int idRule : idRules2) {
-                            grid.getRule(idRule).getRulePositions().remove(position2);
-                            grid.getRule(idRule).getRulePositions().add(position);
-                        }
-                        Cell newCell = new Cell(idRules2);
-                        Cell newCell2 = new Cell(idRules);
-                        newCell.insertSymbol(symbol);
-                        newCell2.insertSymbol(symbol2);
-                        grid.setCell(position, newCell);
-                        grid.setCell(position2, newCell2);
-                    }
-
-                }
-
-                switchedPositions.add(position);
+    public void deleteCellsWithin(Difficulty ceiling) {
+        if (rater == null) {
+            rater = new DifficultyRater();
+        }
+        int[] cells = new int[grid.getCellCount()];
+        int remaining = 0;
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            if (grid.getValue(cellId) >= 0) {
+                cells[remaining++] = cellId;
+            }
+        }
+        while (remaining > 0) {
+            int id = random.nextInt(remaining);
+            int cellId = cells[id];
+            cells[id] = cells[--remaining];
+            int value = grid.getValue(cellId);
+            grid.resetValue(cellId);
+
+            boolean removable = ceiling == Difficulty.EXTREME
+                    ? !solver.hasOtherSolution(cellId, value)
+                    : rater.solvesWithin(grid, ceiling);
+            if (!removable) {
+                grid.insertValue(cellId, value);
             }
         }
     }
 
     /**
-     * Finds a case with the same symbol as the given position.
+     * Gets the rating of the last puzzle generated with a target difficulty.
      *
-     * @param position the position to find a matching case for
-     * @return a position with the same symbol, or null if none found
+     * @return the rating, or null if no puzzle was generated with a target difficulty
      */
-    public Position findCaseWithSameSymbol(Position position) {
-        String symbol = grid.getSymbol(position);
-        ArrayList<Position> positions = new ArrayList<>();
-        for (int i = 0; i < grid.getSize().getX(); i++) {
-            for (int j = 0; j < grid.getSize().getY(); j++) {
-                if (grid.getSymbol(new Position(i, j)) != null && grid.getSymbol(new Position(i, j)).equals(symbol)
-                        && !position.equals(new Position(i, j))) {
-                    positions.add(new Position(i, j));
-                }
-            }
-        }
-        if (positions.isEmpty()) {
-            return null;
-        }
-        int randomIndex = (int) (Math.random() * positions.size());
-        return positions.get(randomIndex);
+    public Rating getRating() {
+        return rating;
+    }
+
+    /**
+     * Gets the number of puzzles rejected so far because they were easier than the target
+     * difficulty.
+     *
+     * @return the number of rejected puzzles
+     */
+    public long getRejectedCount() {
+        return rejected;
     }
 
     /**
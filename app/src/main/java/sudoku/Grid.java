@@ -1,8 +1,10 @@
 package sudoku;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Objects;
 import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
@@ -12,6 +14,7 @@ import org.slf4j.LoggerFactory;
 
 import sudoku.rule.Rule;
 import sudoku.sudoku.Sudoku;
+import utils.BucketQueue;
 
 /**
  * The Grid class represents a Sudoku grid, which can contain multiple Sudoku
@@ -27,12 +30,51 @@ public class Grid {
     private ArrayList<String> colors;
     private boolean randomBlock = false;
 
+    /**
+     * Maximum number of distinct symbols a grid can hold, one bit per symbol in
+     * a {@code long} candidate mask.
+     */
+    public static final int MAX_SYMBOLS = Long.SIZE;
+
+    private final ArrayList<String> alphabet;
+    private final HashMap<String, Integer> symbolIndex;
+    /**
+     * Value of an empty cell in the compact storage.
+     */
+    public static final byte EMPTY = -1;
+
+    /**
+     * Value of a position of the bounding box that is not a cell.
+     */
+    public static final byte NO_CELL = -2;
+
+    private long[] symbolsMasks;
+    private long[] ruleSymbolsMasks;
+    private long[] usedMasks;
+    private int[] ruleVersions;
+    private byte[] values;
+    private int[] cellRuleStart;
+    private int[] cellRules;
+    private int[] ruleCellStart;
+    private int[] ruleCells;
+    private int[] peerStart;
+    private int[] peers;
+    private long[] eliminated;
+    private int[] trailCells;
+    private long[] trailMasks;
+    private int trailSize;
+    private int emptyCells;
+    private BucketQueue domainQueue;
+    private boolean compiled = false;
+
     /**
      * Constructs an empty Grid.
      */
     public Grid() {
         this.rules = new ArrayList<>();
         this.symbols = new ArrayList<>();
+        this.alphabet = new ArrayList<>();
+        this.symbolIndex = new HashMap<>();
     }
 
     /**
@@ -166,6 +208,7 @@ public class Grid {
                 }
             }
         }
+        this.compiled = false;
     }
 
     /**
@@ -200,6 +243,7 @@ public class Grid {
                 this.gridCell[y][x].addRule(i);
             }
         }
+        this.compiled = false;
     }
 
     /**
@@ -285,9 +329,7 @@ public class Grid {
      * @param position the position to insert the symbol at
      */
     private void handleInsertValue(String symbol, Position position) {
-        int x = position.getX();
-        int y = position.getY();
-        this.gridCell[y][x].insertSymbol(symbol);
+        this.insertValue(this.getCellId(position), this.getSymbolIndex(symbol));
     }
 
     /**
@@ -298,31 +340,445 @@ public class Grid {
      * @return true if the symbol can be inserted, false otherwise
      */
     private boolean canInsertValue(String symbol, Position position) {
-        int x = position.getX();
-        int y = position.getY();
-
         if (!this.isInsideGrid(position)) {
             logger.warn("Insert outside of a Sudoku");
             return false;
         }
 
-        for (int indexRule : this.gridCell[y][x].getIdRules()) {
-            Rule rule = this.rules.get(indexRule);
+        int index = this.getSymbolIndex(symbol);
+        if (index < 0) {
+            return false;
+        }
+        if (this.getCell(position).getSymbol() != null) {
+            logger.warn("A value is already inside of the cell " + position);
+            return false;
+        }
+        return this.canInsertValue(this.getCellId(position), index);
+    }
 
-            int indexSymbols = rule.getIndexSymbols();
-            Set<String> symbols = this.symbols.get(indexSymbols);
-            if (!symbols.contains(symbol)) {
+    /**
+     * Checks if the symbol at the specified index of the alphabet can be
+     * inserted in the specified cell.
+     *
+     * @param cellId      the id of the cell
+     * @param symbolIndex the index of the symbol in the alphabet
+     * @return true if the cell is empty and no rule forbids the symbol, false
+     *         otherwise
+     */
+    public boolean canInsertValue(int cellId, int symbolIndex) {
+        this.ensureCompiled();
+        if (this.values[cellId] != EMPTY) {
+            return false;
+        }
+        long bit = 1L << symbolIndex;
+        for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+            int indexRule = this.cellRules[k];
+            if ((this.ruleSymbolsMasks[indexRule] & bit) == 0 || (this.usedMasks[indexRule] & bit) != 0) {
                 return false;
             }
+        }
+        return true;
+    }
+
+    /**
+     * Inserts the symbol at the specified index of the alphabet in the specified
+     * cell if no rule forbids it.
+     *
+     * @param cellId      the id of the cell
+     * @param symbolIndex the index of the symbol in the alphabet
+     * @return true if the symbol was inserted, false otherwise
+     */
+    public boolean insertValue(int cellId, int symbolIndex) {
+        if (!this.canInsertValue(cellId, symbolIndex)) {
+            return false;
+        }
+        long bit = 1L << symbolIndex;
+        for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+            this.usedMasks[this.cellRules[k]] |= bit;
+            this.ruleVersions[this.cellRules[k]]++;
+        }
+        this.values[cellId] = (byte) symbolIndex;
+        this.emptyCells--;
+        this.pushTrail(cellId, 0L);
+        if (this.domainQueue != null) {
+            this.domainQueue.remove(cellId);
+            this.updatePeerDomains(cellId);
+        }
+        this.gridCell[cellId / this.size.getX()][cellId % this.size.getX()].insertSymbol(this.alphabet.get(symbolIndex));
+        return true;
+    }
+
+    /**
+     * Empties the specified cell.
+     *
+     * @param cellId the id of the cell
+     */
+    public void resetValue(int cellId) {
+        this.ensureCompiled();
+        this.clearValue(cellId);
+    }
+
+    /**
+     * Empties the specified cell without any check on the compilation of the
+     * grid.
+     *
+     * @param cellId the id of the cell
+     */
+    private void clearValue(int cellId) {
+        int symbolIndex = this.values[cellId];
+        if (symbolIndex < 0) {
+            return;
+        }
+        long bit = 1L << symbolIndex;
+        for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+            this.usedMasks[this.cellRules[k]] &= ~bit;
+            this.ruleVersions[this.cellRules[k]]++;
+        }
+        this.values[cellId] = EMPTY;
+        this.emptyCells++;
+        if (this.domainQueue != null) {
+            this.updateDomain(cellId);
+            this.updatePeerDomains(cellId);
+        }
+        this.gridCell[cellId / this.size.getX()][cellId % this.size.getX()].resetSymbol();
+    }
+
+    /**
+     * Gets the domain of the specified cell, that is its candidates minus the
+     * symbols eliminated with {@link #eliminate(int, long)}.
+     *
+     * @param cellId the id of the cell
+     * @return the domain mask of the cell
+     */
+    public long getDomain(int cellId) {
+        return this.getCandidates(cellId) & ~this.eliminated[cellId];
+    }
 
-            for (Position rulePosition : rule.getRulePositions()) {
-                if (Objects.equals(this.getSymbol(rulePosition), symbol)) {
-                    return false;
+    /**
+     * Removes symbols from the domain of the specified cell. The change is
+     * recorded on the trail so that {@link #undoTo(int)} restores it.
+     *
+     * @param cellId the id of the cell
+     * @param mask   the mask of the symbols to remove
+     * @return true if the domain changed, false otherwise
+     */
+    public boolean eliminate(int cellId, long mask) {
+        this.ensureCompiled();
+        long old = this.eliminated[cellId];
+        if ((old | mask) == old) {
+            return false;
+        }
+        this.pushTrail(~cellId, old);
+        this.eliminated[cellId] = old | mask;
+        this.touchRules(cellId);
+        if (this.domainQueue != null) {
+            this.updateDomain(cellId);
+        }
+        return true;
+    }
+
+    /**
+     * Gets a checkpoint of the trail. Every insertion through
+     * {@link #insertValue(int, int)} and every elimination made after it can be
+     * undone with {@link #undoTo(int)}.
+     *
+     * @return the checkpoint
+     */
+    public int checkpoint() {
+        this.ensureCompiled();
+        return this.trailSize;
+    }
+
+    /**
+     * Undoes every insertion and elimination recorded since the specified
+     * checkpoint, most recent first. The cost is proportional to the number of
+     * changes undone.
+     *
+     * @param checkpoint the checkpoint returned by {@link #checkpoint()}
+     */
+    public void undoTo(int checkpoint) {
+        this.ensureCompiled();
+        while (this.trailSize > checkpoint) {
+            this.trailSize--;
+            int entry = this.trailCells[this.trailSize];
+            if (entry >= 0) {
+                this.clearValue(entry);
+            } else {
+                this.eliminated[~entry] = this.trailMasks[this.trailSize];
+                this.touchRules(~entry);
+                if (this.domainQueue != null) {
+                    this.updateDomain(~entry);
                 }
             }
         }
+    }
 
-        return true;
+    /**
+     * Gets an entry of the trail, between {@code 0} and {@link #checkpoint()}
+     * excluded.
+     *
+     * @param index the index of the entry
+     * @return the id of the cell filled by an insertion, or its complement
+     *         {@code ~cellId} for an elimination
+     */
+    public int getTrailEntry(int index) {
+        return this.trailCells[index];
+    }
+
+    /**
+     * Gets the symbols that were eliminated from the cell of an elimination
+     * entry of the trail before it was recorded.
+     *
+     * @param index the index of the entry
+     * @return the mask of the symbols eliminated before the entry
+     */
+    public long getTrailMask(int index) {
+        return this.trailMasks[index];
+    }
+
+    /**
+     * Gets the symbols eliminated from the specified cell with
+     * {@link #eliminate(int, long)} and not undone yet.
+     *
+     * @param cellId the id of the cell
+     * @return the mask of the eliminated symbols
+     */
+    public long getEliminated(int cellId) {
+        this.ensureCompiled();
+        return this.eliminated[cellId];
+    }
+
+    /**
+     * Forgets the trail and every elimination, keeping the current values. The
+     * grid is back to a state where domains only depend on the rules.
+     */
+    public void resetTrail() {
+        this.ensureCompiled();
+        this.trailSize = 0;
+        Arrays.fill(this.eliminated, 0L);
+        for (int indexRule = 0; indexRule < this.ruleVersions.length; indexRule++) {
+            this.ruleVersions[indexRule]++;
+        }
+        if (this.domainQueue != null) {
+            this.fillDomainQueue();
+        }
+    }
+
+    /**
+     * Gets the version of the rule at the specified index. It changes whenever a
+     * value or a domain of a cell of the rule changes, including through
+     * {@link #undoTo(int)}, so a propagator can skip the rules that did not
+     * change since it last saw them.
+     *
+     * @param indexRule the index of the rule
+     * @return the version of the rule
+     */
+    public int getRuleVersion(int indexRule) {
+        this.ensureCompiled();
+        return this.ruleVersions[indexRule];
+    }
+
+    /**
+     * Changes the version of every rule of a cell after its domain changed.
+     *
+     * @param cellId the id of the cell
+     */
+    private void touchRules(int cellId) {
+        for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+            this.ruleVersions[this.cellRules[k]]++;
+        }
+    }
+
+    /**
+     * Gets the empty cells of the grid bucketed by the size of their domain.
+     * The queue is built on the first call, then kept up to date by every
+     * insertion, reset, elimination and undo, so that the most constrained cell
+     * is found without scanning the grid. It must not be modified by the
+     * caller, and is replaced when the layout of the grid changes.
+     *
+     * @return the queue of the empty cells, keyed by the size of their domain
+     */
+    public BucketQueue getDomainQueue() {
+        this.ensureCompiled();
+        if (this.domainQueue == null) {
+            this.domainQueue = new BucketQueue(this.values.length, MAX_SYMBOLS);
+            this.fillDomainQueue();
+        }
+        return this.domainQueue;
+    }
+
+    /**
+     * Fills the domain queue with every empty cell.
+     */
+    private void fillDomainQueue() {
+        this.domainQueue.clear();
+        for (int cellId = 0; cellId < this.values.length; cellId++) {
+            this.updateDomain(cellId);
+        }
+    }
+
+    /**
+     * Updates the key of a cell in the domain queue if it is empty.
+     *
+     * @param cellId the id of the cell
+     */
+    private void updateDomain(int cellId) {
+        if (this.values[cellId] == EMPTY) {
+            this.domainQueue.update(cellId, Long.bitCount(this.getDomain(cellId)));
+        }
+    }
+
+    /**
+     * Updates the keys of the peers of a cell in the domain queue, after the
+     * value of the cell changed.
+     *
+     * @param cellId the id of the cell
+     */
+    private void updatePeerDomains(int cellId) {
+        for (int k = this.peerStart[cellId]; k < this.peerStart[cellId + 1]; k++) {
+            this.updateDomain(this.peers[k]);
+        }
+    }
+
+    /**
+     * Records a change on the trail, growing it if needed.
+     *
+     * @param entry the id of the cell for an insertion, its complement for an
+     *              elimination
+     * @param mask  the eliminated mask before the change
+     */
+    private void pushTrail(int entry, long mask) {
+        if (this.trailSize == this.trailCells.length) {
+            int capacity = Math.max(16, this.trailCells.length * 2);
+            this.trailCells = Arrays.copyOf(this.trailCells, capacity);
+            this.trailMasks = Arrays.copyOf(this.trailMasks, capacity);
+        }
+        this.trailCells[this.trailSize] = entry;
+        this.trailMasks[this.trailSize] = mask;
+        this.trailSize++;
+    }
+
+    /**
+     * Gets the value of the specified cell in the compact storage.
+     *
+     * @param cellId the id of the cell
+     * @return the index of the symbol in the alphabet, {@link #EMPTY} or
+     *         {@link #NO_CELL}
+     */
+    public int getValue(int cellId) {
+        this.ensureCompiled();
+        return this.values[cellId];
+    }
+
+    /**
+     * Gets the id of the cell at the specified position. Ids are dense over the
+     * bounding box of the grid, row by row.
+     *
+     * @param position the position of the cell
+     * @return the id of the cell
+     */
+    public int getCellId(Position position) {
+        return position.getY() * this.size.getX() + position.getX();
+    }
+
+    /**
+     * Gets the position of the cell with the specified id.
+     *
+     * @param cellId the id of the cell
+     * @return the position of the cell
+     */
+    public Position getCellPosition(int cellId) {
+        return new Position(cellId % this.size.getX(), cellId / this.size.getX());
+    }
+
+    /**
+     * Gets the number of cell ids, that is the area of the bounding box of the
+     * grid.
+     *
+     * @return the number of cell ids
+     */
+    public int getCellCount() {
+        return this.size.getX() * this.size.getY();
+    }
+
+    /**
+     * Gets the number of rules covering the specified cell.
+     *
+     * @param cellId the id of the cell
+     * @return the number of rules
+     */
+    public int getNumberOfRules(int cellId) {
+        this.ensureCompiled();
+        return this.cellRuleStart[cellId + 1] - this.cellRuleStart[cellId];
+    }
+
+    /**
+     * Gets the index of the k-th rule covering the specified cell.
+     *
+     * @param cellId the id of the cell
+     * @param k      the rank of the rule for this cell
+     * @return the index of the rule
+     */
+    public int getRuleOf(int cellId, int k) {
+        this.ensureCompiled();
+        return this.cellRules[this.cellRuleStart[cellId] + k];
+    }
+
+    /**
+     * Gets the number of cells of the rule at the specified index.
+     *
+     * @param indexRule the index of the rule
+     * @return the number of cells of the rule
+     */
+    public int getNumberOfCells(int indexRule) {
+        this.ensureCompiled();
+        return this.ruleCellStart[indexRule + 1] - this.ruleCellStart[indexRule];
+    }
+
+    /**
+     * Gets the id of the k-th cell of the rule at the specified index.
+     *
+     * @param indexRule the index of the rule
+     * @param k         the rank of the cell in the rule
+     * @return the id of the cell
+     */
+    public int getCellOf(int indexRule, int k) {
+        this.ensureCompiled();
+        return this.ruleCells[this.ruleCellStart[indexRule] + k];
+    }
+
+    /**
+     * Gets the number of peers of the specified cell, that is the number of
+     * distinct other cells sharing at least one rule with it.
+     *
+     * @param cellId the id of the cell
+     * @return the number of peers
+     */
+    public int getNumberOfPeers(int cellId) {
+        this.ensureCompiled();
+        return this.peerStart[cellId + 1] - this.peerStart[cellId];
+    }
+
+    /**
+     * Gets the id of the k-th peer of the specified cell.
+     *
+     * @param cellId the id of the cell
+     * @param k      the rank of the peer
+     * @return the id of the peer
+     */
+    public int getPeer(int cellId, int k) {
+        this.ensureCompiled();
+        return this.peers[this.peerStart[cellId] + k];
+    }
+
+    /**
+     * Gets the number of empty cells of the grid.
+     *
+     * @return the number of empty cells
+     */
+    public int getNumberOfEmptyCells() {
+        this.ensureCompiled();
+        return this.emptyCells;
     }
 
     /**
@@ -352,8 +808,9 @@ public class Grid {
     public void resetSymbol(Position position) {
         if (!this.isInsideGrid(position)) {
             System.err.println("[Grid] Reset outside of a Sudoku");
+            return;
         }
-        this.getCell(position).resetSymbol();
+        this.resetValue(this.getCellId(position));
     }
 
     /**
@@ -402,14 +859,7 @@ public class Grid {
      * @return true if the grid is complete, false otherwise
      */
     public boolean isComplete() {
-        for (int y = 0; y < this.size.getY(); y++) {
-            for (int x = 0; x < this.size.getX(); x++) {
-                if (this.gridCell[y][x] != null && this.gridCell[y][x].getSymbol() == null) {
-                    return false;
-                }
-            }
-        }
-        return true;
+        return this.getNumberOfEmptyCells() == 0;
     }
 
     /**
@@ -434,30 +884,56 @@ public class Grid {
 
     /**
      * Gets the possible plays at the specified position.
+     * <p>
+     * This is a view over {@link #getCandidates(Position)} for callers that work
+     * with symbols rather than masks.
      *
      * @param position the position to get the possible plays from
      * @return the set of possible plays
      */
     public Set<String> getPossiblePlays(Position position) {
-        int x = position.getX();
-        int y = position.getY();
-        if (!this.isInsideGrid(position) || this.gridCell[y][x].getSymbol() != null ||
-                this.gridCell[y][x].getIdRules().isEmpty()) {
-            return new HashSet<>();
-        }
+        return this.toSymbols(this.getCandidates(position));
+    }
 
-        Set<String> intersection = new HashSet<>();
-        boolean firstRule = true;
+    /**
+     * Gets the candidate mask at the specified position.
+     * <p>
+     * Bit {@code i} is set when the symbol at index {@code i} of the alphabet
+     * (see {@link #getSymbolAt(int)}) can be inserted without breaking any rule
+     * covering the cell.
+     *
+     * @param position the position to get the candidates from
+     * @return the candidate mask, {@code 0} if the cell is filled, outside of the
+     *         grid or not covered by any rule
+     */
+    public long getCandidates(Position position) {
+        if (!this.isInsideGrid(position)) {
+            return 0L;
+        }
+        return this.getCandidates(this.getCellId(position));
+    }
 
-        for (int indexRule : this.gridCell[y][x].getIdRules()) {
-            Rule rule = this.rules.get(indexRule);
-            if (firstRule) {
-                intersection.addAll(this.symbols.get(rule.getIndexSymbols()));
-                firstRule = false;
-            }
-            intersection.removeAll(this.symbolUsed(rule));
+    /**
+     * Gets the candidate mask of the specified cell.
+     *
+     * @param cellId the id of the cell
+     * @return the candidate mask, {@code 0} if the cell is filled, not a cell or
+     *         not covered by any rule
+     * @see #getCandidates(Position)
+     */
+    public long getCandidates(int cellId) {
+        this.ensureCompiled();
+        int start = this.cellRuleStart[cellId];
+        int end = this.cellRuleStart[cellId + 1];
+        if (this.values[cellId] != EMPTY || start == end) {
+            return 0L;
+        }
+        long candidates = -1L;
+        for (int k = start; k < end; k++) {
+            int indexRule = this.cellRules[k];
+            candidates &= this.ruleSymbolsMasks[indexRule] & ~this.usedMasks[indexRule];
         }
-        return intersection;
+        return candidates;
     }
 
     /**
@@ -467,13 +943,78 @@ public class Grid {
      * @return the set of symbols used in the rule
      */
     public Set<String> symbolUsed(Rule rule) {
-        Set<String> symbols = new HashSet<>();
+        return this.toSymbols(this.usedMask(rule));
+    }
+
+    /**
+     * Gets the mask of the symbols used in the rule at the specified index.
+     * <p>
+     * The mask is maintained by {@link #insertSymbol(String, Position)} and
+     * {@link #resetSymbol(Position)}, so this is a constant time lookup.
+     *
+     * @param indexRule the index of the rule
+     * @return the mask of the symbols used in the rule
+     */
+    public long getUsedMask(int indexRule) {
+        this.ensureCompiled();
+        return this.usedMasks[indexRule];
+    }
+
+    /**
+     * Gets the mask of the symbols allowed in the rule at the specified index.
+     *
+     * @param indexRule the index of the rule
+     * @return the mask of the symbols of the rule
+     */
+    public long getRuleSymbolsMask(int indexRule) {
+        this.ensureCompiled();
+        return this.ruleSymbolsMasks[indexRule];
+    }
+
+    /**
+     * Checks if the rule at the specified index has as many cells as symbols, in
+     * which case every symbol must appear once in it. Other rules only forbid
+     * repetitions.
+     *
+     * @param indexRule the index of the rule
+     * @return true if the rule must contain every one of its symbols
+     */
+    public boolean mustContainAllSymbols(int indexRule) {
+        this.ensureCompiled();
+        return this.ruleCellStart[indexRule + 1] - this.ruleCellStart[indexRule]
+                == Long.bitCount(this.ruleSymbolsMasks[indexRule]);
+    }
+
+    /**
+     * Checks if the specified cell belongs to the rule at the specified index.
+     *
+     * @param cellId    the id of the cell
+     * @param indexRule the index of the rule
+     * @return true if the cell is one of the cells of the rule
+     */
+    public boolean isCellInRule(int cellId, int indexRule) {
+        this.ensureCompiled();
+        return this.hasRule(cellId, this.cellRuleStart[cellId + 1], indexRule);
+    }
+
+    /**
+     * Gets the mask of the symbols used in the specified rule by scanning its
+     * positions. Prefer {@link #getUsedMask(int)} when the index of the rule is
+     * known.
+     *
+     * @param rule the rule to get the symbols from
+     * @return the mask of the symbols used in the rule
+     */
+    public long usedMask(Rule rule) {
+        this.ensureCompiled();
+        long used = 0L;
         for (Position position : rule.getRulePositions()) {
-            if (this.getSymbol(position) != null) {
-                symbols.add(this.getSymbol(position));
+            int index = this.getSymbolIndex(this.getSymbol(position));
+            if (index >= 0) {
+                used |= 1L << index;
             }
         }
-        return symbols;
+        return used;
     }
 
     /**
@@ -483,7 +1024,275 @@ public class Grid {
      * @return the number of possible plays
      */
     public int countPossiblePlays(Position position) {
-        return this.getPossiblePlays(position).size();
+        return Long.bitCount(this.getCandidates(position));
+    }
+
+    /**
+     * Gets the index of a symbol in the alphabet of the grid.
+     *
+     * @param symbol the symbol to look up
+     * @return the index of the symbol, or -1 if the symbol is unknown
+     */
+    public int getSymbolIndex(String symbol) {
+        if (symbol == null) {
+            return -1;
+        }
+        this.ensureCompiled();
+        Integer index = this.symbolIndex.get(symbol);
+        return index == null ? -1 : index;
+    }
+
+    /**
+     * Gets the symbol at the specified index of the alphabet of the grid.
+     *
+     * @param index the index of the symbol
+     * @return the symbol at the specified index
+     */
+    public String getSymbolAt(int index) {
+        this.ensureCompiled();
+        return this.alphabet.get(index);
+    }
+
+    /**
+     * Gets the number of distinct symbols over all the symbol sets of the grid.
+     *
+     * @return the size of the alphabet
+     */
+    public int getAlphabetSize() {
+        this.ensureCompiled();
+        return this.alphabet.size();
+    }
+
+    /**
+     * Gets the mask of the symbol set at the specified index.
+     *
+     * @param indexSymbols the index of the symbol set
+     * @return the mask of the symbol set
+     */
+    public long getSymbolsMask(int indexSymbols) {
+        this.ensureCompiled();
+        return this.symbolsMasks[indexSymbols];
+    }
+
+    /**
+     * Converts a set of symbols to a mask over the alphabet of the grid. Unknown
+     * symbols are ignored.
+     *
+     * @param symbols the symbols to convert
+     * @return the mask of the symbols
+     */
+    public long toMask(Set<String> symbols) {
+        long mask = 0L;
+        for (String symbol : symbols) {
+            int index = this.getSymbolIndex(symbol);
+            if (index >= 0) {
+                mask |= 1L << index;
+            }
+        }
+        return mask;
+    }
+
+    /**
+     * Converts a mask over the alphabet of the grid to a set of symbols.
+     *
+     * @param mask the mask to convert
+     * @return the set of symbols of the mask
+     */
+    public Set<String> toSymbols(long mask) {
+        Set<String> symbols = new HashSet<>();
+        if (mask == 0L) {
+            return symbols;
+        }
+        this.ensureCompiled();
+        for (long rest = mask; rest != 0L; rest &= rest - 1) {
+            symbols.add(this.alphabet.get(Long.numberOfTrailingZeros(rest)));
+        }
+        return symbols;
+    }
+
+    /**
+     * Compiles the grid into its compact storage.
+     * <p>
+     * The symbol sets are interned into a single alphabet so that every symbol is
+     * identified by a bit of a {@code long} mask. Cell values are stored as
+     * alphabet indices in a flat array indexed by cell id, and the rules covering
+     * each cell are flattened into a single adjacency array. The used symbols
+     * mask of every rule is then computed from the current cells. Finally the
+     * topology is compiled into compressed sparse row tables: the cells of each
+     * rule and the de-duplicated peers of each cell. Recompiling forgets the
+     * trail.
+     * <p>
+     * The {@link Cell} objects are kept in sync as a view of this storage, so
+     * cells must be modified through the grid.
+     */
+    private void ensureCompiled() {
+        if (this.compiled) {
+            return;
+        }
+        this.compileAlphabet();
+        this.compiled = true;
+        this.domainQueue = null;
+
+        int width = this.size == null ? 0 : this.size.getX();
+        int cellCount = this.size == null ? 0 : this.getCellCount();
+        this.values = new byte[cellCount];
+        this.eliminated = new long[cellCount];
+        this.trailCells = new int[cellCount];
+        this.trailMasks = new long[cellCount];
+        this.trailSize = 0;
+        this.cellRuleStart = new int[cellCount + 1];
+        this.emptyCells = 0;
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            Cell cell = this.gridCell[cellId / width][cellId % width];
+            int numberOfRules = 0;
+            if (cell == null) {
+                this.values[cellId] = NO_CELL;
+            } else {
+                Integer index = cell.getSymbol() == null ? null : this.symbolIndex.get(cell.getSymbol());
+                this.values[cellId] = index == null ? EMPTY : index.byteValue();
+                if (this.values[cellId] == EMPTY) {
+                    this.emptyCells++;
+                }
+                numberOfRules = (int) cell.getIdRules().stream().distinct().count();
+            }
+            this.cellRuleStart[cellId + 1] = this.cellRuleStart[cellId] + numberOfRules;
+        }
+
+        this.cellRules = new int[this.cellRuleStart[cellCount]];
+        this.ruleSymbolsMasks = new long[this.rules.size()];
+        this.usedMasks = new long[this.rules.size()];
+        if (this.ruleVersions == null || this.ruleVersions.length != this.rules.size()) {
+            this.ruleVersions = new int[this.rules.size()];
+        }
+        for (int i = 0; i < this.ruleVersions.length; i++) {
+            this.ruleVersions[i]++;
+        }
+        for (int i = 0; i < this.rules.size(); i++) {
+            this.ruleSymbolsMasks[i] = this.symbolsMasks[this.rules.get(i).getIndexSymbols()];
+        }
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            Cell cell = this.gridCell[cellId / width][cellId % width];
+            if (cell == null) {
+                continue;
+            }
+            int k = this.cellRuleStart[cellId];
+            for (int indexRule : cell.getIdRules()) {
+                if (this.hasRule(cellId, k, indexRule)) {
+                    continue;
+                }
+                this.cellRules[k++] = indexRule;
+                if (this.values[cellId] >= 0) {
+                    this.usedMasks[indexRule] |= 1L << this.values[cellId];
+                }
+            }
+        }
+        this.compileTopology(cellCount);
+    }
+
+    /**
+     * Checks if a rule is already in the flattened rules of a cell, among the
+     * ones written so far.
+     *
+     * @param cellId    the id of the cell
+     * @param end       the index after the last rule written for the cell
+     * @param indexRule the index of the rule
+     * @return true if the rule is already written, false otherwise
+     */
+    private boolean hasRule(int cellId, int end, int indexRule) {
+        for (int k = this.cellRuleStart[cellId]; k < end; k++) {
+            if (this.cellRules[k] == indexRule) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Compiles the rule to cells table and the peer table from the cell to rules
+     * table.
+     *
+     * @param cellCount the number of cell ids
+     */
+    private void compileTopology(int cellCount) {
+        int ruleCount = this.rules.size();
+        this.ruleCellStart = new int[ruleCount + 1];
+        for (int indexRule : this.cellRules) {
+            this.ruleCellStart[indexRule + 1]++;
+        }
+        for (int i = 0; i < ruleCount; i++) {
+            this.ruleCellStart[i + 1] += this.ruleCellStart[i];
+        }
+        this.ruleCells = new int[this.cellRules.length];
+        int[] fill = new int[ruleCount];
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+                int indexRule = this.cellRules[k];
+                this.ruleCells[this.ruleCellStart[indexRule] + fill[indexRule]++] = cellId;
+            }
+        }
+
+        int[] seen = new int[cellCount];
+        this.peerStart = new int[cellCount + 1];
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            this.peerStart[cellId + 1] = this.peerStart[cellId] + this.collectPeers(cellId, seen, null, 0);
+        }
+        this.peers = new int[this.peerStart[cellCount]];
+        Arrays.fill(seen, 0);
+        for (int cellId = 0; cellId < cellCount; cellId++) {
+            this.collectPeers(cellId, seen, this.peers, this.peerStart[cellId]);
+        }
+    }
+
+    /**
+     * Collects the distinct peers of a cell from the rule to cells table.
+     *
+     * @param cellId the id of the cell
+     * @param seen   marks of the peers already collected, indexed by cell id
+     * @param out    the array to write the peers to, or null to only count them
+     * @param offset the index of the first peer in {@code out}
+     * @return the number of peers of the cell
+     */
+    private int collectPeers(int cellId, int[] seen, int[] out, int offset) {
+        int count = 0;
+        for (int k = this.cellRuleStart[cellId]; k < this.cellRuleStart[cellId + 1]; k++) {
+            int indexRule = this.cellRules[k];
+            for (int j = this.ruleCellStart[indexRule]; j < this.ruleCellStart[indexRule + 1]; j++) {
+                int peer = this.ruleCells[j];
+                if (peer != cellId && seen[peer] != cellId + 1) {
+                    seen[peer] = cellId + 1;
+                    if (out != null) {
+                        out[offset + count] = peer;
+                    }
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Interns the symbol sets of the grid into a single alphabet.
+     */
+    private void compileAlphabet() {
+        this.alphabet.clear();
+        this.symbolIndex.clear();
+        this.symbolsMasks = new long[this.symbols.size()];
+        for (int i = 0; i < this.symbols.size(); i++) {
+            ArrayList<String> sorted = new ArrayList<>(this.symbols.get(i));
+            sorted.sort(Comparator.comparingInt(String::length).thenComparing(Comparator.naturalOrder()));
+            for (String symbol : sorted) {
+                Integer index = this.symbolIndex.get(symbol);
+                if (index == null) {
+                    if (this.alphabet.size() >= MAX_SYMBOLS) {
+                        throw new IllegalStateException("[Grid] More than " + MAX_SYMBOLS + " distinct symbols");
+                    }
+                    index = this.alphabet.size();
+                    this.alphabet.add(symbol);
+                    this.symbolIndex.put(symbol, index);
+                }
+                this.symbolsMasks[i] |= 1L << index;
+            }
+        }
     }
 
     /**
@@ -493,6 +1302,7 @@ public class Grid {
      */
     public void addRule(Rule rule) {
         this.rules.add(rule);
+        this.compiled = false;
     }
 
     /**
@@ -520,6 +1330,7 @@ public class Grid {
      */
     public void setCell(Position position, Cell cell) {
         this.gridCell[position.getY()][position.getX()] = cell;
+        this.compiled = false;
     }
 
     /**
@@ -529,6 +1340,40 @@ public class Grid {
      */
     public void setRules(ArrayList<Rule> rules) {
         this.rules.addAll(rules);
+        this.compiled = false;
+    }
+
+    /**
+     * Replaces the rule at the specified index by another one over existing
+     * cells. Only the cells leaving or joining the rule are updated, and the
+     * new rule keeps the index and the symbols of the old one, so the other
+     * rules and the values of the cells are unchanged.
+     *
+     * @param index the index of the rule to replace
+     * @param rule  the new rule
+     * @throws IllegalArgumentException if a position of the new rule has no
+     *                                  cell
+     */
+    public void setRule(int index, Rule rule) {
+        Rule old = this.rules.get(index);
+        for (Position position : rule.getRulePositions()) {
+            if (!this.isInsideGrid(position)) {
+                throw new IllegalArgumentException("[Grid] No cell at " + position);
+            }
+        }
+        for (Position position : old.getRulePositions()) {
+            if (!rule.getRulePositions().contains(position)) {
+                this.gridCell[position.getY()][position.getX()].deleteRule(index);
+            }
+        }
+        for (Position position : rule.getRulePositions()) {
+            if (!old.getRulePositions().contains(position)) {
+                this.gridCell[position.getY()][position.getX()].addRule(index);
+            }
+        }
+        rule.setIndexSymbols(old.getIndexSymbols());
+        this.rules.set(index, rule);
+        this.compiled = false;
     }
 
     /**
@@ -547,6 +1392,131 @@ public class Grid {
      */
     public void setSymboles(ArrayList<Set<String>> symboles) {
         this.symbols.addAll(symboles);
+        this.compiled = false;
+    }
+
+    /**
+     * Creates an independent copy of the grid, for instance to search it on
+     * another thread.
+     * <p>
+     * Rules and symbol sets are shared with this grid as they are not modified
+     * while solving. Cells, values, used symbols masks and eliminations are
+     * copied, and the compiled topology tables, which are immutable, are shared.
+     * The copy starts with an empty trail.
+     *
+     * @return the copy of the grid
+     */
+    public Grid copy() {
+        this.ensureCompiled();
+        Grid copy = new Grid(this.size.getX(), this.size.getY());
+        copy.rules.addAll(this.rules);
+        copy.symbols.addAll(this.symbols);
+        copy.colors = this.colors;
+        copy.randomBlock = this.randomBlock;
+        for (int y = 0; y < this.size.getY(); y++) {
+            for (int x = 0; x < this.size.getX(); x++) {
+                Cell cell = this.gridCell[y][x];
+                if (cell != null) {
+                    Cell cellCopy = new Cell(new ArrayList<>(cell.getIdRules()));
+                    if (cell.getSymbol() != null) {
+                        cellCopy.insertSymbol(cell.getSymbol());
+                    }
+                    copy.gridCell[y][x] = cellCopy;
+                }
+            }
+        }
+
+        copy.alphabet.addAll(this.alphabet);
+        copy.symbolIndex.putAll(this.symbolIndex);
+        copy.symbolsMasks = this.symbolsMasks;
+        copy.ruleSymbolsMasks = this.ruleSymbolsMasks;
+        copy.cellRuleStart = this.cellRuleStart;
+        copy.cellRules = this.cellRules;
+        copy.ruleCellStart = this.ruleCellStart;
+        copy.ruleCells = this.ruleCells;
+        copy.peerStart = this.peerStart;
+        copy.peers = this.peers;
+        copy.values = this.values.clone();
+        copy.usedMasks = this.usedMasks.clone();
+        copy.ruleVersions = new int[this.ruleVersions.length];
+        copy.eliminated = this.eliminated.clone();
+        copy.trailCells = new int[this.trailCells.length];
+        copy.trailMasks = new long[this.trailMasks.length];
+        copy.trailSize = 0;
+        copy.emptyCells = this.emptyCells;
+        copy.compiled = true;
+        return copy;
+    }
+
+    /**
+     * Inserts in the empty cells of this grid the values of another grid with
+     * the same layout, typically a solved {@link #copy()} of this grid.
+     *
+     * @param source the grid to copy the values from
+     */
+    public void copyValuesFrom(Grid source) {
+        for (int cellId = 0; cellId < this.getCellCount(); cellId++) {
+            int value = source.getValue(cellId);
+            if (value >= 0 && this.getValue(cellId) == EMPTY) {
+                this.insertValue(cellId, value);
+            }
+        }
+    }
+
+    /**
+     * Empties every cell and forgets the trail, keeping the layout of the
+     * grid and everything compiled from it, so that the grid can be loaded
+     * with other givens without being rebuilt.
+     */
+    public void clearValues() {
+        this.ensureCompiled();
+        for (int cellId = 0; cellId < this.values.length; cellId++) {
+            this.clearValue(cellId);
+        }
+        this.resetTrail();
+    }
+
+    /**
+     * Replaces the values of the grid by the given ones and forgets the
+     * trail. Together with a solver kept for the same grid, this solves many
+     * puzzles of the same layout without allocating anything.
+     *
+     * @param givens the index of the symbol of every cell, {@link #EMPTY} for
+     *               an empty cell; the cells outside the grid are ignored
+     * @return true if every given was inserted, false if one of them breaks a
+     *         rule, its cell being left empty
+     * @throws IllegalArgumentException if there is not one given per cell
+     */
+    public boolean loadValues(int[] givens) {
+        this.ensureCompiled();
+        if (givens.length != this.values.length) {
+            throw new IllegalArgumentException("[Grid] Expected " + this.values.length + " givens, got " + givens.length);
+        }
+        for (int cellId = 0; cellId < this.values.length; cellId++) {
+            this.clearValue(cellId);
+        }
+        boolean consistent = true;
+        for (int cellId = 0; cellId < this.values.length; cellId++) {
+            if (givens[cellId] >= 0 && this.values[cellId] == EMPTY) {
+                consistent &= this.insertValue(cellId, givens[cellId]);
+            }
+        }
+        this.resetTrail();
+        return consistent;
+    }
+
+    /**
+     * Copies the values of the grid into an array, in the format read by
+     * {@link #loadValues(int[])}.
+     *
+     * @param values the array receiving the value of every cell, with
+     *               {@link #NO_CELL} for the cells outside the grid
+     */
+    public void getValues(int[] values) {
+        this.ensureCompiled();
+        for (int cellId = 0; cellId < this.values.length; cellId++) {
+            values[cellId] = this.values[cellId];
+        }
     }
 
     /**
@@ -0,0 +1,473 @@
+package sudoku;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.random.RandomGenerator;
+
+import sudoku.rule.BlockRule;
+import sudoku.rule.Rule;
+
+/**
+ * Reshapes the blocks of a solved grid into random connected regions, for jigsaw sudokus.
+ * <p>
+ * The blocks keep their number and their size: a cell leaves its block for a neighbouring one in
+ * exchange for a cell of that block next to it. The exchange is kept if both blocks stay connected,
+ * which is checked locally, in constant time: a cell can leave its block if its neighbours in the
+ * block are linked to each other around it, in its 8-neighbourhood, and the cell taking its place
+ * must touch what is left of the block.
+ * <p>
+ * When the two cells hold the same symbol the solution stays valid as it is. Otherwise only the
+ * two blocks are solved again, by a small backtracking search against the rest of the grid, and the
+ * exchange is undone if no solution is found within {@link #MAX_NODES} nodes. An exchange thus costs
+ * a bounded amount of work, and a few dozen are attempted per cell, so the blocks are reshaped in
+ * time linear in the number of cells for a given block size, while mixing them far more than
+ * exchanges of same-symbol cells alone would.
+ * <p>
+ * The new {@link BlockRule blocks} replace the old ones in the grid at the same indexes through
+ * {@link Grid#setRule(int, Rule)}, and the grid is given the reshaped solution. The blocks the grid
+ * had when the generator was created can be put back with {@link #restore()}, for instance to fill
+ * the grid again with a generator that only knows the regular layout.
+ */
+public class JigsawGenerator {
+
+    /**
+     * Number of exchanges attempted per cell of the blocks.
+     */
+    public static final int ROUNDS = 32;
+
+    /**
+     * Number of nodes the search solving two blocks again may explore before the exchange is undone.
+     */
+    public static final int MAX_NODES = 100;
+
+    // The 8-neighbourhood of a cell, clockwise from the top: orthogonal neighbours at even indexes
+    private static final int[] RING_X = {0, 1, 1, 1, 0, -1, -1, -1};
+    private static final int[] RING_Y = {-1, -1, 0, 1, 1, 1, 0, -1};
+    private static final int ORTHOGONAL = 0b01010101;
+
+    private final Grid grid;
+    private final int width;
+    private final int height;
+    private final int blockSize;
+    private final long alphabet;
+    private final int[] blockRules;
+    private final Rule[] baseBlocks;
+    private final boolean[] isBlock;
+
+    // The cells of the blocks, grouped by region, and the rank of every cell in this array
+    private final int[] cells;
+    private final int[] slots;
+    private final int[] regions;
+    private final int[] values;
+
+    // The rules of every cell that are not blocks, and the symbols used by them and by every region
+    private final int[] ruleStart;
+    private final int[] ruleList;
+    private final long[] used;
+    private final long[] regionUsed;
+
+    // Work areas of the search solving two blocks again
+    private final int[] empties;
+    private final int[] saved;
+    private RandomGenerator random;
+    private int nodes;
+
+    /**
+     * Constructs a generator for the blocks of a grid, remembering them as the layout to
+     * {@link #restore()}.
+     *
+     * @param grid the grid whose blocks are reshaped
+     * @throws IllegalArgumentException if the grid has no block, if its blocks differ in size or if
+     *                                  a cell belongs to several blocks
+     */
+    public JigsawGenerator(Grid grid) {
+        this.grid = grid;
+        this.width = grid.getSize().getX();
+        this.height = grid.getSize().getY();
+        this.alphabet = (1L << grid.getAlphabetSize()) - 1;
+
+        List<Integer> blocks = new ArrayList<>();
+        this.isBlock = new boolean[grid.getRules().size()];
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (grid.getRule(indexRule) instanceof BlockRule) {
+                blocks.add(indexRule);
+                isBlock[indexRule] = true;
+            }
+        }
+        if (blocks.isEmpty()) {
+            throw new IllegalArgumentException("[JigsawGenerator] The grid has no block");
+        }
+        this.blockRules = new int[blocks.size()];
+        this.baseBlocks = new Rule[blocks.size()];
+        this.blockSize = grid.getNumberOfCells(blocks.get(0));
+        for (int region = 0; region < blockRules.length; region++) {
+            blockRules[region] = blocks.get(region);
+            baseBlocks[region] = grid.getRule(blockRules[region]);
+            if (grid.getNumberOfCells(blockRules[region]) != blockSize) {
+                throw new IllegalArgumentException("[JigsawGenerator] Blocks must all have the same size");
+            }
+        }
+
+        this.cells = new int[blockRules.length * blockSize];
+        this.slots = new int[grid.getCellCount()];
+        this.regions = new int[grid.getCellCount()];
+        this.values = new int[grid.getCellCount()];
+        this.used = new long[isBlock.length];
+        this.regionUsed = new long[blockRules.length];
+        this.empties = new int[2 * blockSize];
+        this.saved = new int[2 * blockSize];
+        this.ruleStart = new int[grid.getCellCount() + 1];
+        List<Integer> otherRules = new ArrayList<>();
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            ruleStart[cellId] = otherRules.size();
+            for (int k = 0; k < grid.getNumberOfRules(cellId); k++) {
+                if (!isBlock[grid.getRuleOf(cellId, k)]) {
+                    otherRules.add(grid.getRuleOf(cellId, k));
+                }
+            }
+        }
+        ruleStart[grid.getCellCount()] = otherRules.size();
+        this.ruleList = otherRules.stream().mapToInt(Integer::intValue).toArray();
+        loadBlocks();
+        for (int cellId : cells) {
+            if (slots[cellId] < 0) {
+                throw new IllegalArgumentException("[JigsawGenerator] Cell " + grid.getCellPosition(cellId)
+                        + " belongs to several blocks");
+            }
+        }
+    }
+
+    /**
+     * Reshapes the blocks of the grid, which must be solved, and replaces them in the grid together
+     * with its new solution.
+     *
+     * @param random the source of the random choices
+     * @return the new blocks, in the order of their indexes in the grid
+     * @throws IllegalStateException if a cell of a block is empty
+     */
+    public List<BlockRule> reshape(RandomGenerator random) {
+        this.random = random;
+        loadBlocks();
+        grid.getValues(values);
+        Arrays.fill(used, 0L);
+        Arrays.fill(regionUsed, 0L);
+        for (int cellId : cells) {
+            if (values[cellId] < 0) {
+                throw new IllegalStateException("[JigsawGenerator] The grid must be solved");
+            }
+        }
+        for (int indexRule = 0; indexRule < isBlock.length; indexRule++) {
+            if (isBlock[indexRule]) {
+                continue;
+            }
+            for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+                int value = values[grid.getCellOf(indexRule, k)];
+                if (value >= 0) {
+                    used[indexRule] |= 1L << value;
+                }
+            }
+        }
+        for (int cellId : cells) {
+            regionUsed[regions[cellId]] |= 1L << values[cellId];
+        }
+
+        long attempts = (long) ROUNDS * cells.length;
+        for (long attempt = 0; attempt < attempts; attempt++) {
+            exchange(cells[random.nextInt(cells.length)], 2 * random.nextInt(4));
+        }
+
+        List<Set<Position>> positions = new ArrayList<>(blockRules.length);
+        for (int region = 0; region < blockRules.length; region++) {
+            positions.add(new HashSet<>());
+        }
+        for (int cellId : cells) {
+            positions.get(regions[cellId]).add(grid.getCellPosition(cellId));
+        }
+        List<BlockRule> blocks = new ArrayList<>(blockRules.length);
+        for (int region = 0; region < blockRules.length; region++) {
+            BlockRule block = new BlockRule(positions.get(region));
+            grid.setRule(blockRules[region], block);
+            blocks.add(block);
+        }
+        grid.loadValues(values);
+        this.random = null;
+        return blocks;
+    }
+
+    /**
+     * Puts back the blocks the grid had when the generator was created. The values of the grid are
+     * left as they are, so they may break the restored blocks until the grid is filled again.
+     */
+    public void restore() {
+        for (int region = 0; region < blockRules.length; region++) {
+            grid.setRule(blockRules[region], baseBlocks[region]);
+        }
+    }
+
+    /**
+     * Reads the current blocks of the grid into the regions and the cells grouped by region. A
+     * cell in several blocks keeps the slot -1.
+     */
+    private void loadBlocks() {
+        Arrays.fill(regions, -1);
+        Arrays.fill(slots, -1);
+        int count = 0;
+        for (int region = 0; region < blockRules.length; region++) {
+            for (int k = 0; k < blockSize; k++) {
+                int cellId = grid.getCellOf(blockRules[region], k);
+                slots[cellId] = regions[cellId] < 0 ? count : -1;
+                regions[cellId] = region;
+                cells[count++] = cellId;
+            }
+        }
+    }
+
+    /**
+     * Attempts to move a cell to the neighbouring block in the given direction, in exchange for a
+     * cell of that block, keeping both blocks connected and the grid solved.
+     *
+     * @param cellId    the id of the cell to move
+     * @param direction the index of an orthogonal direction in the ring
+     */
+    private void exchange(int cellId, int direction) {
+        int x = cellId % width;
+        int y = cellId / width;
+        int from = regions[cellId];
+        int to = regionAt(x + RING_X[direction], y + RING_Y[direction]);
+        if (to < 0 || to == from || !canLeave(cellId, from)) {
+            return;
+        }
+        regions[cellId] = to;
+        int other = -1;
+        int start = random.nextInt(RING_X.length);
+        for (int k = 0; k < RING_X.length && other < 0; k++) {
+            int neighbourX = x + RING_X[(start + k) % RING_X.length];
+            int neighbourY = y + RING_Y[(start + k) % RING_X.length];
+            if (regionAt(neighbourX, neighbourY) != to) {
+                continue;
+            }
+            int neighbour = neighbourY * width + neighbourX;
+            if (touches(neighbour, from) && canLeave(neighbour, to)) {
+                other = neighbour;
+            }
+        }
+        if (other < 0) {
+            regions[cellId] = from;
+            return;
+        }
+        regions[other] = from;
+        swapSlots(cellId, other);
+        if (values[cellId] != values[other] && !solveAgain(from, to)) {
+            regions[cellId] = from;
+            regions[other] = to;
+            swapSlots(cellId, other);
+            recount(from);
+            recount(to);
+        }
+    }
+
+    /**
+     * Computes again the symbols used by a region from the values of its cells.
+     */
+    private void recount(int region) {
+        regionUsed[region] = 0L;
+        for (int i = region * blockSize; i < (region + 1) * blockSize; i++) {
+            regionUsed[region] |= 1L << values[cells[i]];
+        }
+    }
+
+    /**
+     * Swaps the slots of two cells, moving each one into the group of cells of its new region.
+     */
+    private void swapSlots(int first, int second) {
+        int slot = slots[first];
+        slots[first] = slots[second];
+        slots[second] = slot;
+        cells[slots[first]] = first;
+        cells[slots[second]] = second;
+    }
+
+    /**
+     * Solves the cells of two regions again, the rest of the grid being fixed. The values of the
+     * cells are put back if no solution is found, the symbols used by the two regions being left
+     * for the caller to {@link #recount(int) recount}.
+     *
+     * @return true if the regions were solved
+     */
+    private boolean solveAgain(int first, int second) {
+        System.arraycopy(cells, first * blockSize, empties, 0, blockSize);
+        System.arraycopy(cells, second * blockSize, empties, blockSize, blockSize);
+        for (int i = 0; i < empties.length; i++) {
+            saved[i] = values[empties[i]];
+            setValue(empties[i], Grid.EMPTY);
+        }
+        regionUsed[first] = 0L;
+        regionUsed[second] = 0L;
+        nodes = 0;
+        if (fill(0)) {
+            return true;
+        }
+        // The search reorders the empty cells, but not the cells of the regions they were copied from
+        for (int i = 0; i < empties.length; i++) {
+            setValue(empties[i], Grid.EMPTY);
+        }
+        for (int i = 0; i < blockSize; i++) {
+            setValue(cells[first * blockSize + i], saved[i]);
+            setValue(cells[second * blockSize + i], saved[blockSize + i]);
+        }
+        return false;
+    }
+
+    /**
+     * Fills the empty cells from the given depth on, the most constrained first and with random
+     * symbols.
+     *
+     * @return true if every cell was filled
+     */
+    private boolean fill(int depth) {
+        if (depth == empties.length) {
+            return true;
+        }
+        if (++nodes > MAX_NODES) {
+            return false;
+        }
+        int best = depth;
+        long bestCandidates = 0L;
+        int bestCount = Integer.MAX_VALUE;
+        for (int i = depth; i < empties.length && bestCount > 1; i++) {
+            long candidates = candidates(empties[i]);
+            int count = Long.bitCount(candidates);
+            if (count < bestCount) {
+                best = i;
+                bestCandidates = candidates;
+                bestCount = count;
+            }
+        }
+        if (bestCount == 0) {
+            return false;
+        }
+        int cellId = empties[best];
+        empties[best] = empties[depth];
+        empties[depth] = cellId;
+        long candidates = bestCandidates;
+        while (candidates != 0L) {
+            long bit = candidates;
+            for (int skip = random.nextInt(Long.bitCount(candidates)); skip > 0; skip--) {
+                bit &= bit - 1;
+            }
+            bit &= -bit;
+            candidates &= ~bit;
+            setValue(cellId, Long.numberOfTrailingZeros(bit));
+            if (fill(depth + 1)) {
+                return true;
+            }
+            setValue(cellId, Grid.EMPTY);
+        }
+        return false;
+    }
+
+    /**
+     * Gets the symbols a cell can take, given the rules covering it and its region.
+     */
+    private long candidates(int cellId) {
+        long taken = regionUsed[regions[cellId]];
+        for (int k = ruleStart[cellId]; k < ruleStart[cellId + 1]; k++) {
+            taken |= used[ruleList[k]];
+        }
+        return ~taken & alphabet;
+    }
+
+    /**
+     * Sets the value of a cell, keeping the symbols used by its rules and its region up to date.
+     *
+     * @param cellId the id of the cell
+     * @param value  the index of the symbol, {@link Grid#EMPTY} to empty the cell
+     */
+    private void setValue(int cellId, int value) {
+        int old = values[cellId];
+        if (old >= 0) {
+            update(cellId, ~(1L << old), 0L);
+        }
+        values[cellId] = value;
+        if (value >= 0) {
+            update(cellId, -1L, 1L << value);
+        }
+    }
+
+    private void update(int cellId, long keep, long add) {
+        regionUsed[regions[cellId]] = (regionUsed[regions[cellId]] & keep) | add;
+        for (int k = ruleStart[cellId]; k < ruleStart[cellId + 1]; k++) {
+            used[ruleList[k]] = (used[ruleList[k]] & keep) | add;
+        }
+    }
+
+    /**
+     * Gets the region of the cell at the given coordinates.
+     *
+     * @return the region, or -1 outside of the blocks
+     */
+    private int regionAt(int x, int y) {
+        if (x < 0 || y < 0 || x >= width || y >= height) {
+            return -1;
+        }
+        return regions[y * width + x];
+    }
+
+    /**
+     * Checks if a cell has an orthogonal neighbour in the given region.
+     */
+    private boolean touches(int cellId, int region) {
+        int x = cellId % width;
+        int y = cellId / width;
+        for (int direction = 0; direction < RING_X.length; direction += 2) {
+            if (regionAt(x + RING_X[direction], y + RING_Y[direction]) == region) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks if a cell can leave its region without splitting it: every orthogonal neighbour of the
+     * cell in the region must belong to the same run of region cells around it. A path of the region
+     * going through the cell can then go around it instead.
+     *
+     * @param cellId the id of the cell
+     * @param region the region of the cell
+     * @return true if the region stays connected without the cell
+     */
+    private boolean canLeave(int cellId, int region) {
+        int x = cellId % width;
+        int y = cellId / width;
+        int ring = 0;
+        for (int k = 0; k < RING_X.length; k++) {
+            if (regionAt(x + RING_X[k], y + RING_Y[k]) == region) {
+                ring |= 1 << k;
+            }
+        }
+        if ((ring & ORTHOGONAL) == 0) {
+            return false;
+        }
+        if (ring == 0xFF) {
+            return true;
+        }
+        int runs = 0;
+        for (int start = 0; start < RING_X.length; start++) {
+            // A run starts at a region cell whose previous neighbour around the ring is not one
+            if ((ring & (1 << start)) == 0 || (ring & (1 << ((start + 7) % 8))) != 0) {
+                continue;
+            }
+            boolean orthogonal = false;
+            for (int k = start; (ring & (1 << (k % 8))) != 0; k++) {
+                orthogonal |= (ORTHOGONAL & (1 << (k % 8))) != 0;
+            }
+            if (orthogonal && ++runs > 1) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
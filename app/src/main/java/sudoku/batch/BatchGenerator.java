@@ -0,0 +1,181 @@
+package sudoku.batch;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sudoku.GenerateSudoku;
+import solvers.rating.Difficulty;
+import sudoku.Grid;
+import utils.Colors;
+
+/**
+ * Generates many puzzles of the same layout across a pool of workers, handing each one to a
+ * {@link PuzzleSink} as soon as it is ready.
+ * <p>
+ * Every worker builds its own grid from the layout and keeps it for the whole run, together with a
+ * {@link GenerateSudoku} and its solver, and draws its random choices from its own stream split
+ * from the seed of the run. The workers only share the counter of the puzzles left to generate and
+ * the sink, which receives one puzzle at a time, so the throughput grows with the number of cores
+ * and no puzzle is kept once written. The order of the puzzles depends on the scheduling of the
+ * workers.
+ * <p>
+ * The puzzles either have a fixed percentage of their cells removed, or are rated in a target
+ * {@link Difficulty} band, in which case the puzzles that miss the band are counted as rejected.
+ * <p>
+ * The progress of a run can be read from another thread with {@link #getProgress()}, and is logged
+ * every {@value #PROGRESS_INTERVAL} puzzles.
+ */
+public class BatchGenerator {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        BatchGenerator.class
+    );
+
+    /**
+     * Number of puzzles between two logs of the progress.
+     */
+    public static final long PROGRESS_INTERVAL = 1000;
+
+    private final int workers;
+    private final Supplier<Grid> layout;
+    private final double percentage;
+    private final Difficulty difficulty;
+    private final GenerateSudoku.SolverType solverType;
+    private final long seed;
+    private volatile GenerationProgress progress;
+
+    /**
+     * Constructs a {@code BatchGenerator}.
+     *
+     * @param workers    the number of workers
+     * @param layout     the factory of the empty grids, called once per worker
+     * @param percentage the percentage of cells to remove from every puzzle
+     * @param solverType the solver filling the grids and checking the uniqueness of the puzzles
+     * @param seed       the seed of the random streams of the workers
+     */
+    public BatchGenerator(int workers, Supplier<Grid> layout, double percentage,
+                          GenerateSudoku.SolverType solverType, long seed) {
+        this(workers, layout, percentage, null, solverType, seed);
+    }
+
+    /**
+     * Constructs a {@code BatchGenerator} of puzzles rated in a difficulty band.
+     *
+     * @param workers    the number of workers
+     * @param layout     the factory of the empty grids, called once per worker
+     * @param difficulty the band of the generated puzzles
+     * @param solverType the solver filling the grids and checking the uniqueness of the puzzles
+     * @param seed       the seed of the random streams of the workers
+     */
+    public BatchGenerator(int workers, Supplier<Grid> layout, Difficulty difficulty,
+                          GenerateSudoku.SolverType solverType, long seed) {
+        this(workers, layout, 1.0, difficulty, solverType, seed);
+    }
+
+    private BatchGenerator(int workers, Supplier<Grid> layout, double percentage, Difficulty difficulty,
+                           GenerateSudoku.SolverType solverType, long seed) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("[BatchGenerator] Number of workers must be positive");
+        }
+        this.workers = workers;
+        this.layout = layout;
+        this.percentage = percentage;
+        this.difficulty = difficulty;
+        this.solverType = solverType;
+        this.seed = seed;
+    }
+
+    /**
+     * Generates puzzles until the count is reached, handing them to the sink as they come.
+     *
+     * @param count the number of puzzles to generate
+     * @param sink  the receiver of the puzzles, called by one worker at a time
+     * @return the counters of the run
+     * @throws IOException if the sink fails, which stops the run
+     */
+    public GenerationProgress generate(long count, PuzzleSink sink) throws IOException {
+        GenerationProgress run = new GenerationProgress(count, workers);
+        progress = run;
+        AtomicLong claimed = new AtomicLong();
+        Object sinkLock = new Object();
+        SplittableRandom streams = new SplittableRandom(seed);
+        logger.info(
+            Colors.GREEN + "Generating {} puzzles with {} workers..." + Colors.RESET,
+            count,
+            workers
+        );
+
+        ExecutorService executor = Executors.newFixedThreadPool(
+            workers,
+            Thread.ofPlatform().name("generate-worker-", 0).factory()
+        );
+        try {
+            List<Future<Void>> tasks = new ArrayList<>(workers);
+            for (int worker = 0; worker < workers; worker++) {
+                SplittableRandom random = streams.split();
+                tasks.add(executor.submit(() -> {
+                    work(random, count, claimed, sink, sinkLock, run);
+                    return null;
+                }));
+            }
+            for (Future<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("[BatchGenerator] Interrupted while generating", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IllegalStateException("[BatchGenerator] Worker failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+            run.finish();
+        }
+        logger.info(Colors.SUCCESS_COLOR + "{}" + Colors.RESET, run);
+        return run;
+    }
+
+    /**
+     * Generates puzzles on a worker until every puzzle of the run is claimed.
+     */
+    private void work(SplittableRandom random, long count, AtomicLong claimed, PuzzleSink sink,
+                      Object sinkLock, GenerationProgress run) throws IOException {
+        Grid grid = layout.get();
+        GenerateSudoku generator = difficulty == null
+                ? new GenerateSudoku(grid, percentage, random)
+                : new GenerateSudoku(grid, difficulty, random);
+        long rejected = 0;
+        while (!Thread.currentThread().isInterrupted() && claimed.getAndIncrement() < count) {
+            grid.clearValues();
+            generator.generateSudoku(solverType);
+            run.countRejected(generator.getRejectedCount() - rejected);
+            rejected = generator.getRejectedCount();
+            synchronized (sinkLock) {
+                sink.accept(grid);
+            }
+            if (run.countGenerated() % PROGRESS_INTERVAL == 0) {
+                logger.info(Colors.INFO_COLOR + "{}" + Colors.RESET, run);
+            }
+        }
+    }
+
+    /**
+     * Gets the counters of the current or last run.
+     *
+     * @return the counters, or null before the first run
+     */
+    public GenerationProgress getProgress() {
+        return progress;
+    }
+}
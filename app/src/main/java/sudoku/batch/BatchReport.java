@@ -0,0 +1,106 @@
+package sudoku.batch;
+
+import solvers.SolveResult;
+
+/**
+ * The statistics of a run of the {@link BatchSolver}.
+ */
+public class BatchReport {
+
+    private final int workers;
+    private long puzzles;
+    private long solved;
+    private long unsolvable;
+    private long stopped;
+    private long invalid;
+    private long elapsedNanos;
+
+    /**
+     * Constructs an empty report.
+     *
+     * @param workers the number of workers of the run
+     */
+    BatchReport(int workers) {
+        this.workers = workers;
+    }
+
+    /**
+     * Counts a puzzle.
+     *
+     * @param status how its search ended, or null if the puzzle could not be read
+     */
+    void count(SolveResult.Status status) {
+        puzzles++;
+        if (status == null) {
+            invalid++;
+        } else if (status == SolveResult.Status.SOLVED) {
+            solved++;
+        } else if (status == SolveResult.Status.UNSAT) {
+            unsolvable++;
+        } else {
+            stopped++;
+        }
+    }
+
+    void setElapsedNanos(long elapsedNanos) {
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getPuzzles() {
+        return puzzles;
+    }
+
+    public long getSolved() {
+        return solved;
+    }
+
+    /**
+     * Gets the number of puzzles proved to have no solution, their givens included.
+     */
+    public long getUnsolvable() {
+        return unsolvable;
+    }
+
+    /**
+     * Gets the number of puzzles whose search timed out or was cancelled.
+     */
+    public long getStopped() {
+        return stopped;
+    }
+
+    /**
+     * Gets the number of lines or grids that are not a puzzle of the format.
+     */
+    public long getInvalid() {
+        return invalid;
+    }
+
+    public long getElapsedMillis() {
+        return elapsedNanos / 1_000_000;
+    }
+
+    public double getPuzzlesPerSecond() {
+        return elapsedNanos == 0 ? 0.0 : puzzles * 1e9 / elapsedNanos;
+    }
+
+    /**
+     * Gets the throughput of a single core: workers beyond the number of processors do not add any
+     * core, so the throughput is divided by the smaller of the two.
+     */
+    public double getPuzzlesPerSecondPerCore() {
+        return getPuzzlesPerSecond() / Math.min(workers, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%d puzzles (%d solved, %d unsolvable, %d stopped, %d invalid) in %dms: %.0f puzzles/s, %.0f puzzles/s/core",
+            puzzles, solved, unsolvable, stopped, invalid, getElapsedMillis(),
+            getPuzzlesPerSecond(), getPuzzlesPerSecondPerCore()
+        );
+    }
+}
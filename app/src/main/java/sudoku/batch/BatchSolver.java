@@ -0,0 +1,268 @@
+package sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import solvers.SolveOptions;
+import solvers.SolveResult;
+import solvers.Solver;
+import solvers.classic.ClassicSolver;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.configuration.SudokuImporter;
+import sudoku.configuration.SudokuSaver;
+import sudoku.sudoku.SudokuClassic;
+import utils.Colors;
+
+/**
+ * Solves every puzzle of a file across a pool of workers, writing the results in the order of the
+ * input.
+ * <p>
+ * The puzzles are read one at a time by a {@link PuzzleReader} and handed to the workers. At most a
+ * fixed window of puzzles is in flight: once the window is full, the oldest puzzle is waited for and
+ * written before the next one is read. Memory therefore stays constant however large the file is,
+ * and a hard puzzle only holds back the output while the workers go on with the rest of the window.
+ * <p>
+ * Every worker keeps its grid and its solver from one puzzle to the next of the {@link
+ * PuzzleFormat#LINE line format}: the new givens are loaded with {@link Solver#load(int[])} and the
+ * same solver is run again. Grids of the {@link PuzzleFormat#PROJECT project format} each have their own
+ * layout, so they get their own grid and solver.
+ * <p>
+ * A solved puzzle is written as its solution, in the format of the input. In the line format, a
+ * puzzle without solution is written as read, followed by a space and how its search ended.
+ */
+public class BatchSolver {
+
+    private static final Logger logger = LoggerFactory.getLogger(
+        BatchSolver.class
+    );
+
+    /**
+     * Number of puzzles in flight per worker.
+     */
+    public static final int WINDOW_PER_WORKER = 64;
+
+    private final int workers;
+    private final Function<Grid, Solver> solverFactory;
+    private final SolveOptions options;
+
+    /**
+     * Constructs a {@code BatchSolver} dispatching every grid to {@link ClassicSolver#create(Grid)},
+     * without limits.
+     *
+     * @param workers the number of workers
+     */
+    public BatchSolver(int workers) {
+        this(workers, ClassicSolver::create, SolveOptions.NONE);
+    }
+
+    /**
+     * Constructs a {@code BatchSolver}.
+     *
+     * @param workers       the number of workers
+     * @param solverFactory the factory of the solvers, called once per worker and grid
+     * @param options       the limits of the search of every puzzle
+     */
+    public BatchSolver(int workers, Function<Grid, Solver> solverFactory, SolveOptions options) {
+        if (workers <= 0) {
+            throw new IllegalArgumentException("[BatchSolver] Number of workers must be positive");
+        }
+        this.workers = workers;
+        this.solverFactory = solverFactory;
+        this.options = options;
+    }
+
+    /**
+     * Solves every puzzle of the input and writes the results to the output, in the same order.
+     * The format is detected from the first puzzle.
+     *
+     * @param input  the reader of the puzzles
+     * @param output the writer of the results, flushed at the end
+     * @return the statistics of the run
+     * @throws IOException if the input or the output fails
+     */
+    public BatchReport solve(BufferedReader input, BufferedWriter output) throws IOException {
+        PuzzleReader reader = PuzzleReader.open(input);
+        PuzzleFormat format = reader.getFormat();
+        BatchReport report = new BatchReport(workers);
+        ThreadLocal<Worker> states = ThreadLocal.withInitial(() -> new Worker(format));
+        int window = workers * WINDOW_PER_WORKER;
+        ArrayDeque<Future<Outcome>> pending = new ArrayDeque<>(window);
+        logger.info(
+            Colors.GREEN + "Starting batch of {} puzzles with {} workers..." + Colors.RESET,
+            format,
+            workers
+        );
+
+        long start = System.nanoTime();
+        ExecutorService executor = Executors.newFixedThreadPool(
+            workers,
+            Thread.ofPlatform().name("batch-worker-", 0).factory()
+        );
+        try {
+            String puzzle;
+            while ((puzzle = reader.next()) != null) {
+                if (pending.size() == window) {
+                    write(pending.poll(), output, report);
+                }
+                String text = puzzle;
+                pending.add(executor.submit(() -> states.get().solve(text)));
+            }
+            while (!pending.isEmpty()) {
+                write(pending.poll(), output, report);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        output.flush();
+        report.setElapsedNanos(System.nanoTime() - start);
+        logger.info(Colors.SUCCESS_COLOR + "{}" + Colors.RESET, report);
+        return report;
+    }
+
+    /**
+     * Waits for the outcome of a puzzle and writes it.
+     */
+    private static void write(Future<Outcome> future, BufferedWriter output, BatchReport report) throws IOException {
+        Outcome outcome;
+        try {
+            outcome = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("[BatchSolver] Interrupted while waiting for a puzzle", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("[BatchSolver] Worker failed", e.getCause());
+        }
+        output.write(outcome.text);
+        output.newLine();
+        report.count(outcome.status);
+    }
+
+    /**
+     * The result of a puzzle: the text to write and how its search ended, null if the puzzle could
+     * not be read.
+     */
+    private static final class Outcome {
+        private final String text;
+        private final SolveResult.Status status;
+
+        private Outcome(String text, SolveResult.Status status) {
+            this.text = text;
+            this.status = status;
+        }
+    }
+
+    /**
+     * The state of a worker thread, reused from one puzzle to the next.
+     */
+    private final class Worker {
+        private final PuzzleFormat format;
+        private Grid grid;
+        private Solver solver;
+        private int size;
+        private char[] symbols;
+        private int[] indexes;
+        private int[] givens;
+        private char[] solution;
+
+        private Worker(PuzzleFormat format) {
+            this.format = format;
+        }
+
+        private Outcome solve(String puzzle) {
+            try {
+                return format == PuzzleFormat.LINE ? solveLine(puzzle) : solveGrid(puzzle);
+            } catch (RuntimeException | IOException e) {
+                logger.warn(
+                    Colors.WARNING_COLOR + "Invalid puzzle: {}" + Colors.RESET,
+                    e.getMessage()
+                );
+                return new Outcome(format == PuzzleFormat.LINE ? puzzle + " INVALID" : puzzle, null);
+            }
+        }
+
+        /**
+         * Loads a puzzle of the line format into the grid of the worker and solves it.
+         */
+        private Outcome solveLine(String puzzle) {
+            int length = puzzle.length();
+            int puzzleSize = (int) Math.round(Math.sqrt(length));
+            int block = (int) Math.round(Math.sqrt(puzzleSize));
+            if (puzzleSize * puzzleSize != length || block * block != puzzleSize || puzzleSize > Character.MAX_RADIX - 1) {
+                throw new IllegalArgumentException("[BatchSolver] A line of " + length + " characters is not a grid with square blocks");
+            }
+            if (grid == null || size != puzzleSize) {
+                createGrid(puzzleSize, block);
+            }
+            for (int cellId = 0; cellId < length; cellId++) {
+                char c = puzzle.charAt(cellId);
+                if (c == '.' || c == '0') {
+                    givens[cellId] = Grid.EMPTY;
+                    continue;
+                }
+                int digit = Character.digit(c, Character.MAX_RADIX);
+                if (digit < 1 || digit > size) {
+                    throw new IllegalArgumentException("[BatchSolver] Unexpected symbol '" + c + "'");
+                }
+                givens[cellId] = indexes[digit - 1];
+            }
+            if (!solver.load(givens)) {
+                return new Outcome(puzzle + " " + SolveResult.Status.UNSAT, SolveResult.Status.UNSAT);
+            }
+
+            SolveResult result = solver.solve(options);
+            if (!result.isSolved()) {
+                return new Outcome(puzzle + " " + result.getStatus(), result.getStatus());
+            }
+            for (int cellId = 0; cellId < length; cellId++) {
+                solution[cellId] = symbols[grid.getValue(cellId)];
+            }
+            return new Outcome(new String(solution), result.getStatus());
+        }
+
+        /**
+         * Creates the grid of the worker for puzzles of the given size, and its solver.
+         */
+        private void createGrid(int puzzleSize, int block) {
+            grid = new Grid.Builder()
+                    .addSudoku(new SudokuClassic(new Position(block, block), new Position(block, block)))
+                    .build();
+            solver = solverFactory.apply(grid);
+            size = puzzleSize;
+            symbols = new char[puzzleSize];
+            indexes = new int[puzzleSize];
+            for (int index = 0; index < puzzleSize; index++) {
+                symbols[index] = PuzzleFormat.toLineSymbol(grid.getSymbolAt(index));
+                indexes[Character.digit(symbols[index], Character.MAX_RADIX) - 1] = index;
+            }
+            givens = new int[puzzleSize * puzzleSize];
+            solution = new char[puzzleSize * puzzleSize];
+        }
+
+        /**
+         * Reads a grid of the project format and solves it with a solver of its own.
+         */
+        private Outcome solveGrid(String puzzle) throws IOException {
+            Grid puzzleGrid = SudokuImporter.importFrom(new BufferedReader(new StringReader(puzzle)));
+            if (puzzleGrid == null) {
+                throw new IllegalArgumentException("[BatchSolver] No grid found");
+            }
+            SolveResult result = solverFactory.apply(puzzleGrid).solve(options);
+            StringWriter text = new StringWriter();
+            try (BufferedWriter writer = new BufferedWriter(text)) {
+                SudokuSaver.write(puzzleGrid, writer);
+            }
+            return new Outcome(text.toString(), result.getStatus());
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package sudoku.batch;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The counters of a run of the {@link BatchGenerator}, updated by its workers and readable from any
+ * thread while the run goes on.
+ */
+public class GenerationProgress {
+
+    private final long target;
+    private final int workers;
+    private final AtomicLong generated = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final long startNanos;
+    private volatile long endNanos;
+    private volatile boolean finished;
+
+    /**
+     * Constructs the counters of a run starting now.
+     *
+     * @param target  the number of puzzles requested
+     * @param workers the number of workers of the run
+     */
+    GenerationProgress(long target, int workers) {
+        this.target = target;
+        this.workers = workers;
+        this.startNanos = System.nanoTime();
+    }
+
+    /**
+     * Counts a puzzle handed to the sink.
+     *
+     * @return the number of puzzles generated so far
+     */
+    long countGenerated() {
+        return generated.incrementAndGet();
+    }
+
+    /**
+     * Counts puzzles discarded because they missed the target difficulty.
+     *
+     * @param count the number of discarded puzzles
+     */
+    void countRejected(long count) {
+        rejected.addAndGet(count);
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+        finished = true;
+    }
+
+    public long getTarget() {
+        return target;
+    }
+
+    public int getWorkers() {
+        return workers;
+    }
+
+    public long getGenerated() {
+        return generated.get();
+    }
+
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    /**
+     * Checks if the run is over.
+     */
+    public boolean isFinished() {
+        return finished;
+    }
+
+    public long getElapsedMillis() {
+        return ((isFinished() ? endNanos : System.nanoTime()) - startNanos) / 1_000_000;
+    }
+
+    public double getPuzzlesPerSecond() {
+        long elapsed = (isFinished() ? endNanos : System.nanoTime()) - startNanos;
+        return elapsed == 0 ? 0.0 : getGenerated() * 1e9 / elapsed;
+    }
+
+    /**
+     * Gets the throughput of a single core: workers beyond the number of processors do not add any
+     * core, so the throughput is divided by the smaller of the two.
+     */
+    public double getPuzzlesPerSecondPerCore() {
+        return getPuzzlesPerSecond() / Math.min(workers, Runtime.getRuntime().availableProcessors());
+    }
+
+    @Override
+    public String toString() {
+        return String.format(
+            "%d/%d puzzles (%d rejected) in %dms: %.0f puzzles/s, %.0f puzzles/s/core",
+            getGenerated(), target, getRejected(), getElapsedMillis(),
+            getPuzzlesPerSecond(), getPuzzlesPerSecondPerCore()
+        );
+    }
+}
@@ -0,0 +1,49 @@
+package sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import solvers.SolveOptions;
+import sudoku.GenerateSudoku;
+
+/**
+ * The MainBatch class serves as the entry point for solving a file of puzzles.
+ * <p>
+ * Usage: {@code MainBatch <input> <output> [workers] [solver]}, where the number of workers defaults
+ * to the number of processors and the solver to {@link GenerateSudoku.SolverType#CLASSIC}.
+ */
+public class MainBatch {
+
+    /**
+     * The main method that solves every puzzle of the input file into the output file and prints the
+     * throughput.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MainBatch <input> <output> [workers] [solver]");
+            System.exit(1);
+        }
+        int workers = args.length > 2
+                ? Integer.parseInt(args[2])
+                : Runtime.getRuntime().availableProcessors();
+        GenerateSudoku.SolverType solverType = args.length > 3
+                ? GenerateSudoku.SolverType.valueOf(args[3].toUpperCase())
+                : GenerateSudoku.SolverType.CLASSIC;
+
+        BatchSolver batch = new BatchSolver(
+            workers,
+            grid -> GenerateSudoku.createSolver(solverType, grid),
+            SolveOptions.NONE
+        );
+        try (BufferedReader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8);
+             BufferedWriter writer = Files.newBufferedWriter(Path.of(args[1]), StandardCharsets.UTF_8)) {
+            System.out.println(batch.solve(reader, writer));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package sudoku.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.function.Supplier;
+import solvers.rating.Difficulty;
+import sudoku.GenerateSudoku;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+/**
+ * The MainGenerate class serves as the entry point for generating a file of puzzles.
+ * <p>
+ * Usage: {@code MainGenerate <output> <count> [block width] [block height] [percentage|difficulty]
+ * [workers] [seed]}. The grids are classic sudokus with blocks of 3x3 cells by default, and half of
+ * their cells are removed, unless a {@link Difficulty} band such as {@code medium} is given instead
+ * of a percentage. Grids with square blocks are written in the line format, the others in the format
+ * of the project.
+ */
+public class MainGenerate {
+
+    /**
+     * The main method that generates the puzzles into the output file and prints the throughput.
+     *
+     * @param args the command-line arguments
+     * @throws IOException if the file cannot be written
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: MainGenerate <output> <count> [block width] [block height] [percentage|difficulty] [workers] [seed]");
+            System.exit(1);
+        }
+        long count = Long.parseLong(args[1]);
+        int blockWidth = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        int blockHeight = args.length > 3 ? Integer.parseInt(args[3]) : blockWidth;
+        String removal = args.length > 4 ? args[4] : "0.5";
+        int workers = args.length > 5
+                ? Integer.parseInt(args[5])
+                : Runtime.getRuntime().availableProcessors();
+        long seed = args.length > 6 ? Long.parseLong(args[6]) : System.nanoTime();
+
+        Position block = new Position(blockWidth, blockHeight);
+        Position blocks = new Position(blockHeight, blockWidth);
+        Supplier<Grid> layout = () -> new Grid.Builder().addSudoku(new SudokuClassic(block, blocks)).build();
+        BatchGenerator generator = Character.isLetter(removal.charAt(0))
+            ? new BatchGenerator(workers, layout, Difficulty.valueOf(removal.toUpperCase(Locale.ROOT)),
+                GenerateSudoku.SolverType.CLASSIC, seed)
+            : new BatchGenerator(workers, layout, Double.parseDouble(removal),
+                GenerateSudoku.SolverType.CLASSIC, seed);
+        boolean lines = blockWidth == blockHeight;
+        try (BufferedWriter writer = Files.newBufferedWriter(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            PuzzleSink sink = lines ? PuzzleSink.lines(writer) : PuzzleSink.project(writer);
+            System.out.println(generator.generate(count, sink));
+        }
+    }
+}
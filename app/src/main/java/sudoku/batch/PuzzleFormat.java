@@ -0,0 +1,49 @@
+package sudoku.batch;
+
+/**
+ * The formats of the puzzle files read by the {@link BatchSolver}.
+ */
+public enum PuzzleFormat {
+    /**
+     * One puzzle per line, its N² cells row by row: {@code 1} to {@code 9} then {@code A} to
+     * {@code Z} for the symbols, {@code .} or {@code 0} for the empty cells. This is the common
+     * 81 characters format of 9x9 puzzles, extended to N²xN² grids with square blocks. Blank lines
+     * and lines starting with {@code #} are skipped.
+     */
+    LINE,
+    /**
+     * The format written by {@link sudoku.configuration.SudokuSaver}, one grid after the other
+     * separated by blank lines. Every grid has its own layout.
+     */
+    PROJECT;
+
+    /**
+     * Detects the format of a file from its first meaningful line.
+     *
+     * @param firstLine the first line which is neither blank nor a comment
+     * @return the format
+     */
+    public static PuzzleFormat detect(String firstLine) {
+        return firstLine.startsWith("Size:") ? PROJECT : LINE;
+    }
+
+    /**
+     * Gets the character of a symbol of a classic sudoku in the line format.
+     *
+     * @param symbol the symbol, a number from 1 to 35
+     * @return the character of the symbol
+     * @throws IllegalArgumentException if the symbol has no character
+     */
+    static char toLineSymbol(String symbol) {
+        int digit;
+        try {
+            digit = Integer.parseInt(symbol);
+        } catch (NumberFormatException e) {
+            digit = -1;
+        }
+        if (digit < 1 || digit >= Character.MAX_RADIX) {
+            throw new IllegalArgumentException("[PuzzleFormat] Symbol " + symbol + " has no character in the line format");
+        }
+        return Character.toUpperCase(Character.forDigit(digit, Character.MAX_RADIX));
+    }
+}
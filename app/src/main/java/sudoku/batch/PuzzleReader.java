@@ -0,0 +1,105 @@
+package sudoku.batch;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * Reads the puzzles of a file one at a time, as text, so that files of any size are read in
+ * constant memory. The text of a puzzle is parsed by the worker solving it.
+ */
+public class PuzzleReader implements Closeable {
+
+    /**
+     * Number of characters read ahead to detect the format.
+     */
+    private static final int DETECTION_LIMIT = 1 << 16;
+
+    private final BufferedReader reader;
+    private final PuzzleFormat format;
+
+    /**
+     * Constructs a reader of puzzles in a known format.
+     *
+     * @param reader the reader of the file
+     * @param format the format of the file
+     */
+    public PuzzleReader(BufferedReader reader, PuzzleFormat format) {
+        this.reader = reader;
+        this.format = format;
+    }
+
+    /**
+     * Constructs a reader of puzzles, detecting the format from the first meaningful line.
+     *
+     * @param reader the reader of the file
+     * @return the puzzle reader
+     * @throws IOException if the reader fails
+     */
+    public static PuzzleReader open(BufferedReader reader) throws IOException {
+        reader.mark(DETECTION_LIMIT);
+        String line;
+        while ((line = reader.readLine()) != null && isSkipped(line.trim())) {
+            // Skip to the first puzzle
+        }
+        reader.reset();
+        return new PuzzleReader(reader, line == null ? PuzzleFormat.LINE : PuzzleFormat.detect(line.trim()));
+    }
+
+    public PuzzleFormat getFormat() {
+        return format;
+    }
+
+    /**
+     * Reads the text of the next puzzle.
+     *
+     * @return the text, or null at the end of the file
+     * @throws IOException if the reader fails
+     */
+    public String next() throws IOException {
+        return format == PuzzleFormat.LINE ? nextLine() : nextGrid();
+    }
+
+    private String nextLine() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null) {
+            line = line.trim();
+            if (!isSkipped(line)) {
+                return line;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Reads the lines of a grid, from its size to the blank line ending its grid section.
+     */
+    private String nextGrid() throws IOException {
+        String line;
+        while ((line = reader.readLine()) != null && !line.startsWith("Size:")) {
+            // Skip the blank lines between two grids
+        }
+        if (line == null) {
+            return null;
+        }
+        StringBuilder text = new StringBuilder();
+        boolean readingGrid = false;
+        do {
+            if (readingGrid && line.isEmpty()) {
+                break;
+            }
+            readingGrid |= line.startsWith("Grid:");
+            text.append(line).append('\n');
+        } while ((line = reader.readLine()) != null);
+        return text.toString();
+    }
+
+    private static boolean isSkipped(String line) {
+        return line.isEmpty() || line.startsWith("#");
+    }
+
+    @Override
+    public void close() throws IOException {
+        reader.close();
+    }
+}
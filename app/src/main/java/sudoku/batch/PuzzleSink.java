@@ -0,0 +1,55 @@
+package sudoku.batch;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import sudoku.Grid;
+import sudoku.configuration.SudokuSaver;
+
+/**
+ * Receives the puzzles of a {@link BatchGenerator} as soon as they are generated.
+ * <p>
+ * The generator calls the sink from its workers, one puzzle at a time, and reuses the grid once the
+ * call returns: a sink writes the puzzle out or copies what it needs, it does not keep the grid.
+ */
+@FunctionalInterface
+public interface PuzzleSink {
+
+    /**
+     * Receives a generated puzzle.
+     *
+     * @param puzzle the puzzle, valid until the method returns
+     * @throws IOException if the puzzle cannot be written
+     */
+    void accept(Grid puzzle) throws IOException;
+
+    /**
+     * Creates a sink writing each puzzle on one line, in the {@link PuzzleFormat#LINE line format}.
+     * The grid must be a single classic sudoku with numbers as symbols.
+     *
+     * @param writer the writer of the lines
+     * @return the sink
+     */
+    static PuzzleSink lines(BufferedWriter writer) {
+        return puzzle -> {
+            for (int cellId = 0; cellId < puzzle.getCellCount(); cellId++) {
+                int value = puzzle.getValue(cellId);
+                writer.write(value < 0 ? '.' : PuzzleFormat.toLineSymbol(puzzle.getSymbolAt(value)));
+            }
+            writer.newLine();
+        };
+    }
+
+    /**
+     * Creates a sink writing each puzzle in the {@link PuzzleFormat#PROJECT project format}, the
+     * grids being separated by blank lines.
+     *
+     * @param writer the writer of the grids
+     * @return the sink
+     */
+    static PuzzleSink project(BufferedWriter writer) {
+        return puzzle -> {
+            SudokuSaver.write(puzzle, writer);
+            writer.newLine();
+        };
+    }
+}
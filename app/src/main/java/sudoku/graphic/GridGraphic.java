@@ -1,6 +1,8 @@
 package sudoku.graphic;
 
 import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
 
 import javax.swing.BorderFactory;
 import javax.swing.JFrame;
@@ -10,6 +12,9 @@ import javax.swing.JPanel;
 import javax.swing.SwingConstants;
 import javax.swing.SwingUtilities;
 
+import solvers.CancellationToken;
+import solvers.SolveOptions;
+import solvers.SolveResult;
 import solvers.Solver;
 import solvers.backtrack.Backtrack;
 import solvers.backtrack.BacktrackOptimized;
@@ -100,65 +105,75 @@ public class GridGraphic {
     }
 
     /**
-     * Adds buttons for solving the Sudoku grid using different algorithms.
+     * Adds buttons for solving the Sudoku grid using different algorithms. The
+     * solve buttons are disabled while a solver runs.
      */
     private void addSolveButtons() {
-        javax.swing.JButton solveButton = new javax.swing.JButton("WFC");
-        solveButton.setBounds(frame.getWidth() - 300, 150, 200, 50);
-        solveButton.addActionListener(e -> {
-            solveButton.setEnabled(false);
-            new Thread(() -> {
-                Solver solver = new WaveFunctionCollapse(grid);
-                startVisualization();
-                solver.solve();
-
-                // Ensure final state is shown
-                SwingUtilities.invokeLater(() -> {
-                    draw(); // Force one final update
-                    stopVisualization();
-                    solveButton.setEnabled(true);
-                });
-            }).start();
-        });
-        frame.add(solveButton);
-
-        javax.swing.JButton solveButtonBacktrack = new javax.swing.JButton("Backtrack");
-        solveButtonBacktrack.setBounds(frame.getWidth() - 300, 200, 200, 50);
-        solveButtonBacktrack.addActionListener(e -> {
-            solveButtonBacktrack.setEnabled(false);
-            new Thread(() -> {
-                Solver solver = new Backtrack(grid);
-                startVisualization();
-                solver.solve();
-
-                // Ensure final state is shown
-                SwingUtilities.invokeLater(() -> {
-                    draw(); // Force one final update
-                    stopVisualization();
-                    solveButtonBacktrack.setEnabled(true);
-                });
-            }).start();
-        });
-        frame.add(solveButtonBacktrack);
-
-        javax.swing.JButton solveButtonBacktrackOptimized = new javax.swing.JButton("Backtrack Optimized");
-        solveButtonBacktrackOptimized.setBounds(frame.getWidth() - 300, 250, 200, 50);
-        solveButtonBacktrackOptimized.addActionListener(e -> {
-            solveButtonBacktrackOptimized.setEnabled(false);
-            new Thread(() -> {
-                Solver solver = new BacktrackOptimized(grid);
-                startVisualization();
-                solver.solve();
-
-                // Ensure final state is shown
-                SwingUtilities.invokeLater(() -> {
-                    draw(); // Force one final update
-                    stopVisualization();
-                    solveButtonBacktrackOptimized.setEnabled(true);
-                });
-            }).start();
+        solveButtons.clear();
+        addSolveButton("WFC", 150, () -> new WaveFunctionCollapse(grid));
+        addSolveButton("Backtrack", 200, () -> new Backtrack(grid));
+        addSolveButton("Backtrack Optimized", 250, () -> new BacktrackOptimized(grid));
+
+        javax.swing.JButton stopButton = new javax.swing.JButton("Arrêter");
+        stopButton.setBounds(frame.getWidth() - 300, 400, 200, 50);
+        stopButton.addActionListener(e -> {
+            CancellationToken token = solving;
+            if (token != null) {
+                token.cancel();
+            }
         });
-        frame.add(solveButtonBacktrackOptimized);
+        frame.add(stopButton);
+    }
+
+    /**
+     * Adds a button starting a solver.
+     *
+     * @param label  the text of the button
+     * @param y      the vertical position of the button
+     * @param solver creates the solver, on the thread running it
+     */
+    private void addSolveButton(String label, int y, Supplier<Solver> solver) {
+        javax.swing.JButton button = new javax.swing.JButton(label);
+        button.setBounds(frame.getWidth() - 300, y, 200, 50);
+        button.setEnabled(solving == null);
+        button.addActionListener(e -> solveInBackground(solver));
+        solveButtons.add(button);
+        frame.add(button);
+    }
+
+    private final List<javax.swing.JButton> solveButtons = new ArrayList<>();
+    private volatile CancellationToken solving;
+
+    /**
+     * Runs a solver on a background thread while the grid is visualized. The
+     * search can be stopped with the stop button, and no other solver can be
+     * started until it returns.
+     *
+     * @param solver creates the solver to run on the grid
+     */
+    private void solveInBackground(Supplier<Solver> solver) {
+        if (solving != null) {
+            return;
+        }
+        CancellationToken token = new CancellationToken();
+        solving = token;
+        for (javax.swing.JButton button : solveButtons) {
+            button.setEnabled(false);
+        }
+        new Thread(() -> {
+            startVisualization();
+            SolveResult result = solver.get().solve(new SolveOptions.Builder().cancellation(token).build());
+
+            // Ensure final state is shown
+            SwingUtilities.invokeLater(() -> {
+                stopVisualization();
+                solving = null;
+                draw(); // Force one final update, enabling the solve buttons again
+                if (result.getStatus() == SolveResult.Status.UNSAT) {
+                    JOptionPane.showMessageDialog(frame, "Aucune solution trouvée.");
+                }
+            });
+        }).start();
     }
 
     private volatile boolean isVisualizing = false;
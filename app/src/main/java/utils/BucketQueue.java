@@ -0,0 +1,198 @@
+package utils;
+
+import java.util.Arrays;
+
+/**
+ * An indexed priority queue of ids with small integer keys.
+ * <p>
+ * Every key has a bucket, a doubly linked list of the ids with that key stored in flat int arrays
+ * indexed by id. Inserting, removing and changing the key of an id are O(1). The minimum key is
+ * tracked lazily: it only moves up when the queue is read, by at most {@code maxKey} steps, so
+ * reading the minimum is O(1) amortized while keys only vary in a small range.
+ * <p>
+ * It is used to pick the empty cell with the fewest candidates, the key of a cell being the size of
+ * its domain.
+ */
+public final class BucketQueue {
+
+    private static final int NONE = -1;
+
+    private final int[] keys;
+    private final int[] next;
+    private final int[] previous;
+    private final int[] heads;
+    private final int[] bucketSizes;
+    private int size;
+    private int minKey;
+
+    /**
+     * Constructs an empty queue.
+     *
+     * @param capacity the number of ids, which range from 0 to {@code capacity - 1}
+     * @param maxKey   the largest key
+     */
+    public BucketQueue(int capacity, int maxKey) {
+        this.keys = new int[capacity];
+        this.next = new int[capacity];
+        this.previous = new int[capacity];
+        this.heads = new int[maxKey + 1];
+        this.bucketSizes = new int[maxKey + 1];
+        this.clear();
+    }
+
+    /**
+     * Removes every id from the queue.
+     */
+    public void clear() {
+        Arrays.fill(this.keys, NONE);
+        Arrays.fill(this.heads, NONE);
+        Arrays.fill(this.bucketSizes, 0);
+        this.size = 0;
+        this.minKey = this.heads.length;
+    }
+
+    /**
+     * Inserts an id with the given key, or changes its key if it is already in the queue.
+     *
+     * @param id  the id
+     * @param key the key, between 0 and {@code maxKey}
+     */
+    public void update(int id, int key) {
+        int old = this.keys[id];
+        if (old == key) {
+            return;
+        }
+        if (old != NONE) {
+            this.unlink(id, old);
+        } else {
+            this.size++;
+        }
+        this.keys[id] = key;
+        this.next[id] = this.heads[key];
+        this.previous[id] = NONE;
+        if (this.heads[key] != NONE) {
+            this.previous[this.heads[key]] = id;
+        }
+        this.heads[key] = id;
+        this.bucketSizes[key]++;
+        if (key < this.minKey) {
+            this.minKey = key;
+        }
+    }
+
+    /**
+     * Removes an id from the queue, if it is in it.
+     *
+     * @param id the id
+     */
+    public void remove(int id) {
+        int key = this.keys[id];
+        if (key == NONE) {
+            return;
+        }
+        this.unlink(id, key);
+        this.keys[id] = NONE;
+        this.size--;
+    }
+
+    /**
+     * Removes an id from the list of its bucket.
+     *
+     * @param id  the id
+     * @param key the key of the id
+     */
+    private void unlink(int id, int key) {
+        if (this.previous[id] != NONE) {
+            this.next[this.previous[id]] = this.next[id];
+        } else {
+            this.heads[key] = this.next[id];
+        }
+        if (this.next[id] != NONE) {
+            this.previous[this.next[id]] = this.previous[id];
+        }
+        this.bucketSizes[key]--;
+    }
+
+    /**
+     * Checks if an id is in the queue.
+     *
+     * @param id the id
+     * @return true if the id is in the queue, false otherwise
+     */
+    public boolean contains(int id) {
+        return this.keys[id] != NONE;
+    }
+
+    /**
+     * Gets the key of an id.
+     *
+     * @param id the id
+     * @return the key of the id, or -1 if it is not in the queue
+     */
+    public int getKey(int id) {
+        return this.keys[id];
+    }
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the smallest key of the queue.
+     *
+     * @return the smallest key, or -1 if the queue is empty
+     */
+    public int getMinKey() {
+        if (this.size == 0) {
+            return NONE;
+        }
+        while (this.heads[this.minKey] == NONE) {
+            this.minKey++;
+        }
+        return this.minKey;
+    }
+
+    /**
+     * Gets an id with the smallest key, the last one inserted in its bucket.
+     *
+     * @return the id, or -1 if the queue is empty
+     */
+    public int peekMin() {
+        int key = this.getMinKey();
+        return key == NONE ? NONE : this.heads[key];
+    }
+
+    /**
+     * Gets the number of ids with the given key.
+     *
+     * @param key the key
+     * @return the number of ids in the bucket of the key
+     */
+    public int getBucketSize(int key) {
+        return this.bucketSizes[key];
+    }
+
+    /**
+     * Gets the first id of a bucket. The others are reached with {@link #getNext(int)}.
+     *
+     * @param key the key of the bucket
+     * @return the first id, or -1 if the bucket is empty
+     */
+    public int getFirst(int key) {
+        return this.heads[key];
+    }
+
+    /**
+     * Gets the id following another one in its bucket.
+     *
+     * @param id the id, which must be in the queue
+     * @return the next id, or -1 if it is the last one of its bucket
+     */
+    public int getNext(int id) {
+        return this.next[id];
+    }
+}
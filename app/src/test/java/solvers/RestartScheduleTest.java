@@ -0,0 +1,30 @@
+package solvers;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RestartScheduleTest {
+
+    @Test
+    void testLubySequence() {
+        long[] expected = {1, 1, 2, 1, 1, 2, 4, 1, 1, 2, 1, 1, 2, 4, 8, 1};
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], RestartSchedule.lubyTerm(i), "term " + i);
+        }
+        RestartSchedule luby = RestartSchedule.luby(100);
+        assertEquals(100, luby.getLimit(0));
+        assertEquals(400, luby.getLimit(6));
+        assertThrows(IllegalArgumentException.class, () -> RestartSchedule.luby(0));
+    }
+
+    @Test
+    void testGeometric() {
+        RestartSchedule geometric = RestartSchedule.geometric(100, 2.0);
+        assertEquals(100, geometric.getLimit(0));
+        assertEquals(800, geometric.getLimit(3));
+        assertEquals(Long.MAX_VALUE, geometric.getLimit(100));
+        assertEquals(Long.MAX_VALUE, RestartSchedule.NEVER.getLimit(7));
+        assertThrows(IllegalArgumentException.class, () -> RestartSchedule.geometric(100, 1.0));
+    }
+}
@@ -0,0 +1,116 @@
+package solvers;
+
+import org.junit.jupiter.api.Test;
+import solvers.backtrack.Backtrack;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.classic.ClassicSolver;
+import solvers.dlx.DancingLinks;
+import solvers.sat.SatSolver;
+import solvers.wfc.WaveFunctionCollapse;
+import sudoku.Grid;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.classic;
+
+class SolverReloadTest {
+
+    private static final int PUZZLES = 32;
+    private static final int WARMUP_SOLVES = 3000;
+    private static final int MEASURED_SOLVES = 2000;
+
+    /**
+     * Generates the givens of random puzzles: a random solution with most of its cells emptied.
+     */
+    private static int[][] puzzles(long seed) {
+        Random random = new Random(seed);
+        int[][] puzzles = new int[PUZZLES][];
+        for (int i = 0; i < PUZZLES; i++) {
+            Grid grid = classic();
+            for (int k = 0; k < grid.getAlphabetSize(); k++) {
+                grid.insertValue(random.nextInt(grid.getCellCount()), k);
+            }
+            new DancingLinks(grid).solve();
+            puzzles[i] = new int[grid.getCellCount()];
+            grid.getValues(puzzles[i]);
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                if (random.nextInt(100) < 55) {
+                    puzzles[i][cellId] = Grid.EMPTY;
+                }
+            }
+        }
+        return puzzles;
+    }
+
+    @Test
+    void testReloadMatchesFreshGrid() {
+        int[][] puzzles = puzzles(1);
+        Grid grid = classic();
+        Solver solver = new ClassicSolver(grid);
+        int[] solution = new int[grid.getCellCount()];
+        int[] expected = new int[grid.getCellCount()];
+        for (int[] puzzle : puzzles) {
+            assertTrue(solver.load(puzzle));
+            assertEquals(0, grid.checkpoint());
+            assertEquals(1, solver.countSolutions(1));
+            solver.solve();
+            grid.getValues(solution);
+
+            Grid fresh = classic();
+            fresh.loadValues(puzzle);
+            new ClassicSolver(fresh).solve();
+            fresh.getValues(expected);
+            assertArrayEquals(expected, solution);
+        }
+
+        int[] conflicting = new int[grid.getCellCount()];
+        Arrays.fill(conflicting, Grid.EMPTY);
+        conflicting[0] = 0;
+        conflicting[1] = 0;
+        assertFalse(grid.loadValues(conflicting));
+        assertEquals(grid.getCellCount() - 1, grid.getNumberOfEmptyCells());
+        assertThrows(IllegalArgumentException.class, () -> grid.loadValues(new int[3]));
+    }
+
+    /**
+     * Benchmarks reloading one grid with new givens and solving it again with the same solver: once
+     * warmed up, the loop must not allocate.
+     */
+    @Test
+    void testReloadAndSolveDoNotAllocate() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long threadId = Thread.currentThread().threadId();
+        int[][] puzzles = puzzles(2);
+        List<Function<Grid, Solver>> factories = List.of(
+                ClassicSolver::new,
+                DancingLinks::new,
+                SatSolver::new,
+                BacktrackOptimized::new,
+                WaveFunctionCollapse::new,
+                Backtrack::new
+        );
+        for (Function<Grid, Solver> factory : factories) {
+            Grid grid = classic();
+            Solver solver = factory.apply(grid);
+            int solved = 0;
+            for (int i = 0; i < WARMUP_SOLVES; i++) {
+                solver.load(puzzles[i % PUZZLES]);
+                solver.solve();
+            }
+            long before = threads.getThreadAllocatedBytes(threadId);
+            for (int i = 0; i < MEASURED_SOLVES; i++) {
+                solver.load(puzzles[i % PUZZLES]);
+                solver.solve();
+                solved += grid.isComplete() ? 1 : 0;
+            }
+            long bytesPerSolve = (threads.getThreadAllocatedBytes(threadId) - before) / MEASURED_SOLVES;
+            assertEquals(MEASURED_SOLVES, solved);
+            assertEquals(0, bytesPerSolve, solver.getClass().getSimpleName() + " allocates while solving");
+        }
+    }
+}
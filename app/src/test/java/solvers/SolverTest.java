@@ -0,0 +1,148 @@
+package solvers;
+
+import org.junit.jupiter.api.Test;
+import solvers.backtrack.Backtrack;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.classic.ClassicSolver;
+import solvers.dlx.DancingLinks;
+import solvers.parallel.ParallelBacktrack;
+import solvers.parallel.Portfolio;
+import solvers.sat.SatSolver;
+import solvers.wfc.WaveFunctionCollapse;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SolverTest {
+
+    private static final List<Function<Grid, Solver>> SOLVERS = List.of(
+            Backtrack::new,
+            BacktrackOptimized::new,
+            WaveFunctionCollapse::new,
+            DancingLinks::new,
+            ParallelBacktrack::new,
+            Portfolio::new,
+            SatSolver::new,
+            ClassicSolver::new);
+
+    private static Grid firstRowGiven() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(2, 2), new Position(2, 2)))
+                .build();
+        grid.insertSymbol("1", new Position(0, 0));
+        grid.insertSymbol("2", new Position(1, 0));
+        grid.insertSymbol("3", new Position(2, 0));
+        grid.insertSymbol("4", new Position(3, 0));
+        return grid;
+    }
+
+    @Test
+    void testCountSolutions() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            Solver solver = factory.apply(grid);
+            assertEquals(12, solver.countSolutions(Integer.MAX_VALUE));
+            assertEquals(2, solver.countSolutions(2));
+            assertEquals(1, solver.countSolutions(1));
+            assertEquals(12, grid.getNumberOfEmptyCells());
+            assertNull(grid.getSymbol(new Position(0, 1)));
+        }
+    }
+
+    @Test
+    void testCountUniqueSolution() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            new DancingLinks(grid).solve();
+            grid.resetSymbol(new Position(0, 1));
+            grid.resetSymbol(new Position(2, 3));
+            assertEquals(1, factory.apply(grid).countSolutions(2));
+            assertEquals(2, grid.getNumberOfEmptyCells());
+        }
+    }
+
+    @Test
+    void testSolveResult() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            SolveResult result = factory.apply(grid).solve(SolveOptions.NONE);
+            assertEquals(SolveResult.Status.SOLVED, result.getStatus());
+            assertTrue(grid.isComplete());
+
+            grid = new Grid.Builder()
+                    .addSudoku(new SudokuClassic(4))
+                    .build();
+            grid.insertSymbol("1", new Position(0, 0));
+            grid.insertSymbol("2", new Position(1, 1));
+            grid.insertSymbol("3", new Position(2, 2));
+            grid.insertSymbol("2", new Position(2, 3));
+            grid.insertSymbol("3", new Position(3, 0));
+            result = factory.apply(grid).solve(SolveOptions.NONE);
+            assertEquals(SolveResult.Status.UNSAT, result.getStatus());
+        }
+    }
+
+    @Test
+    void testSolveLimits() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            Solver solver = factory.apply(grid);
+            SolveResult result = solver.solve(new SolveOptions.Builder().maxNodes(1).build());
+            assertEquals(SolveResult.Status.TIMED_OUT, result.getStatus());
+            assertEquals(12, grid.getNumberOfEmptyCells());
+
+            result = solver.solve(new SolveOptions.Builder().timeout(Duration.ZERO).build());
+            assertEquals(SolveResult.Status.TIMED_OUT, result.getStatus());
+            assertEquals(12, grid.getNumberOfEmptyCells());
+
+            CancellationToken token = new CancellationToken();
+            token.cancel();
+            result = solver.solve(new SolveOptions.Builder().cancellation(token).build());
+            assertEquals(SolveResult.Status.CANCELLED, result.getStatus());
+            assertEquals(12, grid.getNumberOfEmptyCells());
+
+            solver.setOptions(SolveOptions.NONE);
+            assertEquals(12, solver.countSolutions(Integer.MAX_VALUE));
+            assertFalse(solver.isStopped());
+        }
+    }
+
+    @Test
+    void testSolveAfterCount() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            Solver solver = factory.apply(grid);
+            solver.countSolutions(2);
+            solver.solve();
+            assertTrue(grid.isComplete());
+        }
+    }
+
+    @Test
+    void testHasOtherSolution() {
+        for (Function<Grid, Solver> factory : SOLVERS) {
+            Grid grid = firstRowGiven();
+            new DancingLinks(grid).solve();
+            Solver solver = factory.apply(grid);
+            // Empty the cells in turn, keeping the solution unique
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                int value = grid.getValue(cellId);
+                grid.resetValue(cellId);
+                int empty = grid.getNumberOfEmptyCells();
+                boolean expected = new DancingLinks(grid).countSolutions(2) > 1;
+                assertEquals(expected, solver.hasOtherSolution(cellId, value), "cell " + cellId);
+                assertEquals(empty, grid.getNumberOfEmptyCells());
+                if (expected) {
+                    grid.insertValue(cellId, value);
+                }
+            }
+            assertEquals(1, new DancingLinks(grid).countSolutions(2));
+        }
+    }
+}
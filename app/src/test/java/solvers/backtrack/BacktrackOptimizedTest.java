@@ -0,0 +1,89 @@
+package solvers.backtrack;
+
+import org.junit.jupiter.api.Test;
+import solvers.dlx.DancingLinks;
+import solvers.propagation.Propagator;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BacktrackOptimizedTest {
+
+    /**
+     * Builds a 9x9 grid from a random solution with most of its cells emptied, so that it has
+     * several solutions.
+     */
+    private static Grid sparseGrid(long seed) {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(3, 3), new Position(3, 3)))
+                .build();
+        Random random = new Random(seed);
+        for (int k = 0; k < 9; k++) {
+            grid.insertValue(random.nextInt(grid.getCellCount()), k);
+        }
+        new DancingLinks(grid).solve();
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            if (random.nextInt(100) < 65) {
+                grid.resetValue(cellId);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    void testBackjumpingKeepsEverySolution() {
+        long backjumps = 0;
+        for (long seed = 0; seed < 10; seed++) {
+            Grid grid = sparseGrid(seed);
+            int expected = new DancingLinks(grid).countSolutions(300);
+            for (int capacity : new int[] {0, BacktrackOptimized.DEFAULT_NOGOOD_CAPACITY}) {
+                BacktrackOptimized solver = new BacktrackOptimized(grid, Propagator.fromConfiguration(""), capacity);
+                assertEquals(expected, solver.countSolutions(300), "seed " + seed);
+                backjumps += solver.getBackjumps();
+
+                solver = new BacktrackOptimized(grid.copy(), Propagator.configured(), capacity);
+                assertEquals(expected, solver.countSolutions(300), "seed " + seed);
+            }
+        }
+        // Without propagation, some failures do not depend on the last decisions
+        assertTrue(backjumps > 0);
+    }
+
+    @Test
+    void testNogoodsAreLearned() {
+        long learned = 0;
+        for (long seed = 0; seed < 10; seed++) {
+            Grid grid = sparseGrid(seed);
+            BacktrackOptimized solver = new BacktrackOptimized(grid, Propagator.fromConfiguration(""), 16);
+            solver.solve();
+            assertTrue(grid.isComplete());
+            learned += solver.getLearnedNogoods();
+        }
+        assertTrue(learned > 0);
+        assertEquals(0, new BacktrackOptimized(sparseGrid(0), Propagator.configured(), 0).getLearnedNogoods());
+        assertThrows(IllegalArgumentException.class,
+                () -> new BacktrackOptimized(sparseGrid(0), Propagator.configured(), -1));
+    }
+
+    @Test
+    void testSearchRunsOnSmallStack() throws InterruptedException {
+        Grid large = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(5, 5), new Position(5, 5)))
+                .build();
+        Grid classic = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(3, 3), new Position(3, 3)))
+                .build();
+        Thread thread = new Thread(null, () -> {
+            new BacktrackOptimized(large, Propagator.fromConfiguration(""), 0).solve();
+            new Backtrack(classic).solve();
+        }, "small-stack", 64 * 1024);
+        thread.start();
+        thread.join();
+        assertTrue(large.isComplete());
+        assertTrue(classic.isComplete());
+    }
+}
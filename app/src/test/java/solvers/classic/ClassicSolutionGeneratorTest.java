@@ -0,0 +1,71 @@
+package solvers.classic;
+
+import org.junit.jupiter.api.Test;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.classic;
+
+class ClassicSolutionGeneratorTest {
+
+    @Test
+    void testSolutionsAreValid() {
+        int[][] blocks = {{2, 2}, {3, 3}, {3, 2}, {2, 3}, {4, 3}, {6, 4}, {4, 6}};
+        for (int[] block : blocks) {
+            Grid grid = classic(block[0], block[1]);
+            ClassicSolutionGenerator generator = ClassicSolutionGenerator.forGrid(grid);
+            assertNotNull(generator);
+            Random random = new Random(block[0] * 10L + block[1]);
+            for (int i = 0; i < 20; i++) {
+                int[] values = new int[grid.getCellCount()];
+                generator.generate(random, values);
+                // Loading fails on the first value breaking a rule
+                assertTrue(grid.loadValues(values), block[0] + "x" + block[1]);
+                assertTrue(grid.isComplete());
+            }
+        }
+    }
+
+    @Test
+    void testCanonicalSolutionIsValid() {
+        Grid grid = classic(4, 2);
+        ClassicSolutionGenerator generator = ClassicSolutionGenerator.forGrid(grid);
+        int[] values = new int[grid.getCellCount()];
+        for (int cellId = 0; cellId < values.length; cellId++) {
+            values[cellId] = generator.getCanonicalValue(cellId / 8, cellId % 8);
+        }
+        assertTrue(grid.loadValues(values));
+    }
+
+    @Test
+    void testSeedsGiveDifferentSolutions() {
+        Grid grid = classic(3, 3);
+        ClassicSolutionGenerator generator = ClassicSolutionGenerator.forGrid(grid);
+        int[] first = new int[grid.getCellCount()];
+        int[] second = new int[grid.getCellCount()];
+        generator.generate(new Random(1), first);
+        generator.generate(new Random(1), second);
+        assertArrayEquals(first, second);
+        generator.generate(new Random(2), second);
+        assertFalse(Arrays.equals(first, second));
+
+        generator.fill(grid, new Random(1));
+        int[] filled = new int[grid.getCellCount()];
+        grid.getValues(filled);
+        assertArrayEquals(first, filled);
+    }
+
+    @Test
+    void testIrregularLayoutsAreNotHandled() {
+        Grid overlapping = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .addSudoku(new SudokuClassic(4, new Position(2, 2)))
+                .build();
+        assertNull(ClassicSolutionGenerator.forGrid(overlapping));
+    }
+}
@@ -0,0 +1,135 @@
+package solvers.classic;
+
+import org.junit.jupiter.api.Test;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.dlx.DancingLinks;
+import sudoku.Cell;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.classic;
+
+class ClassicSolverTest {
+
+    /**
+     * Fills a grid with a random solution, then empties most of its cells.
+     */
+    private static Grid sparse(Grid grid, long seed, int percent) {
+        Random random = new Random(seed);
+        for (int k = 0; k < grid.getAlphabetSize(); k++) {
+            grid.insertValue(random.nextInt(grid.getCellCount()), k);
+        }
+        new DancingLinks(grid).solve();
+        for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+            if (random.nextInt(100) < percent) {
+                grid.resetValue(cellId);
+            }
+        }
+        return grid;
+    }
+
+    @Test
+    void testRecognizeClassicLayouts() {
+        ClassicLayout layout = ClassicLayout.recognize(classic(3, 3));
+        assertNotNull(layout);
+        assertEquals(9, layout.getSize());
+        assertEquals(4, layout.getBlock(5 * 9 + 4));
+
+        layout = ClassicLayout.recognize(classic(3, 2));
+        assertNotNull(layout);
+        assertEquals(3, layout.getBlockWidth());
+        assertEquals(2, layout.getBlockHeight());
+        assertEquals(2, layout.getBlock(2 * 6 + 1));
+
+        assertNotNull(ClassicLayout.recognize(new Grid.Builder().addSudoku(new SudokuClassic(16)).build()));
+    }
+
+    @Test
+    void testRejectOtherLayouts() {
+        Grid overlapping = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .addSudoku(new SudokuClassic(4, new Position(2, 2)))
+                .build();
+        assertNull(ClassicLayout.recognize(overlapping));
+        assertInstanceOf(BacktrackOptimized.class, ClassicSolver.create(overlapping));
+        assertThrows(IllegalArgumentException.class, () -> new ClassicSolver(overlapping));
+
+        // Blocks of a prime size are single rows
+        assertNull(ClassicLayout.recognize(new Grid.Builder().addSudoku(new SudokuClassic(5)).build()));
+    }
+
+    @Test
+    void testIrregularBlocks() {
+        // Swapping two cells between blocks, as random blocks do, breaks the rectangles
+        Grid irregular = classic(2, 2);
+        Position first = new Position(1, 1);
+        Position second = new Position(2, 0);
+        int firstBlock = blockOf(irregular, first);
+        int secondBlock = blockOf(irregular, second);
+        irregular.getRule(firstBlock).getRulePositions().remove(first);
+        irregular.getRule(firstBlock).getRulePositions().add(second);
+        irregular.getRule(secondBlock).getRulePositions().remove(second);
+        irregular.getRule(secondBlock).getRulePositions().add(first);
+        ArrayList<Integer> firstRules = new ArrayList<>(irregular.getCell(first).getIdRules());
+        ArrayList<Integer> secondRules = new ArrayList<>(irregular.getCell(second).getIdRules());
+        firstRules.set(firstRules.indexOf(firstBlock), secondBlock);
+        secondRules.set(secondRules.indexOf(secondBlock), firstBlock);
+        irregular.setCell(first, new Cell(firstRules));
+        irregular.setCell(second, new Cell(secondRules));
+        ClassicLayout layout = ClassicLayout.recognize(irregular);
+        assertNotNull(layout);
+        assertFalse(layout.isRegular());
+        // The cell moved to the top right block
+        assertEquals(layout.getBlock(irregular.getCellId(new Position(3, 0))), layout.getBlock(irregular.getCellId(first)));
+        assertNotEquals(layout.getBlock(0), layout.getBlock(irregular.getCellId(first)));
+        assertNull(ClassicSolutionGenerator.forGrid(irregular));
+        assertInstanceOf(ClassicSolver.class, ClassicSolver.create(irregular));
+        assertEquals(new DancingLinks(irregular).countSolutions(10),
+                ClassicSolver.create(irregular).countSolutions(10));
+    }
+
+    /**
+     * Finds the block rule of a position: its only rule spanning several rows and columns.
+     */
+    private static int blockOf(Grid grid, Position position) {
+        for (int indexRule : grid.getCell(position).getIdRules()) {
+            Set<Position> positions = grid.getRule(indexRule).getRulePositions();
+            if (positions.stream().map(Position::getX).distinct().count() > 1
+                    && positions.stream().map(Position::getY).distinct().count() > 1) {
+                return indexRule;
+            }
+        }
+        throw new IllegalStateException("No block at " + position);
+    }
+
+    @Test
+    void testCountsMatchDancingLinks() {
+        int[][] blocks = {{3, 3}, {3, 2}, {4, 3}};
+        for (int[] block : blocks) {
+            for (long seed = 0; seed < 10; seed++) {
+                Grid grid = sparse(classic(block[0], block[1]), seed, 60);
+                int expected = new DancingLinks(grid).countSolutions(100);
+                assertEquals(expected, new ClassicSolver(grid).countSolutions(100), "seed " + seed);
+                assertFalse(grid.isComplete());
+            }
+        }
+    }
+
+    @Test
+    void testSolveWritesBack() {
+        Grid grid = sparse(classic(3, 3), 7, 75);
+        ClassicSolver solver = new ClassicSolver(grid);
+        solver.solve();
+        assertTrue(grid.isComplete());
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            assertEquals(grid.getRuleSymbolsMask(indexRule), grid.getUsedMask(indexRule));
+        }
+        assertInstanceOf(ClassicSolver.class, ClassicSolver.create(grid));
+    }
+}
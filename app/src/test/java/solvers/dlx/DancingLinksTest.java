@@ -0,0 +1,61 @@
+package solvers.dlx;
+
+import org.junit.jupiter.api.Test;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.HARD;
+import static sudoku.TestGrids.load;
+import static sudoku.TestGrids.isSolved;
+
+class DancingLinksTest {
+
+    @Test
+    void testSolveHardPuzzle() {
+        Grid grid = load(HARD);
+        new DancingLinks(grid).solve();
+        assertTrue(isSolved(grid));
+        assertEquals("4", grid.getSymbol(new Position(0, 0)));
+    }
+
+    @Test
+    void testSolveOverlappingGrids() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(9))
+                .addSudoku(new SudokuClassic(9, new Position(6, 6)))
+                .build();
+        new DancingLinks(grid).solve();
+        assertTrue(isSolved(grid));
+    }
+
+    @Test
+    void testNumberOfSolutions() {
+        Grid grid = load(HARD);
+        assertEquals(1, new DancingLinks(grid).getNumberOfSolutions());
+        assertNull(grid.getSymbol(new Position(1, 0)));
+
+        Grid small = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(2, 2), new Position(2, 2)))
+                .build();
+        small.insertSymbol("1", new Position(0, 0));
+        small.insertSymbol("2", new Position(1, 0));
+        small.insertSymbol("3", new Position(2, 0));
+        small.insertSymbol("4", new Position(3, 0));
+        assertEquals(12, new DancingLinks(small).getNumberOfSolutions());
+    }
+
+    @Test
+    void testUnsolvableGridIsUntouched() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(2, 2), new Position(2, 2)))
+                .build();
+        grid.insertSymbol("1", new Position(0, 0));
+        grid.insertSymbol("2", new Position(3, 1));
+        grid.insertSymbol("2", new Position(1, 2));
+        new DancingLinks(grid).solve();
+        assertNull(grid.getSymbol(new Position(1, 0)));
+        assertEquals(0, new DancingLinks(grid).getNumberOfSolutions());
+    }
+}
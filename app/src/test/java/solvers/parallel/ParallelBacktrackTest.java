@@ -0,0 +1,62 @@
+package solvers.parallel;
+
+import org.junit.jupiter.api.Test;
+import solvers.CancellationToken;
+import solvers.SolveOptions;
+import solvers.SolveResult;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.HARD;
+import static sudoku.TestGrids.load;
+import static sudoku.TestGrids.isSolved;
+
+class ParallelBacktrackTest {
+
+    @Test
+    void testSolveHardPuzzle() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        Grid grid = load(HARD);
+        new ParallelBacktrack(grid, pool, 8).solve();
+        pool.shutdown();
+        assertTrue(isSolved(grid));
+        assertEquals("4", grid.getSymbol(new Position(0, 0)));
+    }
+
+    @Test
+    void testCountEmptyGrid() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        assertEquals(288, new ParallelBacktrack(grid).getNumberOfSolutions());
+        assertEquals(5, new ParallelBacktrack(grid).countSolutions(5));
+        assertEquals(16, grid.getNumberOfEmptyCells());
+    }
+
+    @Test
+    void testCountsNodesOfSubproblems() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        ParallelBacktrack solver = new ParallelBacktrack(load(HARD), pool, 8);
+        SolveResult result = solver.solve(SolveOptions.NONE);
+        pool.shutdown();
+        assertTrue(result.isSolved());
+        assertTrue(result.getNodes() > 0);
+        assertEquals(result.getNodes(), solver.getNodes());
+    }
+
+    @Test
+    void testCancelledBeforeStart() {
+        Grid grid = load(HARD);
+        int empty = grid.getNumberOfEmptyCells();
+        ParallelBacktrack solver = new ParallelBacktrack(grid);
+        CancellationToken token = new CancellationToken();
+        token.cancel();
+        SolveResult result = solver.solve(new SolveOptions.Builder().cancellation(token).build());
+        assertEquals(SolveResult.Status.CANCELLED, result.getStatus());
+        assertEquals(empty, grid.getNumberOfEmptyCells());
+    }
+}
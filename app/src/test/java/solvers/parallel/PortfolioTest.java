@@ -0,0 +1,81 @@
+package solvers.parallel;
+
+import org.junit.jupiter.api.Test;
+import solvers.SolveOptions;
+import solvers.SolveResult;
+import solvers.Solver;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.dlx.DancingLinks;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.HARD;
+import static sudoku.TestGrids.load;
+
+class PortfolioTest {
+
+    /**
+     * An engine that never finishes unless it is cancelled, sleeping to leave its carrier thread to
+     * the other engines.
+     */
+    private static class Spinning extends Solver {
+        Spinning(Grid grid) {
+            super(grid);
+        }
+
+        @Override
+        public void solve() {
+            while (!shouldStop()) {
+                try {
+                    Thread.sleep(1);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+
+        @Override
+        public int countSolutions(int limit) {
+            solve();
+            return 0;
+        }
+    }
+
+    @Test
+    void testWinnerCancelsOthers() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(9))
+                .build();
+        new Portfolio(grid, List.of(Spinning::new, DancingLinks::new)).solve();
+        assertTrue(grid.isComplete());
+        assertEquals(1, new Portfolio(grid, List.of(Spinning::new, BacktrackOptimized::new)).countSolutions(2));
+    }
+
+    @Test
+    void testCountsNodesOfEngines() {
+        Portfolio portfolio = new Portfolio(load(HARD), List.of(Spinning::new, BacktrackOptimized::new));
+        SolveResult result = portfolio.solve(SolveOptions.NONE);
+        assertTrue(result.isSolved());
+        assertTrue(result.getNodes() > 0);
+        assertEquals(result.getNodes(), portfolio.getNodes());
+    }
+
+    @Test
+    void testUnsolvableGrid() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        grid.insertSymbol("1", new Position(0, 0));
+        grid.insertSymbol("2", new Position(1, 1));
+        grid.insertSymbol("3", new Position(2, 2));
+        grid.insertSymbol("2", new Position(2, 3));
+        grid.insertSymbol("3", new Position(3, 0));
+        new Portfolio(grid).solve();
+        assertEquals(11, grid.getNumberOfEmptyCells());
+        assertEquals(0, new Portfolio(grid).countSolutions(2));
+    }
+}
@@ -0,0 +1,115 @@
+package solvers.propagation;
+
+import org.junit.jupiter.api.Test;
+import solvers.backtrack.BacktrackOptimized;
+import solvers.dlx.DancingLinks;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.HARD;
+import static sudoku.TestGrids.load;
+
+class PropagatorTest {
+
+    @Test
+    void testConfiguration() {
+        Propagator propagator = Propagator.fromConfiguration("hidden-singles, x-wing,naked-pairs");
+        assertEquals(3, propagator.getTechniques().size());
+        assertEquals("hidden-singles", propagator.getTechniques().get(0).getName());
+        assertEquals("x-wing", propagator.getTechniques().get(1).getName());
+        assertEquals("naked-pairs", propagator.getTechniques().get(2).getName());
+        assertTrue(Propagator.fromConfiguration("").getTechniques().isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> Propagator.fromConfiguration("guess"));
+    }
+
+    @Test
+    void testTechniquesKeepTheSolution() {
+        Grid solution = load(HARD);
+        new DancingLinks(solution).solve();
+
+        for (String name : Propagator.ALL_TECHNIQUES.split(",")) {
+            Grid grid = load(HARD);
+            assertTrue(new Propagator(List.of(Propagator.createTechnique(name))).propagate(grid), name);
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                int value = solution.getValue(cellId);
+                if (grid.getValue(cellId) == Grid.EMPTY) {
+                    assertNotEquals(0L, grid.getDomain(cellId) & (1L << value), name);
+                } else {
+                    assertEquals(value, grid.getValue(cellId), name);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPropagationIsUndone() {
+        Grid grid = load(HARD);
+        int empty = grid.getNumberOfEmptyCells();
+        int checkpoint = grid.checkpoint();
+        assertTrue(Propagator.fromConfiguration(Propagator.ALL_TECHNIQUES).propagate(grid));
+        grid.undoTo(checkpoint);
+        assertEquals(empty, grid.getNumberOfEmptyCells());
+        assertEquals(grid.getCandidates(0), grid.getDomain(0));
+    }
+
+    @Test
+    void testContradiction() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        grid.insertSymbol("1", new Position(0, 0));
+        grid.insertSymbol("2", new Position(1, 1));
+        grid.insertSymbol("3", new Position(2, 2));
+        grid.insertSymbol("2", new Position(2, 3));
+        grid.insertSymbol("3", new Position(3, 0));
+        assertFalse(Propagator.fromConfiguration(Propagator.DEFAULT_CONFIGURATION).propagate(grid));
+    }
+
+    @Test
+    void testAllDifferent() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int[] row = new int[4];
+        for (int x = 0; x < 4; x++) {
+            row[x] = grid.getCellId(new Position(x, 0));
+        }
+        // The first two cells of the row can only take symbols 0 and 1
+        grid.eliminate(row[0], 0b1100L);
+        grid.eliminate(row[1], 0b1100L);
+
+        AllDifferent allDifferent = new AllDifferent();
+        assertEquals(Technique.Outcome.CHANGED, allDifferent.apply(grid));
+        assertEquals(0b1100L, grid.getDomain(row[2]));
+        assertEquals(0b1100L, grid.getDomain(row[3]));
+        assertEquals(Technique.Outcome.UNCHANGED, allDifferent.apply(grid));
+
+        // Three cells for two symbols
+        int checkpoint = grid.checkpoint();
+        grid.eliminate(row[2], 0b1000L);
+        grid.eliminate(row[3], 0b1000L);
+        assertEquals(Technique.Outcome.CONTRADICTION, allDifferent.apply(grid));
+        grid.undoTo(checkpoint);
+        assertEquals(Technique.Outcome.UNCHANGED, allDifferent.apply(grid));
+    }
+
+    @Test
+    void testCountWithEveryTechnique() {
+        Propagator all = Propagator.fromConfiguration(Propagator.ALL_TECHNIQUES);
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        assertEquals(288, new BacktrackOptimized(grid, all).getNumberOfSolutions());
+
+        Grid overlapping = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .addSudoku(new SudokuClassic(4, new Position(2, 2)))
+                .build();
+        assertEquals(new DancingLinks(overlapping).getNumberOfSolutions(),
+                new BacktrackOptimized(overlapping, all).getNumberOfSolutions());
+    }
+}
@@ -0,0 +1,83 @@
+package solvers.rating;
+
+import org.junit.jupiter.api.Test;
+import sudoku.Grid;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.load;
+
+class DifficultyRaterTest {
+
+    private static final String EASY = "..3.2.6..9..3.5..1..18.64....81.29..7.......8..67.82....26.95..8..2.3..9..5.1.3..";
+    private static final String MEDIUM = "...6.1....3..8...5..53.27....8.....9..9.....6...2......61...8.44..5...93.....7.6.";
+    private static final String HARD = "...6.1.......8...5..53.27..7.8.....93.9.....6...2......61...8.44..5...93..3..7.6.";
+    private static final String EXPERT = "...3481..1..97...........97......2.6.8.19..5.4..8.....6...1.37.37.4..9..........8";
+
+    @Test
+    void testRatesByHardestTechnique() {
+        DifficultyRater rater = new DifficultyRater();
+        String[] puzzles = {EASY, MEDIUM, HARD, EXPERT};
+        Difficulty[] expected = {Difficulty.EASY, Difficulty.MEDIUM, Difficulty.HARD, Difficulty.EXPERT};
+        int previousScore = 0;
+        for (int i = 0; i < puzzles.length; i++) {
+            Rating rating = rater.rate(load(puzzles[i]));
+            assertEquals(expected[i], rating.getDifficulty(), puzzles[i]);
+            assertTrue(rating.isSolved());
+            assertFalse(rating.isContradiction());
+            assertTrue(expected[i].getTechniques().contains(rating.getHardestTechnique()), rating.toString());
+            assertTrue(rating.getSteps() > 0);
+            assertTrue(rating.getScore() >= rating.getSteps());
+            assertTrue(rating.getScore() > previousScore, rating.toString());
+            previousScore = rating.getScore();
+        }
+        assertEquals("x-wing", rater.rate(load(EXPERT)).getHardestTechnique());
+    }
+
+    @Test
+    void testRatingLeavesTheGridUnchanged() {
+        Grid grid = load(HARD);
+        int[] before = new int[grid.getCellCount()];
+        grid.getValues(before);
+        DifficultyRater rater = new DifficultyRater();
+        Rating first = rater.rate(grid);
+
+        int[] after = new int[grid.getCellCount()];
+        grid.getValues(after);
+        assertArrayEquals(before, after);
+        Rating second = rater.rate(grid);
+        assertEquals(first.getSteps(), second.getSteps());
+        assertEquals(first.getScore(), second.getScore());
+    }
+
+    @Test
+    void testSolvesWithin() {
+        DifficultyRater rater = new DifficultyRater();
+        Grid grid = load(HARD);
+        assertFalse(rater.solvesWithin(grid, Difficulty.EASY));
+        assertFalse(rater.solvesWithin(grid, Difficulty.MEDIUM));
+        assertTrue(rater.solvesWithin(grid, Difficulty.HARD));
+        assertTrue(rater.solvesWithin(grid, Difficulty.EXTREME));
+        assertEquals(55, grid.getNumberOfEmptyCells());
+    }
+
+    @Test
+    void testPuzzlesBeyondTheLadder() {
+        DifficultyRater rater = new DifficultyRater();
+
+        // Many solutions: no technique can finish the grid
+        Rating open = rater.rate(load("1" + ".".repeat(80)));
+        assertEquals(Difficulty.EXTREME, open.getDifficulty());
+        assertFalse(open.isSolved());
+        assertFalse(open.isContradiction());
+
+        // The first cell of the first row can only be a 9, which its column already has
+        Rating broken = rater.rate(load(".12345678" + "9" + ".".repeat(71)));
+        assertEquals(Difficulty.EXTREME, broken.getDifficulty());
+        assertTrue(broken.isContradiction());
+
+        Rating complete = rater.rate(load("417369825632158947958724316825437169791586432346912758289643571573291684164875293"));
+        assertEquals(Difficulty.EASY, complete.getDifficulty());
+        assertNull(complete.getHardestTechnique());
+        assertEquals(0, complete.getSteps());
+    }
+}
@@ -0,0 +1,171 @@
+package solvers.sat;
+
+import org.junit.jupiter.api.Test;
+import solvers.dlx.DancingLinks;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.classic;
+
+class SatSolverTest {
+
+    private static int pigeon(int pigeon, int hole, boolean positive) {
+        return Cdcl.literal(pigeon * 3 + hole, positive);
+    }
+
+    @Test
+    void testPigeonholeIsUnsatisfiable() {
+        // 4 pigeons in 3 holes
+        Cdcl cdcl = new Cdcl(12);
+        for (int p = 0; p < 4; p++) {
+            cdcl.addClause(pigeon(p, 0, true), pigeon(p, 1, true), pigeon(p, 2, true));
+        }
+        for (int h = 0; h < 3; h++) {
+            for (int p = 0; p < 4; p++) {
+                for (int q = p + 1; q < 4; q++) {
+                    cdcl.addClause(pigeon(p, h, false), pigeon(q, h, false));
+                }
+            }
+        }
+        assertEquals(Cdcl.Status.UNSATISFIABLE, cdcl.solve(() -> false));
+        assertTrue(cdcl.getConflicts() > 0);
+    }
+
+    @Test
+    void testReductionCompactsLearnedClauses() {
+        // 8 pigeons in 7 holes needs enough conflicts to reduce the learned clauses several times
+        int holes = 7;
+        Cdcl cdcl = new Cdcl((holes + 1) * holes);
+        for (int p = 0; p <= holes; p++) {
+            int[] clause = new int[holes];
+            for (int h = 0; h < holes; h++) {
+                clause[h] = Cdcl.literal(p * holes + h, true);
+            }
+            cdcl.addClause(clause);
+        }
+        for (int h = 0; h < holes; h++) {
+            for (int p = 0; p <= holes; p++) {
+                for (int q = p + 1; q <= holes; q++) {
+                    cdcl.addClause(Cdcl.literal(p * holes + h, false), Cdcl.literal(q * holes + h, false));
+                }
+            }
+        }
+        int original = cdcl.getClauseCount();
+        assertEquals(Cdcl.Status.UNSATISFIABLE, cdcl.solve(() -> false));
+        assertTrue(cdcl.getConflicts() > 2000);
+        assertTrue(cdcl.getClauseCount() - original < cdcl.getConflicts() / 2);
+    }
+
+    @Test
+    void testBlockingClausesEnumerateModels() {
+        // Exactly one of three variables: three models
+        Cdcl cdcl = new Cdcl(3);
+        cdcl.addClause(0, 2, 4);
+        cdcl.addClause(1, 3);
+        cdcl.addClause(1, 5);
+        cdcl.addClause(3, 5);
+        int models = 0;
+        while (cdcl.solve(() -> false) == Cdcl.Status.SATISFIABLE) {
+            models++;
+            int[] blocking = new int[3];
+            for (int v = 0; v < 3; v++) {
+                blocking[v] = Cdcl.literal(v, !cdcl.getModelValue(v));
+            }
+            cdcl.addClause(blocking);
+        }
+        assertEquals(3, models);
+        assertEquals(Cdcl.Status.UNKNOWN, new Cdcl(3).solve(() -> true));
+    }
+
+    @Test
+    void testHasOtherSolutionMatchesDancingLinks() {
+        for (long seed = 0; seed < 5; seed++) {
+            Grid grid = classic();
+            Random random = new Random(seed);
+            for (int k = 0; k < 9; k++) {
+                grid.insertValue(random.nextInt(grid.getCellCount()), k);
+            }
+            new DancingLinks(grid).solve();
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                if (random.nextInt(100) < 50) {
+                    grid.resetValue(cellId);
+                }
+            }
+            SatSolver solver = new SatSolver(grid);
+            DancingLinks reference = new DancingLinks(grid);
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                int value = grid.getValue(cellId);
+                if (value == Grid.EMPTY) {
+                    continue;
+                }
+                grid.resetValue(cellId);
+                assertEquals(reference.hasOtherSolution(cellId, value), solver.hasOtherSolution(cellId, value),
+                        "seed " + seed + ", cell " + cellId);
+                grid.insertValue(cellId, value);
+            }
+        }
+    }
+
+    @Test
+    void testReloadKeepsEncoding() {
+        Grid grid = classic();
+        SatSolver solver = new SatSolver(grid);
+        int[] givens = new int[grid.getCellCount()];
+        int[] expected = new int[grid.getCellCount()];
+        int[] solution = new int[grid.getCellCount()];
+        Cdcl cdcl = null;
+        for (long seed = 0; seed < 10; seed++) {
+            Grid reference = classic();
+            Random random = new Random(seed);
+            for (int k = 0; k < 9; k++) {
+                reference.insertValue(random.nextInt(reference.getCellCount()), k);
+            }
+            new DancingLinks(reference).solve();
+            reference.getValues(expected);
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                givens[cellId] = random.nextInt(100) < 35 ? Grid.EMPTY : expected[cellId];
+            }
+
+            assertTrue(solver.load(givens));
+            assertEquals(1, solver.countSolutions(2), "seed " + seed);
+            solver.solve();
+            grid.getValues(solution);
+            assertArrayEquals(expected, solution, "seed " + seed);
+            if (cdcl != null) {
+                // The layout is encoded once, the givens being assumptions
+                assertSame(cdcl, solver.getCdcl());
+            }
+            cdcl = solver.getCdcl();
+        }
+    }
+
+    @Test
+    void testCountsMatchDancingLinks() {
+        for (long seed = 0; seed < 10; seed++) {
+            Grid grid = new Grid.Builder()
+                    .addSudoku(new SudokuClassic(new Position(3, 3), new Position(3, 3)))
+                    .build();
+            Random random = new Random(seed);
+            for (int k = 0; k < 9; k++) {
+                grid.insertValue(random.nextInt(grid.getCellCount()), k);
+            }
+            new DancingLinks(grid).solve();
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                if (random.nextInt(100) < 65) {
+                    grid.resetValue(cellId);
+                }
+            }
+            int expected = new DancingLinks(grid).countSolutions(200);
+            SatSolver solver = new SatSolver(grid);
+            assertEquals(expected, solver.countSolutions(200), "seed " + seed);
+            assertFalse(grid.isComplete());
+
+            solver.solve();
+            assertTrue(grid.isComplete());
+        }
+    }
+}
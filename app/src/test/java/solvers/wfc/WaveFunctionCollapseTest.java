@@ -0,0 +1,45 @@
+package solvers.wfc;
+
+import org.junit.jupiter.api.Test;
+import solvers.RestartSchedule;
+import sudoku.Grid;
+import sudoku.sudoku.SudokuClassic;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WaveFunctionCollapseTest {
+
+    private static Grid emptyGrid(int size) {
+        return new Grid.Builder()
+                .addSudoku(new SudokuClassic(size))
+                .build();
+    }
+
+    @Test
+    void testSeededRunsAreReplayed() {
+        Grid first = emptyGrid(9);
+        Grid second = emptyGrid(9);
+        new WaveFunctionCollapse(first, RestartSchedule.luby(4), 42, true).solve();
+        new WaveFunctionCollapse(second, RestartSchedule.luby(4), 42, true).solve();
+        assertTrue(first.isComplete());
+        for (int cellId = 0; cellId < first.getCellCount(); cellId++) {
+            assertEquals(first.getValue(cellId), second.getValue(cellId));
+        }
+    }
+
+    @Test
+    void testRestarts() {
+        Grid grid = emptyGrid(16);
+        WaveFunctionCollapse solver = new WaveFunctionCollapse(grid, RestartSchedule.luby(1), 7, false);
+        solver.solve();
+        assertTrue(grid.isComplete());
+        assertTrue(solver.getRestarts() > 0);
+        assertEquals(0, grid.checkpoint());
+
+        grid = emptyGrid(16);
+        solver = new WaveFunctionCollapse(grid, RestartSchedule.NEVER, 7, false);
+        solver.solve();
+        assertTrue(grid.isComplete());
+        assertEquals(0, solver.getRestarts());
+    }
+}
@@ -0,0 +1,75 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import solvers.dlx.DancingLinks;
+import solvers.rating.Difficulty;
+import solvers.rating.DifficultyRater;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GenerateSudokuTest {
+
+    @Test
+    void testGeneratedPuzzlesAreUnique() {
+        GenerateSudoku.SolverType[] types = {
+            GenerateSudoku.SolverType.CLASSIC,
+            GenerateSudoku.SolverType.BACKTRACK_OPTIMIZED,
+            GenerateSudoku.SolverType.DANCING_LINKS,
+        };
+        for (GenerateSudoku.SolverType type : types) {
+            Grid grid = new Grid.Builder()
+                    .addSudoku(new SudokuClassic(new Position(3, 3), new Position(3, 3)))
+                    .build();
+            GenerateSudoku generator = new GenerateSudoku(grid, 0.6);
+            generator.generateSudoku(type);
+            int empty = grid.getNumberOfEmptyCells();
+            assertTrue(empty > 0 && empty <= 48, type + ": " + empty + " empty cells");
+            assertEquals(1, new DancingLinks(grid).countSolutions(2), type.toString());
+        }
+    }
+
+    @Test
+    void testGeneratedPuzzlesAreInTheTargetBand() {
+        DifficultyRater rater = new DifficultyRater();
+        for (Difficulty difficulty : new Difficulty[] {Difficulty.EASY, Difficulty.MEDIUM, Difficulty.HARD}) {
+            Grid grid = new Grid.Builder()
+                    .addSudoku(new SudokuClassic(new Position(3, 3), new Position(3, 3)))
+                    .build();
+            GenerateSudoku generator = new GenerateSudoku(grid, difficulty, new SplittableRandom(11));
+            generator.generateSudoku(GenerateSudoku.SolverType.CLASSIC);
+            assertEquals(difficulty, generator.getRating().getDifficulty());
+            assertEquals(difficulty, rater.rate(grid).getDifficulty());
+            assertEquals(1, new DancingLinks(grid).countSolutions(2), difficulty.toString());
+
+            // Every clue left is needed to stay in the band
+            for (int cellId = 0; cellId < grid.getCellCount(); cellId++) {
+                int value = grid.getValue(cellId);
+                if (value >= 0) {
+                    grid.resetValue(cellId);
+                    assertFalse(rater.solvesWithin(grid, difficulty), difficulty + " at " + cellId);
+                    grid.insertValue(cellId, value);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testRandomBlocks() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(16, new Position(0), true))
+                .build();
+        GenerateSudoku generator = new GenerateSudoku(grid, 0.5, new SplittableRandom(4));
+        for (int puzzle = 0; puzzle < 2; puzzle++) {
+            grid.clearValues();
+            generator.generateSudoku(GenerateSudoku.SolverType.CLASSIC);
+            assertTrue(grid.getNumberOfEmptyCells() > 0);
+            assertEquals(1, new DancingLinks(grid).countSolutions(2));
+            for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+                assertEquals(16, grid.getNumberOfCells(indexRule));
+            }
+        }
+    }
+}
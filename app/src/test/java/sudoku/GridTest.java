@@ -3,6 +3,7 @@ package sudoku;
 import org.junit.jupiter.api.Test;
 import sudoku.rule.Rule;
 import sudoku.sudoku.SudokuClassic;
+import utils.BucketQueue;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -114,6 +115,280 @@ class GridTest {
         assertEquals(2, count);
     }
 
+    @Test
+    void testGetCandidates() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        grid.insertSymbol("1", new Position(0, 0));
+        grid.insertSymbol("2", new Position(3, 1));
+        long candidates = grid.getCandidates(new Position(1, 1));
+        assertEquals(2, Long.bitCount(candidates));
+        assertEquals(Set.of("3", "4"), grid.toSymbols(candidates));
+        assertEquals(0L, grid.getCandidates(new Position(0, 0)));
+    }
+
+    @Test
+    void testUsedMaskFollowsInsertAndReset() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        Position position = new Position(1, 2);
+        grid.insertSymbol("3", position);
+        long bit = 1L << grid.getSymbolIndex("3");
+        for (int idRule : grid.getCell(position).getIdRules()) {
+            assertEquals(bit, grid.getUsedMask(idRule));
+            assertEquals(grid.usedMask(grid.getRule(idRule)), grid.getUsedMask(idRule));
+        }
+        grid.resetSymbol(position);
+        for (int idRule : grid.getCell(position).getIdRules()) {
+            assertEquals(0L, grid.getUsedMask(idRule));
+        }
+    }
+
+    @Test
+    void testCompactStorage() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cellId = grid.getCellId(new Position(2, 1));
+        assertEquals(new Position(2, 1), grid.getCellPosition(cellId));
+        assertEquals(3, grid.getNumberOfRules(cellId));
+        assertEquals(Grid.EMPTY, grid.getValue(cellId));
+        assertEquals(16, grid.getNumberOfEmptyCells());
+
+        assertTrue(grid.insertValue(cellId, 0));
+        assertEquals(0, grid.getValue(cellId));
+        assertEquals(grid.getSymbolAt(0), grid.getSymbol(new Position(2, 1)));
+        assertFalse(grid.insertValue(grid.getCellId(new Position(3, 1)), 0));
+        assertEquals(15, grid.getNumberOfEmptyCells());
+
+        grid.resetValue(cellId);
+        assertEquals(Grid.EMPTY, grid.getValue(cellId));
+        assertNull(grid.getSymbol(new Position(2, 1)));
+    }
+
+    @Test
+    void testCompactStorageNoCell() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .addSudoku(new SudokuClassic(4, new Position(2, 2)))
+                .build();
+        assertEquals(Grid.NO_CELL, grid.getValue(grid.getCellId(new Position(5, 0))));
+        assertEquals(0, grid.getNumberOfRules(grid.getCellId(new Position(5, 0))));
+        assertEquals(5, grid.getNumberOfRules(grid.getCellId(new Position(2, 2))));
+    }
+
+    @Test
+    void testPeers() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(9))
+                .build();
+        int cellId = grid.getCellId(new Position(4, 4));
+        assertEquals(20, grid.getNumberOfPeers(cellId));
+        Set<Integer> peers = new HashSet<>();
+        for (int k = 0; k < grid.getNumberOfPeers(cellId); k++) {
+            peers.add(grid.getPeer(cellId, k));
+        }
+        assertEquals(20, peers.size());
+        assertFalse(peers.contains(cellId));
+        assertTrue(peers.contains(grid.getCellId(new Position(4, 0))));
+        assertTrue(peers.contains(grid.getCellId(new Position(3, 5))));
+        assertFalse(peers.contains(grid.getCellId(new Position(0, 0))));
+    }
+
+    @Test
+    void testRuleCells() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            assertEquals(4, grid.getNumberOfCells(indexRule));
+            for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+                Position position = grid.getCellPosition(grid.getCellOf(indexRule, k));
+                assertTrue(grid.getRule(indexRule).getRulePositions().contains(position));
+            }
+        }
+    }
+
+    @Test
+    void testSetRule() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int indexRule = grid.getRules().size() - 1;
+        Rule block = new Rule();
+        block.add(new Position(0, 0));
+        block.add(new Position(1, 0));
+        block.add(new Position(2, 0));
+        block.add(new Position(3, 0));
+        assertEquals(4, grid.getNumberOfCells(indexRule));
+        Position left = grid.getCellPosition(grid.getCellOf(indexRule, 0));
+
+        grid.setRule(indexRule, block);
+        assertSame(block, grid.getRule(indexRule));
+        assertEquals(block.getRulePositions().contains(left), grid.getCell(left).getIdRules().contains(indexRule));
+        assertTrue(grid.getCell(new Position(3, 0)).getIdRules().contains(indexRule));
+        for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+            assertEquals(0, grid.getCellPosition(grid.getCellOf(indexRule, k)).getY());
+        }
+
+        Rule outside = new Rule();
+        outside.add(new Position(4, 0));
+        assertThrows(IllegalArgumentException.class, () -> grid.setRule(indexRule, outside));
+    }
+
+    @Test
+    void testTrailUndo() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        int peer = grid.getCellId(new Position(1, 0));
+        long before = grid.getDomain(peer);
+
+        int checkpoint = grid.checkpoint();
+        grid.insertValue(cell, 0);
+        assertTrue(grid.eliminate(peer, 1L << 1));
+        assertFalse(grid.eliminate(peer, 1L << 1));
+        assertEquals(before & ~0b11L, grid.getDomain(peer));
+
+        grid.undoTo(checkpoint);
+        assertEquals(Grid.EMPTY, grid.getValue(cell));
+        assertEquals(before, grid.getDomain(peer));
+    }
+
+    @Test
+    void testCopy() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        int peer = grid.getCellId(new Position(1, 0));
+        grid.insertValue(cell, 0);
+
+        Grid copy = grid.copy();
+        assertEquals(0, copy.getValue(cell));
+        assertEquals(grid.getDomain(peer), copy.getDomain(peer));
+        assertEquals(0, copy.checkpoint());
+
+        copy.insertValue(peer, 1);
+        assertEquals(Grid.EMPTY, grid.getValue(peer));
+        assertEquals("2", copy.getSymbol(new Position(1, 0)));
+
+        grid.copyValuesFrom(copy);
+        assertEquals(1, grid.getValue(peer));
+        assertEquals("2", grid.getSymbol(new Position(1, 0)));
+    }
+
+    @Test
+    void testDomainQueue() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        int peer = grid.getCellId(new Position(1, 0));
+        int other = grid.getCellId(new Position(3, 3));
+        BucketQueue queue = grid.getDomainQueue();
+        assertEquals(16, queue.getBucketSize(4));
+
+        int checkpoint = grid.checkpoint();
+        grid.insertValue(cell, 0);
+        assertFalse(queue.contains(cell));
+        assertEquals(3, queue.getKey(peer));
+        assertEquals(4, queue.getKey(other));
+        assertEquals(3, queue.getMinKey());
+
+        grid.eliminate(peer, 1L << 1);
+        assertEquals(2, queue.getKey(peer));
+
+        grid.undoTo(checkpoint);
+        assertEquals(16, queue.getBucketSize(4));
+
+        grid.eliminate(other, 1L << 1);
+        grid.resetTrail();
+        assertEquals(4, queue.getKey(other));
+    }
+
+    @Test
+    void testRuleVersions() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        int touched = grid.getRuleOf(cell, 0);
+        int untouched = -1;
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            if (!grid.isCellInRule(cell, indexRule)) {
+                untouched = indexRule;
+            }
+        }
+        int version = grid.getRuleVersion(touched);
+        int other = grid.getRuleVersion(untouched);
+
+        int checkpoint = grid.checkpoint();
+        grid.insertValue(cell, 0);
+        assertNotEquals(version, grid.getRuleVersion(touched));
+        assertEquals(other, grid.getRuleVersion(untouched));
+
+        version = grid.getRuleVersion(touched);
+        grid.undoTo(checkpoint);
+        assertNotEquals(version, grid.getRuleVersion(touched));
+
+        version = grid.getRuleVersion(touched);
+        grid.eliminate(cell, 1L << 2);
+        assertNotEquals(version, grid.getRuleVersion(touched));
+        assertEquals(other, grid.getRuleVersion(untouched));
+    }
+
+    @Test
+    void testTrailEntries() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        int other = grid.getCellId(new Position(3, 3));
+        grid.insertValue(cell, 0);
+        grid.eliminate(other, 1L << 2);
+        grid.eliminate(other, 1L << 3);
+        assertEquals(3, grid.checkpoint());
+        assertEquals(cell, grid.getTrailEntry(0));
+        assertEquals(~other, grid.getTrailEntry(1));
+        assertEquals(0L, grid.getTrailMask(1));
+        assertEquals(1L << 2, grid.getTrailMask(2));
+        assertEquals((1L << 2) | (1L << 3), grid.getEliminated(other));
+        grid.undoTo(2);
+        assertEquals(1L << 2, grid.getEliminated(other));
+    }
+
+    @Test
+    void testResetTrail() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        int cell = grid.getCellId(new Position(0, 0));
+        grid.insertValue(cell, 0);
+        grid.eliminate(grid.getCellId(new Position(3, 3)), 1L << 2);
+        grid.resetTrail();
+        assertEquals(0, grid.checkpoint());
+        assertEquals(0, grid.getValue(cell));
+        assertEquals(grid.getCandidates(grid.getCellId(new Position(3, 3))),
+                grid.getDomain(grid.getCellId(new Position(3, 3))));
+    }
+
+    @Test
+    void testSymbolIndex() {
+        Grid grid = new Grid.Builder()
+                .addSudoku(new SudokuClassic(4))
+                .build();
+        assertEquals(4, grid.getAlphabetSize());
+        for (int i = 0; i < grid.getAlphabetSize(); i++) {
+            assertEquals(i, grid.getSymbolIndex(grid.getSymbolAt(i)));
+        }
+        assertEquals(-1, grid.getSymbolIndex("5"));
+        assertEquals(grid.getSymbolsMask(0), grid.toMask(grid.getSymbols(0)));
+    }
+
     @Test
     void testMergeSudokus() {
         Set<String> symbols = new HashSet<>();
@@ -0,0 +1,109 @@
+package sudoku;
+
+import org.junit.jupiter.api.Test;
+import solvers.classic.ClassicSolutionGenerator;
+import sudoku.rule.BlockRule;
+import sudoku.rule.Rule;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JigsawGeneratorTest {
+
+    private static Grid solved(int size, long seed) {
+        Grid grid = new Grid.Builder().addSudoku(new SudokuClassic(size, new Position(0), true)).build();
+        ClassicSolutionGenerator.forGrid(grid).fill(grid, new SplittableRandom(seed));
+        return grid;
+    }
+
+    private static boolean connected(Set<Position> positions) {
+        Position first = positions.iterator().next();
+        Set<Position> seen = new HashSet<>();
+        Deque<Position> queue = new ArrayDeque<>();
+        seen.add(first);
+        queue.add(first);
+        while (!queue.isEmpty()) {
+            Position position = queue.poll();
+            int[][] directions = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+            for (int[] direction : directions) {
+                Position neighbour = new Position(position.getX() + direction[0], position.getY() + direction[1]);
+                if (positions.contains(neighbour) && seen.add(neighbour)) {
+                    queue.add(neighbour);
+                }
+            }
+        }
+        return seen.size() == positions.size();
+    }
+
+    /**
+     * Checks that every rule of a full grid holds every symbol once.
+     */
+    private static void assertSolved(Grid grid) {
+        assertEquals(0, grid.getNumberOfEmptyCells());
+        for (int indexRule = 0; indexRule < grid.getRules().size(); indexRule++) {
+            long symbols = 0L;
+            for (int k = 0; k < grid.getNumberOfCells(indexRule); k++) {
+                symbols |= 1L << grid.getValue(grid.getCellOf(indexRule, k));
+            }
+            assertEquals(grid.getAlphabetSize(), Long.bitCount(symbols), "rule " + indexRule);
+        }
+    }
+
+    @Test
+    void testReshapedBlocksAreConnectedAndSolved() {
+        for (int size : new int[] {9, 16}) {
+            Grid grid = solved(size, size);
+            List<BlockRule> blocks = new JigsawGenerator(grid).reshape(new SplittableRandom(3));
+            assertEquals(size, blocks.size());
+            Set<Position> covered = new HashSet<>();
+            int moved = 0;
+            for (BlockRule block : blocks) {
+                assertEquals(size, block.getRulePositions().size());
+                assertTrue(connected(block.getRulePositions()));
+                covered.addAll(block.getRulePositions());
+                int minX = block.getRulePositions().stream().mapToInt(Position::getX).min().orElseThrow();
+                int maxX = block.getRulePositions().stream().mapToInt(Position::getX).max().orElseThrow();
+                int minY = block.getRulePositions().stream().mapToInt(Position::getY).min().orElseThrow();
+                int maxY = block.getRulePositions().stream().mapToInt(Position::getY).max().orElseThrow();
+                if ((maxX - minX + 1) * (maxY - minY + 1) != size) {
+                    moved++;
+                }
+            }
+            assertEquals(size * size, covered.size());
+            assertTrue(moved > 0, "no block was reshaped");
+            assertTrue(blocks.stream().allMatch(block -> grid.getRules().contains(block)));
+            assertSolved(grid);
+        }
+    }
+
+    @Test
+    void testRestore() {
+        Grid grid = solved(9, 1);
+        List<Rule> before = List.copyOf(grid.getRules());
+        JigsawGenerator jigsaw = new JigsawGenerator(grid);
+        jigsaw.reshape(new SplittableRandom(1));
+        assertNotEquals(before, grid.getRules());
+
+        jigsaw.restore();
+        assertEquals(before, grid.getRules());
+        grid.clearValues();
+        ClassicSolutionGenerator.forGrid(grid).fill(grid, new SplittableRandom(2));
+        assertSolved(grid);
+    }
+
+    @Test
+    void testRejectedGrids() {
+        Grid empty = new Grid.Builder().addSudoku(new SudokuClassic(9, new Position(0), true)).build();
+        assertThrows(IllegalStateException.class, () -> new JigsawGenerator(empty).reshape(new SplittableRandom(0)));
+
+        Grid noBlock = new Grid(2, 1);
+        assertThrows(IllegalArgumentException.class, () -> new JigsawGenerator(noBlock));
+    }
+}
@@ -0,0 +1,80 @@
+package sudoku;
+
+import sudoku.rule.Rule;
+import sudoku.sudoku.SudokuClassic;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Grids and puzzles shared by the tests.
+ */
+public final class TestGrids {
+
+    /**
+     * A hard 9x9 puzzle in the line format: 81 cells row by row, {@code .} for the empty cells.
+     */
+    public static final String HARD = "4.....8.5.3..........7......2.....6.....8.4......1.......6.3.7.5..2.....1.4......";
+
+    private TestGrids() {
+    }
+
+    /**
+     * Creates an empty classic grid, its blocks being {@code blockWidth} cells wide and
+     * {@code blockHeight} cells high.
+     *
+     * @param blockWidth the width of a block
+     * @param blockHeight the height of a block
+     * @return the grid
+     */
+    public static Grid classic(int blockWidth, int blockHeight) {
+        return new Grid.Builder()
+                .addSudoku(new SudokuClassic(new Position(blockWidth, blockHeight),
+                        new Position(blockHeight, blockWidth)))
+                .build();
+    }
+
+    /**
+     * Creates an empty 9x9 grid.
+     *
+     * @return the grid
+     */
+    public static Grid classic() {
+        return classic(3, 3);
+    }
+
+    /**
+     * Creates a 9x9 grid holding the givens of a puzzle.
+     *
+     * @param puzzle the 81 cells of the puzzle row by row, {@code .} for the empty cells
+     * @return the grid
+     */
+    public static Grid load(String puzzle) {
+        Grid grid = classic();
+        for (int i = 0; i < puzzle.length(); i++) {
+            if (puzzle.charAt(i) != '.') {
+                grid.insertSymbol(String.valueOf(puzzle.charAt(i)), new Position(i % 9, i / 9));
+            }
+        }
+        return grid;
+    }
+
+    /**
+     * Checks that every cell of a grid is filled and that no rule holds a symbol twice.
+     *
+     * @param grid the grid
+     * @return {@code true} if the grid is solved
+     */
+    public static boolean isSolved(Grid grid) {
+        for (Rule rule : grid.getRules()) {
+            Set<String> seen = new HashSet<>();
+            for (Position position : rule.getRulePositions()) {
+                String symbol = grid.getSymbol(position);
+                if (symbol == null || !seen.add(symbol)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
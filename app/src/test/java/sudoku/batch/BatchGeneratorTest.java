@@ -0,0 +1,99 @@
+package sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+import solvers.dlx.DancingLinks;
+import solvers.rating.Difficulty;
+import solvers.rating.DifficultyRater;
+import sudoku.GenerateSudoku;
+import sudoku.Grid;
+import sudoku.configuration.SudokuImporter;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static sudoku.TestGrids.classic;
+
+class BatchGeneratorTest {
+
+    @Test
+    void testGeneratedLinesAreUniquePuzzles() throws IOException {
+        BatchGenerator generator = new BatchGenerator(3, () -> classic(3, 3), 0.5,
+                GenerateSudoku.SolverType.CLASSIC, 42);
+        StringWriter output = new StringWriter();
+        GenerationProgress progress;
+        try (BufferedWriter writer = new BufferedWriter(output)) {
+            progress = generator.generate(30, PuzzleSink.lines(writer));
+        }
+        assertTrue(progress.isFinished());
+        assertEquals(30, progress.getGenerated());
+        assertSame(progress, generator.getProgress());
+
+        String[] lines = output.toString().split("\n");
+        assertEquals(30, lines.length);
+        Set<String> distinct = new HashSet<>();
+        for (String line : lines) {
+            assertEquals(81, line.length());
+            assertTrue(line.chars().filter(c -> c == '.').count() >= 40);
+            distinct.add(line);
+        }
+        assertEquals(30, distinct.size());
+
+        // The batch solver reads them back, each one having a solution
+        BatchReport[] report = new BatchReport[1];
+        StringWriter solutions = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(solutions)) {
+            report[0] = new BatchSolver(2).solve(new BufferedReader(new StringReader(output.toString())), writer);
+        }
+        assertEquals(30, report[0].getSolved());
+    }
+
+    @Test
+    void testProjectSinkWritesOtherLayouts() throws IOException {
+        BatchGenerator generator = new BatchGenerator(2, () -> classic(3, 2), 0.4,
+                GenerateSudoku.SolverType.BACKTRACK_OPTIMIZED, 7);
+        StringWriter output = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(output)) {
+            generator.generate(4, PuzzleSink.project(writer));
+        }
+        PuzzleReader reader = new PuzzleReader(new BufferedReader(new StringReader(output.toString())), PuzzleFormat.PROJECT);
+        for (int i = 0; i < 4; i++) {
+            Grid puzzle = SudokuImporter.importFrom(new BufferedReader(new StringReader(reader.next())));
+            assertTrue(puzzle.getNumberOfEmptyCells() > 0);
+            assertEquals(1, new DancingLinks(puzzle).countSolutions(2));
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testDifficultyBand() throws IOException {
+        BatchGenerator generator = new BatchGenerator(2, () -> classic(3, 3), Difficulty.MEDIUM,
+                GenerateSudoku.SolverType.CLASSIC, 3);
+        DifficultyRater rater = new DifficultyRater();
+        Grid reader = classic(3, 3);
+        int[] givens = new int[reader.getCellCount()];
+        GenerationProgress progress = generator.generate(6, puzzle -> {
+            puzzle.getValues(givens);
+            reader.loadValues(givens);
+            assertEquals(Difficulty.MEDIUM, rater.rate(reader).getDifficulty());
+        });
+        assertEquals(6, progress.getGenerated());
+        assertTrue(progress.getRejected() >= 0);
+        assertTrue(progress.toString().contains(progress.getRejected() + " rejected"));
+    }
+
+    @Test
+    void testSinkFailureStopsTheRun() {
+        BatchGenerator generator = new BatchGenerator(2, () -> classic(2, 2), 0.5,
+                GenerateSudoku.SolverType.CLASSIC, 1);
+        assertThrows(IOException.class, () -> generator.generate(100, puzzle -> {
+            throw new IOException("Disk full");
+        }));
+        assertTrue(generator.getProgress().getGenerated() < 100);
+    }
+}
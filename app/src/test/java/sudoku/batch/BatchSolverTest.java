@@ -0,0 +1,105 @@
+package sudoku.batch;
+
+import org.junit.jupiter.api.Test;
+import solvers.SolveOptions;
+import solvers.backtrack.BacktrackOptimized;
+import sudoku.Grid;
+import sudoku.Position;
+import sudoku.configuration.SudokuImporter;
+import sudoku.configuration.SudokuSaver;
+import sudoku.sudoku.SudokuClassic;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchSolverTest {
+
+    private static final String PUZZLE = "53..7....6..195....98....6.8...6...34..8.3..17...2...6.6....28....419..5....8..79";
+    private static final String SOLUTION = "534678912672195348198342567859761423426853791713924856961537284287419635345286179";
+
+    private static String run(BatchSolver batch, String input, BatchReport[] report) throws IOException {
+        StringWriter output = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(output)) {
+            report[0] = batch.solve(new BufferedReader(new StringReader(input)), writer);
+        }
+        return output.toString();
+    }
+
+    @Test
+    void testLinesKeepTheirOrder() throws IOException {
+        String unsolvable = "11" + ".".repeat(79);
+        StringBuilder input = new StringBuilder("# Comments and blank lines are skipped\n\n");
+        int puzzles = 300;
+        for (int i = 0; i < puzzles; i++) {
+            input.append(i % 3 == 0 ? unsolvable : i % 7 == 0 ? "123" : PUZZLE).append('\n');
+        }
+        BatchReport[] report = new BatchReport[1];
+        String[] lines = run(new BatchSolver(3), input.toString(), report).split("\n");
+
+        assertEquals(puzzles, lines.length);
+        for (int i = 0; i < puzzles; i++) {
+            String expected = i % 3 == 0 ? unsolvable + " UNSAT" : i % 7 == 0 ? "123 INVALID" : SOLUTION;
+            assertEquals(expected, lines[i], "line " + i);
+        }
+        assertEquals(puzzles, report[0].getPuzzles());
+        assertEquals(100, report[0].getUnsolvable());
+        assertEquals(report[0].getPuzzles(), report[0].getSolved() + report[0].getUnsolvable() + report[0].getInvalid());
+        assertTrue(report[0].getPuzzlesPerSecond() > 0);
+    }
+
+    @Test
+    void testWorkersReloadTheirGrid() throws IOException {
+        // A 4x4 puzzle between two 9x9 ones makes the worker rebuild its grid twice
+        String small = "1...........4..3";
+        String input = PUZZLE + "\n" + small + "\n" + PUZZLE.replace('5', '.') + "\n";
+        BatchReport[] report = new BatchReport[1];
+        String[] lines = run(new BatchSolver(1, BacktrackOptimized::new, SolveOptions.NONE), input, report)
+                .split("\n");
+
+        assertEquals(SOLUTION, lines[0]);
+        assertEquals(16, lines[1].length());
+        assertEquals('1', lines[1].charAt(0));
+        assertEquals('3', lines[1].charAt(15));
+        assertEquals(SOLUTION, lines[2]);
+        assertEquals(3, report[0].getSolved());
+    }
+
+    @Test
+    void testProjectFormat() throws IOException {
+        StringWriter input = new StringWriter();
+        try (BufferedWriter writer = new BufferedWriter(input)) {
+            for (int i = 0; i < 2; i++) {
+                Grid grid = new Grid.Builder()
+                        .addSudoku(new SudokuClassic(new Position(2, 2), new Position(2, 2)))
+                        .build();
+                grid.insertValue(0, i);
+                SudokuSaver.write(grid, writer);
+                writer.newLine();
+            }
+        }
+        PuzzleReader reader = PuzzleReader.open(new BufferedReader(new StringReader(input.toString())));
+        assertEquals(PuzzleFormat.PROJECT, reader.getFormat());
+
+        BatchReport[] report = new BatchReport[1];
+        String output = run(new BatchSolver(2), input.toString(), report);
+        assertEquals(2, report[0].getSolved());
+
+        reader = new PuzzleReader(new BufferedReader(new StringReader(output)), PuzzleFormat.PROJECT);
+        for (int i = 0; i < 2; i++) {
+            Grid solved = SudokuImporter.importFrom(new BufferedReader(new StringReader(reader.next())));
+            assertTrue(solved.isComplete());
+            assertEquals(i, solved.getValue(0));
+        }
+        assertNull(reader.next());
+    }
+
+    @Test
+    void testRejectNoWorker() {
+        assertThrows(IllegalArgumentException.class, () -> new BatchSolver(0));
+    }
+}
@@ -0,0 +1,61 @@
+package utils;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BucketQueueTest {
+
+    @Test
+    void testEmptyQueue() {
+        BucketQueue queue = new BucketQueue(4, 9);
+        assertTrue(queue.isEmpty());
+        assertEquals(-1, queue.getMinKey());
+        assertEquals(-1, queue.peekMin());
+        assertFalse(queue.contains(0));
+    }
+
+    @Test
+    void testUpdateAndRemove() {
+        BucketQueue queue = new BucketQueue(4, 9);
+        queue.update(0, 5);
+        queue.update(1, 3);
+        queue.update(2, 3);
+        assertEquals(3, queue.size());
+        assertEquals(3, queue.getMinKey());
+        assertEquals(2, queue.getBucketSize(3));
+
+        queue.update(0, 1);
+        assertEquals(0, queue.peekMin());
+        assertEquals(1, queue.getKey(0));
+
+        queue.remove(0);
+        queue.remove(0);
+        assertEquals(2, queue.size());
+        assertEquals(3, queue.getMinKey());
+
+        queue.update(1, 9);
+        queue.update(2, 9);
+        assertEquals(9, queue.getMinKey());
+        assertEquals(0, queue.getBucketSize(3));
+    }
+
+    @Test
+    void testBucketIteration() {
+        BucketQueue queue = new BucketQueue(5, 9);
+        for (int id = 0; id < 5; id++) {
+            queue.update(id, 2);
+        }
+        queue.remove(2);
+        int count = 0;
+        for (int id = queue.getFirst(2); id != -1; id = queue.getNext(id)) {
+            assertNotEquals(2, id);
+            count++;
+        }
+        assertEquals(4, count);
+
+        queue.clear();
+        assertTrue(queue.isEmpty());
+        assertEquals(-1, queue.getFirst(2));
+    }
+}